@@ -5,6 +5,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.5.7"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.promoit"
@@ -13,7 +14,7 @@ description = "Short link service with expiration and click limits"
 
 java {
 	toolchain {
-		languageVersion = JavaLanguageVersion.of(17)
+		languageVersion = JavaLanguageVersion.of(21)
 	}
 }
 
@@ -26,25 +27,45 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-validation")
 	implementation("org.springframework.boot:spring-boot-starter-web")
+	implementation("org.springframework.boot:spring-boot-starter-actuator")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     //lombok
     annotationProcessor("org.projectlombok:lombok")
     implementation("org.projectlombok:lombok:1.18.38")
     //org.apache.commons
     implementation("org.apache.commons:commons-lang3:3.18.0")
+    //micrometer
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+    //caffeine
+    implementation("com.github.ben-manes.caffeine:caffeine")
     //h2database
     runtimeOnly("com.h2database:h2")
     //junit
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
+// Бенчмарки: ./gradlew jmh (фильтр: -PjmhIncludes=LinkServiceBenchmark)
+// Результаты в build/reports/jmh/results.json для сравнения между запусками
+jmh {
+    jmhVersion = "1.37"
+    includes = listOf(project.findProperty("jmhIncludes")?.toString() ?: ".*")
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+}
+
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
 
 
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("scale")
+    }
     testLogging {
         events = setOf(
             TestLogEvent.PASSED,
@@ -60,3 +81,20 @@ tasks.test {
         showStandardStreams = true
     }
 }
+
+// Замеры на объемных синтетических данных (@Tag("scale")) не входят в test и CI: ./gradlew scaleTest -PscaleLinks=5000000
+val scaleTest by tasks.registering(Test::class) {
+    description = "Runs tests tagged 'scale' on bulk synthetic data"
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("scale")
+    }
+    project.findProperty("scaleLinks")?.let { systemProperty("scale.links", it.toString()) }
+    testLogging {
+        events = setOf(TestLogEvent.PASSED, TestLogEvent.FAILED, TestLogEvent.SKIPPED, TestLogEvent.STANDARD_OUT)
+        exceptionFormat = TestExceptionFormat.FULL
+    }
+    shouldRunAfter(tasks.test)
+}
@@ -0,0 +1,61 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.ShortLinkApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Поднимает контекст приложения на встроенной H2 для бенчмарков (без консольного клиента).
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Контекст без веб-сервера для бенчмарков сервисного слоя.
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    /**
+     * Контекст со встроенным Tomcat на случайном порту для нагрузочных бенчмарков по HTTP.
+     */
+    static ConfigurableApplicationContext startServer(String... properties) {
+        String[] withPort = new String[properties.length + 1];
+        System.arraycopy(properties, 0, withPort, 0, properties.length);
+        withPort[properties.length] = "server.port=0";
+        return start(WebApplicationType.SERVLET, withPort);
+    }
+
+    /**
+     * Возвращает порт, на котором запущен встроенный веб-сервер.
+     */
+    static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String... properties) {
+        SpringApplication application = new SpringApplication(ShortLinkApplication.class);
+        application.setAdditionalProfiles("test");
+        application.setWebApplicationType(type);
+        Map<String, String> overrides = new LinkedHashMap<>();
+        overrides.put("spring.main.banner-mode", "off");
+        overrides.put("logging.level.root", "WARN");
+        overrides.put("logging.level.com.promoit", "WARN");
+        overrides.put("spring.datasource.url", "jdbc:h2:mem:bench-" + System.nanoTime());
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            overrides.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        // Передаются как аргументы командной строки, чтобы перекрывать значения из application.yaml
+        return application.run(overrides.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new));
+    }
+}
@@ -0,0 +1,74 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.click.ClickEventLog;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость записи события перехода на пути редиректа: обращение к ссылке из кэша с учетом перехода
+ * в памяти, с журналом событий и без него. Число отброшенных из-за переполнения буфера событий
+ * печатается по завершении прогона.
+ * Запуск: ./gradlew jmh -PjmhIncludes=ClickEventLogBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(8)
+public class ClickEventLogBenchmark {
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36";
+
+    @Param({"false", "true"})
+    private boolean clickLog;
+
+    private Path dir;
+    private ConfigurableApplicationContext context;
+    private LinkService linkService;
+    private ClickEventLog clickEventLog;
+    private String shortCode;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("click-log-bench");
+        context = BenchmarkContext.start("app.click-log.enabled=" + clickLog, "app.click-log.dir=" + dir);
+        linkService = context.getBean(LinkService.class);
+        clickEventLog = context.getBean(ClickEventLog.class);
+        UserEntity user = context.getBean(UserService.class).getOrCreateUser(null);
+        shortCode = linkService.createShortLink("https://example.com/click-log", user, null).getShortCode();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%nclickLog=%s: %d written, %d dropped%n",
+                clickLog, clickEventLog.getWrittenCount(), clickEventLog.getDroppedCount());
+        context.close();
+        FileSystemUtils.deleteRecursively(dir.toFile());
+    }
+
+    @Benchmark
+    public LinkAccessResult redirect() {
+        LinkAccessResult result = linkService.accessLink(shortCode);
+        if (result.getStatus() == LinkAccessResult.Status.OK) {
+            clickEventLog.record(shortCode, "https://news.example.com/article", USER_AGENT);
+        }
+        return result;
+    }
+}
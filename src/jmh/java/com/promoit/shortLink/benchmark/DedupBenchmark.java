@@ -0,0 +1,72 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Синтетическая нагрузка повторного сокращения: доля repeatRatio запросов повторяет один из 1000 URL,
+ * остальные уникальны. Сравнивает скорость создания и объем таблицы с дедупликацией и без нее;
+ * число строк и байт URL в таблице печатается по завершении прогона.
+ * Запуск: ./gradlew jmh -PjmhIncludes=DedupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DedupBenchmark {
+    private static final int REPEATED_URLS = 1000;
+
+    @Param({"false", "true"})
+    private boolean dedup;
+    @Param({"0.5", "0.9"})
+    private double repeatRatio;
+
+    private ConfigurableApplicationContext context;
+    private LinkService linkService;
+    private UserEntity user;
+    private final AtomicLong unique = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("app.link.dedup=" + dedup);
+        linkService = context.getBean(LinkService.class);
+        user = context.getBean(UserService.class).getOrCreateUser(null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Map<String, Object> table = context.getBean(JdbcTemplate.class).queryForMap(
+                "SELECT COUNT(*) AS row_count, COALESCE(SUM(LENGTH(original_url)), 0) AS url_chars FROM link_entity");
+        System.out.printf("%ndedup=%s repeatRatio=%s: %d create requests, %s rows, %s URL chars%n",
+                dedup, repeatRatio, requests.get(), table.get("ROW_COUNT"), table.get("URL_CHARS"));
+        context.close();
+    }
+
+    @Benchmark
+    public LinkEntity createShortLink() {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String url = random.nextDouble() < repeatRatio
+                ? "https://example.com/campaign/landing?utm_source=partner&item=" + random.nextInt(REPEATED_URLS)
+                : "https://example.com/campaign/landing?utm_source=partner&unique=" + unique.incrementAndGet();
+        return linkService.createShortLink(url, user, null);
+    }
+}
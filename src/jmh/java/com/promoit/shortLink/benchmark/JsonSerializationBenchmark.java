@@ -0,0 +1,72 @@
+package com.promoit.shortLink.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов /shorten и /user/links тем же ObjectMapper, что использует приложение.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonSerializationBenchmark {
+    @Param({"10", "1000"})
+    private int userLinks;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private Map<String, Object> shortenResponse;
+    private List<LinkEntity> links;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        objectMapper = context.getBean(ObjectMapper.class);
+        UserEntity user = new UserEntity();
+        shortenResponse = new HashMap<>();
+        shortenResponse.put("shortUrl", "http://localhost:8080/aB3dE5gH9");
+        shortenResponse.put("shortCode", "aB3dE5gH9");
+        shortenResponse.put("userId", user.getId());
+        shortenResponse.put("expiresAt", LocalDateTime.now().plusHours(24));
+        shortenResponse.put("clickLimit", 100);
+        links = new ArrayList<>(userLinks);
+        for (int i = 0; i < userLinks; i++) {
+            links.add(new LinkEntity("code" + i, "https://example.com/page/" + i, user, i % 2 == 0 ? null : 100,
+                    LocalDateTime.now().plusHours(24)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] shortenResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(shortenResponse);
+    }
+
+    @Benchmark
+    public byte[] userLinksResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(links);
+    }
+}
@@ -0,0 +1,43 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LinkEntityBenchmark {
+    private LinkEntity activeLink;
+    private LinkEntity unlimitedLink;
+
+    @Setup
+    public void setUp() {
+        activeLink = new LinkEntity("active123", "https://example.com", new UserEntity(), 100, LocalDateTime.now().plusHours(24));
+        unlimitedLink = new LinkEntity("unlimited", "https://example.com", new UserEntity(), null, LocalDateTime.now().plusHours(24));
+    }
+
+    @Benchmark
+    public boolean isExpired() {
+        return activeLink.isExpired();
+    }
+
+    @Benchmark
+    public boolean canBeAccessedLimited() {
+        return activeLink.canBeAccessed();
+    }
+
+    @Benchmark
+    public boolean canBeAccessedUnlimited() {
+        return unlimitedLink.canBeAccessed();
+    }
+}
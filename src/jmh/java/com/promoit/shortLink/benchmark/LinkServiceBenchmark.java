@@ -0,0 +1,101 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.cache.LinkCache;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути LinkService на встроенной H2: редирект (попадание в кэш, промах кэша, неизвестный код,
+ * истекшая ссылка, исчерпанный лимит) и создание ссылки вместе с генерацией кода.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LinkServiceBenchmark {
+    private ConfigurableApplicationContext context;
+    private LinkService linkService;
+    private LinkCache linkCache;
+    private UserEntity user;
+    private String unlimitedCode;
+    private String limitedCode;
+    private String expiredCode;
+    private String exhaustedCode;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        linkService = context.getBean(LinkService.class);
+        linkCache = context.getBean(LinkCache.class);
+        LinkRepository linkRepository = context.getBean(LinkRepository.class);
+        user = context.getBean(UserService.class).getOrCreateUser(null);
+
+        unlimitedCode = linkService.createShortLink("https://example.com/unlimited", user, null).getShortCode();
+        limitedCode = linkService.createShortLink("https://example.com/limited", user, Integer.MAX_VALUE).getShortCode();
+        exhaustedCode = linkService.createShortLink("https://example.com/exhausted", user, 1).getShortCode();
+        linkService.accessLink(exhaustedCode);
+
+        LinkEntity expired = linkService.createShortLink("https://example.com/expired", user, null);
+        expired = linkRepository.findByShortCode(expired.getShortCode()).orElseThrow();
+        expired.setExpiresAt(LocalDateTime.now().minusHours(1));
+        linkRepository.save(expired);
+        expiredCode = expired.getShortCode();
+        linkCache.invalidate(expiredCode);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LinkAccessResult accessCacheHitUnlimited() {
+        return linkService.accessLink(unlimitedCode);
+    }
+
+    @Benchmark
+    public LinkAccessResult accessCacheHitLimited() {
+        return linkService.accessLink(limitedCode);
+    }
+
+    @Benchmark
+    public LinkAccessResult accessCacheMiss() {
+        linkCache.invalidate(unlimitedCode);
+        return linkService.accessLink(unlimitedCode);
+    }
+
+    @Benchmark
+    public LinkAccessResult accessUnknownCode() {
+        return linkService.accessLink("zzzzzzzzz");
+    }
+
+    @Benchmark
+    public LinkAccessResult accessExpired() {
+        return linkService.accessLink(expiredCode);
+    }
+
+    @Benchmark
+    public LinkAccessResult accessLimitReached() {
+        return linkService.accessLink(exhaustedCode);
+    }
+
+    @Benchmark
+    public LinkEntity createShortLink() {
+        return linkService.createShortLink("https://example.com/created", user, 100);
+    }
+}
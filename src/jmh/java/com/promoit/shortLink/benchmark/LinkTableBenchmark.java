@@ -0,0 +1,116 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.cache.OffHeapLinkTable;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Редирект-проверка по десяткам миллионов ссылок: сущности LinkEntity в HashMap на куче против
+ * таблицы ссылок вне кучи. lookup - поиск по коду и проверка canBeAccessed, churn - тот же поиск
+ * на фоне выделения памяти запросом, чтобы сборщик мусора работал с живым набором ссылок.
+ * Байт на ссылку печатаются при подготовке (для кучи - прирост занятой памяти после полной сборки),
+ * паузы сборщика - в gc.time/gc.count профилировщика gc.
+ * Нужна машина с памятью под 50M ссылок на куче (-Xmx32g).
+ * Запуск: ./gradlew jmh -PjmhIncludes=LinkTableBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms32g", "-Xmx32g", "-XX:MaxDirectMemorySize=16g"})
+public class LinkTableBenchmark {
+    @Param({"10000000", "50000000"})
+    private int links;
+    @Param({"heap", "offheap"})
+    private String layout;
+
+    private ConfigurableApplicationContext context;
+    private Map<String, LinkEntity> entities;
+    private OffHeapLinkTable table;
+    private String[] probes;
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        if ("heap".equals(layout)) {
+            UserEntity user = new UserEntity();
+            entities = new HashMap<>(links * 2);
+            for (int i = 0; i < links; i++) {
+                String code = code(i);
+                entities.put(code, new LinkEntity(code, url(i), user, i % 2 == 0 ? null : 100, expiresAt));
+            }
+            System.out.printf("%nheap: %d bytes per link%n", (usedHeap() - before) / links);
+        } else {
+            context = BenchmarkContext.start("app.link-table.enabled=true", "app.link-table.initial-capacity=" + links);
+            table = context.getBean(OffHeapLinkTable.class);
+            for (int i = 0; i < links; i++) {
+                table.put(new LinkSnapshot(code(i), url(i), "user", i % 2 == 0 ? null : 100, expiresAt, null));
+            }
+            System.out.printf("%noffheap: %d bytes per link (%d live), heap growth %d bytes%n",
+                    table.getMemoryBytes() / links, table.getLiveBytes() / links, usedHeap() - before);
+        }
+        probes = new String[1 << 16];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = code(ThreadLocalRandom.current().nextInt(links));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public boolean lookup() {
+        return canBeAccessed(probes[ThreadLocalRandom.current().nextInt(probes.length)]);
+    }
+
+    @Benchmark
+    public boolean churn(Blackhole blackhole) {
+        blackhole.consume(new byte[4096]);
+        return canBeAccessed(probes[ThreadLocalRandom.current().nextInt(probes.length)]);
+    }
+
+    private boolean canBeAccessed(String code) {
+        if (table != null) {
+            return table.check(code, System.currentTimeMillis()) == OffHeapLinkTable.ACCESSIBLE;
+        }
+        LinkEntity link = entities.get(code);
+        return link != null && link.canBeAccessed();
+    }
+
+    private static String code(int i) {
+        return "c" + Integer.toString(i, 36);
+    }
+
+    private static String url(int i) {
+        return "https://example.com/articles/" + i + "?utm_source=newsletter";
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
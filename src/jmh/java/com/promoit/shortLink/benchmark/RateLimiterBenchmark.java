@@ -0,0 +1,53 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.ratelimit.TokenBucketLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы ограничения частоты на запрос: проверка пары корзин (IP и общая), как в RateLimiter
+ * для редиректа. keys=1 - все потоки бьют в одну корзину (конкуренция за CAS), 100000 - ключи разбросаны.
+ * allow=true - лимиты не достигаются, false - большая часть запросов отклоняется.
+ * Запуск: ./gradlew jmh -PjmhIncludes=RateLimiterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(8)
+public class RateLimiterBenchmark {
+    @Param({"1", "100000"})
+    private int keys;
+    @Param({"true", "false"})
+    private boolean allow;
+
+    private TokenBucketLimiter perKey;
+    private TokenBucketLimiter global;
+    private String[] ips;
+
+    @Setup
+    public void setUp() {
+        perKey = allow ? new TokenBucketLimiter(1_000_000_000, 1_000_000_000) : new TokenBucketLimiter(100, 200);
+        global = new TokenBucketLimiter(1_000_000_000, 1_000_000_000);
+        ips = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            ips[i] = "10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public long checkRedirect() {
+        long now = System.nanoTime();
+        long wait = perKey.tryAcquire(ips[ThreadLocalRandom.current().nextInt(keys)], now);
+        return wait > 0 ? wait : global.tryAcquire("", now);
+    }
+}
@@ -0,0 +1,137 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочное сравнение режимов обслуживания редиректа по HTTP: платформенные и виртуальные потоки,
+ * синхронный (servlet) и неблокирующий (async) контроллер.
+ * 512 клиентских потоков против пула Tomcat из 64 платформенных потоков; клики резервируются
+ * в базе на каждый запрос (click-write-behind=false), чтобы каждый запрос блокировался на JDBC.
+ * Режим Throughput дает запросы в секунду, SampleTime - перцентили задержки (p0.99 в отчете JMH),
+ * профилировщик gc - байты аллокаций на запрос (gc.alloc.rate.norm).
+ * Память на открытое соединение печатается после каждой итерации: пик занятой кучи после сборок
+ * под нагрузкой сверх кучи простоя и пик числа потоков сверх простоя, деленные на число соединений (512);
+ * стек платформенного потока добавляет к этому -Xss (1 MB по умолчанию) виртуальной памяти на поток.
+ * Запуск: ./gradlew jmh -PjmhIncludes=RedirectLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(RedirectLoadBenchmark.CONNECTIONS)
+@Fork(1)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+public class RedirectLoadBenchmark {
+    private static final int CONNECTIONS = 512;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+    @Param({"servlet", "async"})
+    private String redirectMode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest redirectRequest;
+    private ScheduledExecutorService sampler;
+    private long idleHeap;
+    private int idleThreads;
+    private final AtomicLong peakHeap = new AtomicLong();
+    private final AtomicLong peakThreads = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.startServer(
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "app.redirect.mode=" + redirectMode,
+                "server.tomcat.threads.max=64",
+                "server.tomcat.max-connections=2048",
+                "spring.datasource.hikari.maximum-pool-size=16",
+                "app.link.click-write-behind=false",
+                "app.rate-limit.enabled=false");
+        UserEntity user = context.getBean(UserService.class).getOrCreateUser(null);
+        String shortCode = context.getBean(LinkService.class)
+                .createShortLink("https://example.com/load", user, null)
+                .getShortCode();
+        client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        redirectRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + BenchmarkContext.port(context) + "/" + shortCode))
+                .GET()
+                .build();
+        System.gc();
+        idleHeap = heapAfterGc();
+        idleThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(heapAfterGc(), Math::max);
+            peakThreads.accumulateAndGet(ManagementFactory.getThreadMXBean().getThreadCount(), Math::max);
+        }, 100, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportConnectionMemory() {
+        System.out.printf("%nper connection: %d heap bytes, %.2f threads (peak heap %d MB, peak threads %d)%n",
+                Math.max(0, peakHeap.get() - idleHeap) / CONNECTIONS,
+                Math.max(0, peakThreads.get() - idleThreads) / (double) CONNECTIONS,
+                peakHeap.get() >> 20, peakThreads.get());
+        peakHeap.set(0);
+        peakThreads.set(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sampler.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int redirect() throws IOException, InterruptedException {
+        return client.send(redirectRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Занятая куча по последней сборке каждого пула: не требует System.gc() под нагрузкой.
+     * Включает память клиентских потоков бенчмарка, которая одинакова для всех режимов сервера.
+     */
+    private static long heapAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) {
+                used += pool.getCollectionUsage().getUsed();
+            }
+        }
+        return used;
+    }
+}
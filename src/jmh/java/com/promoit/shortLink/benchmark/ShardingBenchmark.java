@@ -0,0 +1,74 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import com.promoit.shortLink.storage.LinkStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность создания ссылок и поиска ссылки мимо кэша (путь редиректа при промахе)
+ * в зависимости от числа шардов. Каждый шард - отдельная база H2 в памяти со своим пулом соединений,
+ * поэтому на одной машине рост отражает снятие конкуренции за одну базу, а не добавление железа.
+ * Запуск: ./gradlew jmh -PjmhIncludes=ShardingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ShardingBenchmark {
+    private static final int LINKS = 20_000;
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    private ConfigurableApplicationContext context;
+    private LinkService linkService;
+    private LinkStore linkStore;
+    private UserEntity user;
+    private String[] codes;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("app.sharding.shards=" + shards,
+                "app.sharding.url-template=jdbc:h2:mem:bench-shard-" + System.nanoTime() + "-%d");
+        linkService = context.getBean(LinkService.class);
+        linkStore = context.getBean(LinkStore.class);
+        user = context.getBean(UserService.class).getOrCreateUser(null);
+        codes = new String[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            codes[i] = linkService.createShortLink("https://example.com/sharding/" + i, user, null).getShortCode();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LinkEntity create() {
+        return linkService.createShortLink("https://example.com/sharding/" + ThreadLocalRandom.current().nextLong(), user, null);
+    }
+
+    @Benchmark
+    public Optional<LinkSnapshot> redirectLookup() {
+        return linkStore.find(codes[ThreadLocalRandom.current().nextInt(LINKS)]);
+    }
+}
@@ -0,0 +1,69 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import com.promoit.shortLink.storage.LinkStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка поиска ссылки по коду в хранилище мимо кэша: запрос к H2 через JPA против
+ * mmap-индекса и чтения записи из журнала.
+ * Запуск: ./gradlew jmh -PjmhIncludes=StorageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StorageBenchmark {
+    private static final int LINKS = 10_000;
+
+    @Param({"jpa", "log"})
+    private String backend;
+
+    private Path dir;
+    private ConfigurableApplicationContext context;
+    private LinkStore linkStore;
+    private String[] codes;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("storage-bench");
+        context = BenchmarkContext.start("app.storage.backend=" + backend, "app.storage.dir=" + dir);
+        LinkService linkService = context.getBean(LinkService.class);
+        UserEntity user = context.getBean(UserService.class).getOrCreateUser(null);
+        codes = new String[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            codes[i] = linkService.createShortLink("https://example.com/storage/" + i, user, null).getShortCode();
+        }
+        linkStore = context.getBean(LinkStore.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(dir.toFile());
+    }
+
+    @Benchmark
+    public Optional<LinkSnapshot> find() {
+        return linkStore.find(codes[ThreadLocalRandom.current().nextInt(LINKS)]);
+    }
+}
@@ -0,0 +1,77 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время рестарта приложения с сохраненными ссылками: файловая H2 (jpa) против журнала,
+ * из которого при старте заполняется база в памяти (log). Замер включает подъем контекста целиком.
+ * Запуск: ./gradlew jmh -PjmhIncludes=StorageRestartBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class StorageRestartBenchmark {
+    @Param({"jpa", "log"})
+    private String backend;
+    @Param({"10000", "100000"})
+    private int links;
+
+    private Path dir;
+    private String[] properties;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        dir = Files.createTempDirectory("restart-bench");
+        properties = backend.equals("jpa")
+                ? new String[]{"spring.datasource.url=jdbc:h2:file:" + dir.resolve("db"),
+                "spring.jpa.hibernate.ddl-auto=update"}
+                : new String[]{"app.storage.backend=log", "app.storage.dir=" + dir};
+        ConfigurableApplicationContext populating = BenchmarkContext.start(properties);
+        LinkService linkService = populating.getBean(LinkService.class);
+        UserEntity user = populating.getBean(UserService.class).getOrCreateUser(null);
+        for (int i = 0; i < links; i++) {
+            linkService.createShortLink("https://example.com/restart/" + i, user, null);
+        }
+        populating.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() {
+        FileSystemUtils.deleteRecursively(dir.toFile());
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext restart() {
+        context = BenchmarkContext.start(properties);
+        return context;
+    }
+}
@@ -0,0 +1,85 @@
+package com.promoit.shortLink.benchmark;
+
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Обращения к базе на один POST /shorten (UserService.getOrCreateUser + LinkService.createShortLink):
+ * без кэша пользователей (app.user.cache-enabled=false: SELECT пользователя по X-User-ID, новый пользователь
+ * записывается отдельной транзакцией сразу) и с кэшем и отложенной записью анонимных пользователей. anonymous - запрос без X-User-ID,
+ * known - запрос существующего пользователя. Число SQL-запросов и транзакций на запрос
+ * (по статистике Hibernate) печатается после каждой итерации.
+ * Запуск: ./gradlew jmh -PjmhIncludes=UserRoundTripBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UserRoundTripBenchmark {
+    @Param({"false", "true"})
+    private boolean userCache;
+    @Param({"anonymous", "known"})
+    private String user;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private LinkService linkService;
+    private Statistics statistics;
+    private String knownUserId;
+    private final AtomicLong requests = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("app.user.cache-enabled=" + userCache,
+                "spring.jpa.properties.hibernate.generate_statistics=true");
+        userService = context.getBean(UserService.class);
+        linkService = context.getBean(LinkService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        UserEntity known = userService.getOrCreateUser(null);
+        linkService.createShortLink("https://example.com/known", known, null);
+        knownUserId = known.getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        statistics.clear();
+        requests.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRoundTrips() {
+        long count = Math.max(1, requests.get());
+        System.out.printf("%nuserCache=%s user=%s: %.2f statements, %.2f transactions per shorten%n", userCache, user,
+                (double) statistics.getPrepareStatementCount() / count, (double) statistics.getTransactionCount() / count);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LinkEntity shorten() {
+        requests.incrementAndGet();
+        UserEntity owner = userService.getOrCreateUser("known".equals(user) ? knownUserId : null);
+        return linkService.createShortLink("https://example.com/round-trip", owner, null);
+    }
+}
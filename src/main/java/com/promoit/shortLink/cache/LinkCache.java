@@ -0,0 +1,150 @@
+package com.promoit.shortLink.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.storage.LinkStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@Component
+public class LinkCache {
+    @Autowired
+    private LinkStore linkStore;
+    @Autowired
+    private OffHeapLinkTable linkTable;
+    @Autowired
+    private AppConfig appConfig;
+
+    private Cache<String, LinkSnapshot> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(appConfig.getCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(appConfig.getCacheTtlSeconds()))
+                .recordStats()
+                .build();
+        log.info("Link cache initialized (max size: {}, ttl: {}s)", appConfig.getCacheMaxSize(), appConfig.getCacheTtlSeconds());
+    }
+
+    /**
+     * Возвращает снимок ссылки из кэша, при промахе берет его из таблицы ссылок вне кучи или загружает из базы.
+     * Параллельные промахи по одному коду выполняют только один запрос к базе.
+     * Отсутствующие коды не кэшируются.
+     * @param shortCode код короткой ссылки
+     * @return Optional со снимком ссылки или empty если ссылка не найдена
+     */
+    public Optional<LinkSnapshot> get(String shortCode) {
+        return Optional.ofNullable(cache.get(shortCode, this::load));
+    }
+
+    /**
+     * Возвращает снимок ссылки только если он уже есть в кэше или в таблице ссылок вне кучи, без обращения к базе.
+     */
+    public Optional<LinkSnapshot> getIfPresent(String shortCode) {
+        LinkSnapshot snapshot = cache.getIfPresent(shortCode);
+        if (snapshot == null && linkTable.isEnabled()) {
+            snapshot = linkTable.get(shortCode);
+            if (snapshot != null) {
+                cache.asMap().putIfAbsent(shortCode, snapshot);
+            }
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Кладет снимок ссылки в кэш (write-through при создании).
+     */
+    public void put(LinkSnapshot snapshot) {
+        cache.put(snapshot.getShortCode(), snapshot);
+        linkTable.put(snapshot);
+    }
+
+    /**
+     * Учитывает переход в счетчике таблицы ссылок вне кучи.
+     */
+    public void recordClick(String shortCode) {
+        linkTable.recordClick(shortCode);
+    }
+
+    /**
+     * Проверяет по таблице ссылок вне кучи, что лимит переходов ссылки уже исчерпан. Не выделяет память.
+     * @return false если таблица выключена, ссылки в ней нет или переходы еще остались
+     */
+    public boolean isExhausted(String shortCode) {
+        return linkTable.check(shortCode, System.currentTimeMillis()) == OffHeapLinkTable.EXHAUSTED;
+    }
+
+    /**
+     * Прогревает кэш снимком, не затирая запись, загруженную за это время из хранилища.
+     * @return true если снимок добавлен
+     */
+    public boolean warm(LinkSnapshot snapshot) {
+        return cache.asMap().putIfAbsent(snapshot.getShortCode(), snapshot) == null;
+    }
+
+    /**
+     * Возвращает до limit самых востребованных записей кэша по оценке частоты вытеснения,
+     * начиная с самых горячих.
+     */
+    public List<LinkSnapshot> hottest(int limit) {
+        return cache.policy().eviction()
+                .map(eviction -> List.copyOf(eviction.hottest(limit).values()))
+                .orElseGet(List::of);
+    }
+
+    /**
+     * Удаляет ссылку из кэша.
+     */
+    public void invalidate(String shortCode) {
+        cache.invalidate(shortCode);
+        linkTable.remove(shortCode);
+    }
+
+    /**
+     * Удаляет из кэша набор ссылок.
+     */
+    public void invalidateAll(Collection<String> shortCodes) {
+        cache.invalidateAll(shortCodes);
+        linkTable.removeAll(shortCodes);
+    }
+
+    /**
+     * Возвращает счетчики попаданий, промахов и вытеснений.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Возвращает примерное количество записей в кэше.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private LinkSnapshot load(String shortCode) {
+        if (linkTable.isEnabled()) {
+            LinkSnapshot snapshot = linkTable.get(shortCode);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        LinkSnapshot snapshot = linkStore.find(shortCode).orElse(null);
+        if (snapshot != null) {
+            linkTable.put(snapshot);
+        }
+        return snapshot;
+    }
+}
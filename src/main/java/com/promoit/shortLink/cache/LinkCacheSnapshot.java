@@ -0,0 +1,293 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Снимок самых востребованных ссылок кэша на локальном диске. Периодически и при остановке
+ * записывает горячие записи в компактный бинарный файл, а после рестарта в фоне прогревает им кэш,
+ * чтобы первые редиректы не уходили в базу. Ссылки, истекшие или удаленные за время простоя, пропускаются.
+ * Формат: заголовок (magic, версия, время записи, число записей), записи, CRC32 всего предшествующего.
+ */
+@Slf4j
+@Component
+public class LinkCacheSnapshot {
+    private static final int MAGIC = 0x4C534E50;  // "LSNP"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int VALIDATE_BATCH = 1000;
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    @Autowired
+    private LinkCache linkCache;
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private AppConfig appConfig;
+
+    private volatile boolean loaded;
+    private volatile long lastWrittenEntries;
+    private volatile long lastWrittenBytes;
+    private volatile long lastLoadedEntries;
+    private volatile long lastLoadMillis;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        if (!appConfig.isCacheSnapshotEnabled()) {
+            return;
+        }
+        Thread.Builder builder = appConfig.isVirtualThreads() ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        builder.name("cache-snapshot-loader").start(this::load);
+    }
+
+    /**
+     * Прогревает кэш из файла снимка. Истекшие записи отбрасываются сразу, остальные проверяются
+     * на существование пачками по коду. Загрузка прерывается по истечении app.cache.snapshot.load-timeout-millis.
+     */
+    void load() {
+        long startedAt = System.currentTimeMillis();
+        Path file = Path.of(appConfig.getCacheSnapshotFile());
+        try {
+            if (!Files.exists(file)) {
+                log.info("SNAPSHOT - No cache snapshot at {}, starting cold", file);
+                return;
+            }
+            List<LinkSnapshot> entries = read(file);
+            if (entries == null) {
+                log.warn("SNAPSHOT - Cache snapshot {} is corrupt, ignoring it", file);
+                return;
+            }
+            long deadline = startedAt + appConfig.getCacheSnapshotLoadTimeoutMillis();
+            long warmed = 0;
+            int skipped = 0;
+            List<LinkSnapshot> batch = new ArrayList<>(VALIDATE_BATCH);
+            for (LinkSnapshot entry : entries) {
+                if (entry.isExpired()) {
+                    skipped++;
+                    continue;
+                }
+                batch.add(entry);
+                if (batch.size() == VALIDATE_BATCH) {
+                    warmed += warm(batch);
+                    batch.clear();
+                    if (System.currentTimeMillis() > deadline) {
+                        log.warn("SNAPSHOT - Load timeout reached, leaving the rest of the snapshot to traffic");
+                        break;
+                    }
+                }
+            }
+            warmed += warm(batch);
+            lastLoadedEntries = warmed;
+            lastLoadMillis = System.currentTimeMillis() - startedAt;
+            log.info("SNAPSHOT - Warmed cache with {} of {} links ({} expired) in {} ms",
+                    warmed, entries.size(), skipped, lastLoadMillis);
+        } catch (IOException | RuntimeException e) {
+            log.error("SNAPSHOT - Failed to load cache snapshot {}: {}", file, e.getMessage());
+        } finally {
+            loaded = true;
+        }
+    }
+
+    /**
+     * Записывает горячие записи кэша во временный файл и атомарно подменяет им предыдущий снимок.
+     * Интервал настраивается в app.cache.snapshot.interval. До окончания прогрева не выполняется,
+     * чтобы не затереть снимок неполным содержимым кэша.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.cacheSnapshotInterval}", initialDelayString = "#{@appConfig.cacheSnapshotInterval}")
+    public void write() {
+        if (!appConfig.isCacheSnapshotEnabled() || !loaded) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        Path file = Path.of(appConfig.getCacheSnapshotFile());
+        List<LinkSnapshot> entries = linkCache.hottest(appConfig.getCacheSnapshotMaxEntries()).stream()
+                .filter(entry -> !entry.isExpired())
+                .toList();
+        try {
+            long bytes = write(file, entries);
+            lastWrittenEntries = entries.size();
+            lastWrittenBytes = bytes;
+            log.info("SNAPSHOT - Wrote {} hot links ({} bytes) in {} ms",
+                    entries.size(), bytes, System.currentTimeMillis() - startedAt);
+        } catch (IOException e) {
+            log.error("SNAPSHOT - Failed to write cache snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        write();
+    }
+
+    /**
+     * Возвращает число записей в последнем записанном снимке.
+     */
+    public long getLastWrittenEntries() {
+        return lastWrittenEntries;
+    }
+
+    /**
+     * Возвращает размер последнего записанного снимка в байтах.
+     */
+    public long getLastWrittenBytes() {
+        return lastWrittenBytes;
+    }
+
+    /**
+     * Возвращает число ссылок, которыми кэш прогрет при старте.
+     */
+    public long getLastLoadedEntries() {
+        return lastLoadedEntries;
+    }
+
+    /**
+     * Возвращает длительность прогрева кэша при старте в миллисекундах.
+     */
+    public long getLastLoadMillis() {
+        return lastLoadMillis;
+    }
+
+    private long warm(List<LinkSnapshot> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Set<String> existing = new HashSet<>(linkRepository.findExistingShortCodes(
+                batch.stream().map(LinkSnapshot::getShortCode).toList()));
+        long warmed = 0;
+        for (LinkSnapshot entry : batch) {
+            if (existing.contains(entry.getShortCode()) && linkCache.warm(entry)) {
+                warmed++;
+            }
+        }
+        return warmed;
+    }
+
+    private static long write(Path file, List<LinkSnapshot> entries) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = parent.resolve(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(entries.size());
+            for (LinkSnapshot entry : entries) {
+                byte[] code = entry.getShortCode().getBytes(StandardCharsets.UTF_8);
+                byte[] url = entry.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+                byte[] userId = entry.getUserId() == null ? null : entry.getUserId().getBytes(StandardCharsets.UTF_8);
+                int size = 2 + code.length + 4 + url.length + 2 + (userId == null ? 0 : userId.length) + 8 + 8 + 8;
+                if (buffer.remaining() < size) {
+                    flush(channel, buffer, crc);
+                    if (buffer.capacity() < size) {
+                        buffer = ByteBuffer.allocate(size);
+                    }
+                }
+                buffer.putShort((short) code.length).put(code);
+                buffer.putInt(url.length).put(url);
+                buffer.putShort((short) (userId == null ? -1 : userId.length));
+                if (userId != null) {
+                    buffer.put(userId);
+                }
+                buffer.putLong(entry.getClickLimit() == null ? NO_VALUE : entry.getClickLimit());
+                buffer.putLong(toMillis(entry.getExpiresAt()));
+                buffer.putLong(toMillis(entry.getCreatedAt()));
+            }
+            flush(channel, buffer, crc);
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(file);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Читает записи снимка.
+     * @return записи или null, если файл поврежден или записан другой версией формата
+     */
+    private static List<LinkSnapshot> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 4 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if (buffer.getInt((int) size - 4) != (int) crc.getValue()
+                    || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            buffer.getLong();
+            int count = buffer.getInt();
+            List<LinkSnapshot> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String code = readString(buffer, buffer.getShort());
+                String url = readString(buffer, buffer.getInt());
+                String userId = readString(buffer, buffer.getShort());
+                long clickLimit = buffer.getLong();
+                long expiresAt = buffer.getLong();
+                long createdAt = buffer.getLong();
+                entries.add(new LinkSnapshot(code, url, userId,
+                        clickLimit == NO_VALUE ? null : (int) clickLimit, fromMillis(expiresAt), fromMillis(createdAt)));
+            }
+            return entries;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? NO_VALUE : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return millis == NO_VALUE ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,220 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.click.ClickLeaseManager;
+import com.promoit.shortLink.click.LinkTrafficStats;
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.sharding.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Журнал изменений ссылок для согласования состояния нескольких экземпляров без внешнего брокера.
+ * Создание, изменение и удаление ссылки записываются в таблицу link_change той же транзакцией,
+ * что и сама ссылка ({@link LinkChangeListener}), в шард ссылки. Порция ссылок, удаленных очисткой истекших,
+ * записывается одной строкой со всеми кодами порции ({@link #recordExpired(Collection)}). Каждый экземпляр раз в
+ * app.link-changes.poll-interval забирает чужие изменения из всех шардов и применяет их пачкой:
+ * сбрасывает кэш ссылок, возвращает аренды переходов, добавляет новые коды в фильтр Блума.
+ * <p>
+ * Номера записей выдаются при вставке, а видны после фиксации, поэтому транзакция с меньшим номером
+ * может стать видна позже большего. Пропущенные номера перечитываются отдельно в течение
+ * app.link-changes.commit-grace-millis, после чего считаются откатившимися транзакциями.
+ */
+@Slf4j
+@Component
+public class LinkChangeFeed {
+    static final char CREATED = 'C';
+    static final char UPDATED = 'U';
+    static final char DELETED = 'D';
+    static final char EXPIRED = 'E';
+    private static final String CODE_SEPARATOR = ",";
+    static final String INSERT_SQL = "INSERT INTO link_change (short_code, change_type, origin, changed_at) VALUES (?, ?, ?, ?)";
+    private static final String POLL_SQL = "SELECT id, short_code, change_type, origin FROM link_change WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String GAPS_SQL = "SELECT id, short_code, change_type, origin FROM link_change WHERE id IN (";
+    private static final int MAX_GAPS = 1000;
+    private static final RowMapper<Change> CHANGE_MAPPER =
+            (rs, rowNum) -> new Change(rs.getLong(1), rs.getString(2), rs.getString(3).charAt(0), rs.getString(4));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private LinkCache linkCache;
+    @Autowired
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+    @Autowired
+    private ClickLeaseManager clickLeaseManager;
+    @Autowired
+    private LinkTrafficStats linkTrafficStats;
+
+    private final String origin = UUID.randomUUID().toString();
+    private ShardCursor[] cursors;
+
+    @PostConstruct
+    void init() {
+        if (!appConfig.isLinkChangesEnabled()) {
+            return;
+        }
+        List<Long> lastIds = shardRouter.fanOut(shard -> {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS link_change (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "short_code CLOB NOT NULL, change_type CHAR(1) NOT NULL, origin VARCHAR(36) NOT NULL, "
+                    + "changed_at TIMESTAMP NOT NULL)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_link_change_changed_at ON link_change (changed_at)");
+            return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM link_change", Long.class);
+        });
+        cursors = lastIds.stream().map(ShardCursor::new).toArray(ShardCursor[]::new);
+        log.info("CHANGES - Following link changes as {} from ids {}", origin, lastIds);
+    }
+
+    /**
+     * Записывает изменение ссылки в текущей транзакции, чтобы запись появилась только вместе с изменением.
+     */
+    void record(String shortCode, char type) {
+        if (!appConfig.isLinkChangesEnabled()) {
+            return;
+        }
+        jdbcTemplate.update(INSERT_SQL, shortCode, String.valueOf(type), origin, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Записывает удаление порции истекших ссылок одного шарда одной строкой в текущей транзакции.
+     * Массовый DELETE очистки не вызывает обратных вызовов JPA, поэтому коды передаются явно.
+     */
+    public void recordExpired(Collection<String> shortCodes) {
+        if (!appConfig.isLinkChangesEnabled() || shortCodes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(INSERT_SQL, String.join(CODE_SEPARATOR, shortCodes), String.valueOf(EXPIRED), origin,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Забирает новые изменения других экземпляров из всех шардов и применяет их.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.linkChangesPollInterval}")
+    public void poll() {
+        if (cursors == null) {
+            return;
+        }
+        Set<String> created = new LinkedHashSet<>();
+        Set<String> updated = new LinkedHashSet<>();
+        Set<String> deleted = new LinkedHashSet<>();
+        for (List<Change> shardChanges : shardRouter.fanOut(shard -> read(cursors[shard]))) {
+            for (Change change : shardChanges) {
+                if (origin.equals(change.origin)) {
+                    continue;
+                }
+                switch (change.type) {
+                    case CREATED -> created.add(change.shortCode);
+                    case UPDATED -> updated.add(change.shortCode);
+                    case DELETED -> deleted.add(change.shortCode);
+                    case EXPIRED -> deleted.addAll(Arrays.asList(change.shortCode.split(CODE_SEPARATOR)));
+                    default -> log.warn("CHANGES - Unknown change type {} for {}", change.type, change.shortCode);
+                }
+            }
+        }
+        apply(created, updated, deleted);
+    }
+
+    /**
+     * Удаляет записи старше app.link-changes.retention-minutes.
+     */
+    @Scheduled(fixedRateString = "#{@appConfig.cleanupInterval}")
+    public void purge() {
+        if (cursors == null) {
+            return;
+        }
+        Timestamp before = Timestamp.valueOf(LocalDateTime.now().minusMinutes(appConfig.getLinkChangesRetentionMinutes()));
+        int removed = shardRouter.fanOut(shard -> jdbcTemplate.update("DELETE FROM link_change WHERE changed_at < ?", before))
+                .stream().mapToInt(Integer::intValue).sum();
+        log.debug("CHANGES - Purged {} old link changes", removed);
+    }
+
+    private void apply(Set<String> created, Set<String> updated, Set<String> deleted) {
+        created.forEach(shortCodeBloomFilter::put);
+        if (!updated.isEmpty()) {
+            linkCache.invalidateAll(updated);
+            updated.forEach(clickLeaseManager::release);
+        }
+        if (!deleted.isEmpty()) {
+            linkCache.invalidateAll(deleted);
+            clickLeaseManager.discard(deleted);
+            linkTrafficStats.discard(deleted);
+        }
+        if (!created.isEmpty() || !updated.isEmpty() || !deleted.isEmpty()) {
+            log.debug("CHANGES - Applied {} created, {} updated, {} deleted links", created.size(), updated.size(), deleted.size());
+        }
+    }
+
+    /**
+     * Читает изменения шарда после курсора и ранее пропущенные номера.
+     */
+    private List<Change> read(ShardCursor cursor) {
+        List<Change> changes = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        cursor.gaps.values().removeIf(deadline -> deadline < now);
+        if (!cursor.gaps.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(cursor.gaps.size(), "?"));
+            for (Change change : jdbcTemplate.query(GAPS_SQL + placeholders + ")", CHANGE_MAPPER, cursor.gaps.keySet().toArray())) {
+                cursor.gaps.remove(change.id);
+                changes.add(change);
+            }
+        }
+        int batchSize = appConfig.getLinkChangesBatchSize();
+        List<Change> page;
+        do {
+            page = jdbcTemplate.query(POLL_SQL, CHANGE_MAPPER, cursor.lastId, batchSize);
+            for (Change change : page) {
+                for (long missing = cursor.lastId + 1; missing < change.id && cursor.gaps.size() < MAX_GAPS; missing++) {
+                    cursor.gaps.put(missing, now + appConfig.getLinkChangesCommitGraceMillis());
+                }
+                cursor.lastId = change.id;
+                changes.add(change);
+            }
+        } while (page.size() == batchSize);
+        return changes;
+    }
+
+    private static final class ShardCursor {
+        long lastId;
+        final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+        ShardCursor(long lastId) {
+            this.lastId = lastId;
+        }
+    }
+
+    private static final class Change {
+        final long id;
+        final String shortCode;
+        final char type;
+        final String origin;
+
+        Change(long id, String shortCode, char type, String origin) {
+            this.id = id;
+            this.shortCode = shortCode;
+            this.type = type;
+            this.origin = origin;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Пишет изменения ссылок в {@link LinkChangeFeed} из обратных вызовов JPA. Они выполняются при сбросе
+ * сессии внутри транзакции, изменяющей ссылку, поэтому запись журнала фиксируется или откатывается вместе с ней
+ * и попадает в тот же шард. Массовые UPDATE-запросы переходов в журнал не попадают: состояние переходов
+ * согласуется через базу. Удаление истекших ссылок массовым DELETE записывает в журнал сама очистка
+ * ({@link LinkChangeFeed#recordExpired}).
+ * Экземпляр создается Hibernate через контейнер бинов Spring; журнал берется лениво,
+ * потому что слушатель создается вместе с фабрикой EntityManager.
+ */
+public class LinkChangeListener {
+    @Autowired
+    private ObjectProvider<LinkChangeFeed> linkChangeFeed;
+
+    @PostPersist
+    void created(LinkEntity link) {
+        linkChangeFeed.getObject().record(link.getShortCode(), LinkChangeFeed.CREATED);
+    }
+
+    @PostUpdate
+    void updated(LinkEntity link) {
+        linkChangeFeed.getObject().record(link.getShortCode(), LinkChangeFeed.UPDATED);
+    }
+
+    @PostRemove
+    void deleted(LinkEntity link) {
+        linkChangeFeed.getObject().record(link.getShortCode(), LinkChangeFeed.DELETED);
+    }
+}
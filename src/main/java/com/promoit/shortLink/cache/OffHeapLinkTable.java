@@ -0,0 +1,579 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.ActiveLinkView;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Компактная таблица действующих ссылок вне кучи: второй уровень за {@link LinkCache}, рассчитанный
+ * на десятки миллионов ссылок без нагрузки на сборщик мусора. Записи (код, владелец и URL в байтах, срок
+ * действия и время создания в мс, лимит и счетчик переходов) дописываются в большие прямые буферы
+ * app.link-table.chunk-bytes, над ними - индекс с открытой адресацией, тоже вне кучи. Слот индекса - одно long:
+ * 16 бит хеша кода, номер буфера и смещение записи.
+ * Чтение не берет блокировок и не выделяет память: {@link #check(String, long)} сравнивает код побайтно
+ * прямо в буфере. Запись, удаление и перестройка выполняются под одной блокировкой; при перестройке
+ * публикуется новый индекс и набор буферов, а читатели дочитывают старые.
+ * Коды ссылок - ASCII (Base62), записи с кодом вне ASCII в таблицу не попадают.
+ */
+@Slf4j
+@Component
+public class OffHeapLinkTable {
+    public static final int ABSENT = 0;
+    public static final int ACCESSIBLE = 1;
+    public static final int EXPIRED = 2;
+    public static final int EXHAUSTED = 3;
+
+    private static final int PAGE_SIZE = 10_000;
+    private static final int MIN_CHUNK_BYTES = 64 * 1024;
+    private static final int MAX_CHUNKS = 0xFFFF;
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final double MAX_LOAD = 0.7;
+    private static final int MAX_SHORT_STRING = 127;
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = 1;
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final int R_EXPIRES = 0;
+    private static final int R_CREATED = 8;
+    private static final int R_LIMIT = 16;
+    private static final int R_CLICKS = 20;
+    private static final int R_URL_LENGTH = 24;
+    private static final int R_CODE_LENGTH = 28;
+    private static final int R_USER_LENGTH = 29;
+    private static final int R_DATA = 32;
+
+    private static final VarHandle SLOTS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle COUNTERS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private AppConfig appConfig;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile boolean enabled;
+    private volatile Table table;
+    private volatile Set<String> removedDuringLoad;
+    private int chunkBytes;
+    private volatile int size;
+    private int tombstones;
+    private volatile long liveBytes;
+    private long deadBytes;
+
+    @PostConstruct
+    void init() {
+        enabled = appConfig.isLinkTableEnabled();
+        if (!enabled) {
+            return;
+        }
+        chunkBytes = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(MIN_CHUNK_BYTES, appConfig.getLinkTableChunkBytes()));
+        table = new Table(capacityFor(appConfig.getLinkTableInitialCapacity()), new Arena(chunkBytes));
+        log.info("LINKTABLE - Off-heap link table enabled (chunk: {} bytes, index: {} slots)",
+                chunkBytes, table.mask + 1);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread.Builder builder = appConfig.isVirtualThreads() ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        builder.name("link-table-loader").start(this::load);
+    }
+
+    /**
+     * Заполняет таблицу действующими ссылками из базы постранично. Ссылки, записанные или удаленные
+     * во время загрузки, не затираются и не возвращаются.
+     */
+    void load() {
+        long startedAt = System.currentTimeMillis();
+        removedDuringLoad = ConcurrentHashMap.newKeySet();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            long loaded = 0;
+            String after = "";
+            List<ActiveLinkView> page;
+            do {
+                page = linkRepository.findActiveLinksAfter(after, now, PageRequest.ofSize(PAGE_SIZE));
+                for (ActiveLinkView link : page) {
+                    if (put(link.toSnapshot(), link.getClickCount() == null ? 0 : link.getClickCount(), true)) {
+                        loaded++;
+                    }
+                }
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getShortCode();
+                }
+            } while (page.size() == PAGE_SIZE);
+            log.info("LINKTABLE - Loaded {} links ({} bytes off-heap) in {} ms",
+                    loaded, getMemoryBytes(), System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            log.error("LINKTABLE - Failed to load links: {}", e.getMessage());
+        } finally {
+            removedDuringLoad = null;
+        }
+    }
+
+    /**
+     * Проверяет, включена ли таблица (app.link-table.enabled).
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Проверяет доступность ссылки так же, как {@link com.promoit.shortLink.domain.entity.LinkEntity#canBeAccessed()},
+     * без выделения памяти.
+     * @param shortCode код ссылки
+     * @param nowMillis текущее время в мс
+     * @return ABSENT, ACCESSIBLE, EXPIRED или EXHAUSTED
+     */
+    public int check(String shortCode, long nowMillis) {
+        Table current = table;
+        if (current == null) {
+            return ABSENT;
+        }
+        long slot = current.find(shortCode);
+        if (slot == EMPTY) {
+            return ABSENT;
+        }
+        ByteBuffer chunk = current.chunk(slot);
+        int offset = (int) slot;
+        if (nowMillis > chunk.getLong(offset + R_EXPIRES)) {
+            return EXPIRED;
+        }
+        int limit = chunk.getInt(offset + R_LIMIT);
+        return limit >= 0 && (int) COUNTERS.getVolatile(chunk, offset + R_CLICKS) >= limit ? EXHAUSTED : ACCESSIBLE;
+    }
+
+    /**
+     * Учитывает переход в счетчике записи. Счетчик - нижняя оценка: переходы других узлов и переходы,
+     * пришедшиеся на перестройку таблицы, в нем не видны, поэтому исчерпанность по нему достоверна, а доступность - нет.
+     */
+    public void recordClick(String shortCode) {
+        Table current = table;
+        if (current == null) {
+            return;
+        }
+        long slot = current.find(shortCode);
+        if (slot != EMPTY) {
+            COUNTERS.getAndAdd(current.chunk(slot), (int) slot + R_CLICKS, 1);
+        }
+    }
+
+    /**
+     * Возвращает снимок ссылки из таблицы.
+     * @return снимок или null, если ссылки в таблице нет
+     */
+    public LinkSnapshot get(String shortCode) {
+        Table current = table;
+        if (current == null) {
+            return null;
+        }
+        long slot = current.find(shortCode);
+        if (slot == EMPTY) {
+            return null;
+        }
+        ByteBuffer chunk = current.chunk(slot);
+        int offset = (int) slot;
+        int codeLength = chunk.get(offset + R_CODE_LENGTH);
+        int userLength = chunk.get(offset + R_USER_LENGTH);
+        int urlLength = chunk.getInt(offset + R_URL_LENGTH);
+        int data = offset + R_DATA + codeLength;
+        String userId = userLength < 0 ? null : string(chunk, data, userLength);
+        String url = string(chunk, data + Math.max(0, userLength), urlLength);
+        int limit = chunk.getInt(offset + R_LIMIT);
+        return new LinkSnapshot(shortCode, url, userId, limit < 0 ? null : limit,
+                toTime(chunk.getLong(offset + R_EXPIRES), Long.MAX_VALUE), toTime(chunk.getLong(offset + R_CREATED), NO_VALUE));
+    }
+
+    /**
+     * Кладет ссылку в таблицу или заменяет существующую запись.
+     * @return false если таблица выключена, код не ASCII или таблица заполнена
+     */
+    public boolean put(LinkSnapshot link) {
+        return put(link, 0, false);
+    }
+
+    /**
+     * @param fromLoad запись из начальной загрузки: не затирает существующую и не возвращает ссылку,
+     *                 удаленную во время загрузки. Проверка выполняется под блокировкой записи вместе с remove.
+     */
+    boolean put(LinkSnapshot link, int clicks, boolean fromLoad) {
+        if (!enabled) {
+            return false;
+        }
+        String code = link.getShortCode();
+        byte[] userId = link.getUserId() == null ? null : link.getUserId().getBytes(StandardCharsets.UTF_8);
+        byte[] url = link.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+        if (code.isEmpty() || code.length() > MAX_SHORT_STRING || !isAscii(code)
+                || userId != null && userId.length > MAX_SHORT_STRING) {
+            return false;
+        }
+        int recordBytes = align(R_DATA + code.length() + (userId == null ? 0 : userId.length) + url.length);
+        writeLock.lock();
+        try {
+            Set<String> removed = removedDuringLoad;
+            if (fromLoad && removed != null && removed.contains(code)) {
+                return false;
+            }
+            Table current = table;
+            int position = current.position(code);
+            long existing = (long) SLOTS.getAcquire(current.index, position << 3);
+            boolean absent = existing == EMPTY || existing == TOMBSTONE;
+            if (!absent && fromLoad || absent && size >= MAX_CAPACITY * MAX_LOAD) {
+                return false;
+            }
+            long address = current.arena.allocate(recordBytes);
+            if (address < 0) {
+                log.warn("LINKTABLE - Table is full ({} chunks), link {} not stored", MAX_CHUNKS, code);
+                return false;
+            }
+            ByteBuffer chunk = current.arena.chunks[(int) (address >>> 32) - 1];
+            int offset = (int) address;
+            chunk.putLong(offset + R_EXPIRES, toMillis(link.getExpiresAt(), Long.MAX_VALUE));
+            chunk.putLong(offset + R_CREATED, toMillis(link.getCreatedAt(), NO_VALUE));
+            chunk.putInt(offset + R_LIMIT, link.isUnlimited() ? -1 : link.getClickLimit());
+            chunk.putInt(offset + R_CLICKS, clicks);
+            chunk.putInt(offset + R_URL_LENGTH, url.length);
+            chunk.put(offset + R_CODE_LENGTH, (byte) code.length());
+            chunk.put(offset + R_USER_LENGTH, (byte) (userId == null ? -1 : userId.length));
+            int data = offset + R_DATA;
+            for (int i = 0; i < code.length(); i++) {
+                chunk.put(data++, (byte) code.charAt(i));
+            }
+            if (userId != null) {
+                chunk.put(data, userId);
+                data += userId.length;
+            }
+            chunk.put(data, url);
+            SLOTS.setRelease(current.index, position << 3, tag(hash(code)) | address);
+            if (absent) {
+                size++;
+                if (existing == TOMBSTONE) {
+                    tombstones--;
+                }
+            } else {
+                deadBytes += current.recordBytes(existing);
+                liveBytes -= current.recordBytes(existing);
+            }
+            liveBytes += recordBytes;
+            maintain(current);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет ссылку из таблицы.
+     */
+    public void remove(String shortCode) {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Set<String> removed = removedDuringLoad;
+            if (removed != null) {
+                removed.add(shortCode);
+            }
+            Table current = table;
+            int position = current.position(shortCode);
+            long existing = (long) SLOTS.getAcquire(current.index, position << 3);
+            if (existing == EMPTY || existing == TOMBSTONE) {
+                return;
+            }
+            SLOTS.setRelease(current.index, position << 3, TOMBSTONE);
+            size--;
+            tombstones++;
+            deadBytes += current.recordBytes(existing);
+            liveBytes -= current.recordBytes(existing);
+            maintain(current);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет из таблицы набор ссылок.
+     */
+    public void removeAll(Collection<String> shortCodes) {
+        shortCodes.forEach(this::remove);
+    }
+
+    /**
+     * Возвращает количество ссылок в таблице.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает объем памяти вне кучи, занятой индексом и буферами записей, в байтах.
+     */
+    public long getMemoryBytes() {
+        Table current = table;
+        return current == null ? 0 : current.index.capacity() + (long) current.arena.count * chunkBytes;
+    }
+
+    /**
+     * Возвращает объем действующих записей в байтах, без индекса и места удаленных записей.
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Расширяет индекс при превышении доли заполнения и переписывает записи в новые буферы,
+     * когда удаленные и замененные записи занимают больше места, чем действующие.
+     */
+    private void maintain(Table current) {
+        boolean crowded = size + tombstones > (current.mask + 1) * MAX_LOAD;
+        boolean wasteful = deadBytes > liveBytes && deadBytes > chunkBytes;
+        if (!crowded && !wasteful) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        int capacity = capacityFor(size * 2L);
+        if (capacity == current.mask + 1 && tombstones == 0 && !wasteful) {
+            return;
+        }
+        Arena arena = wasteful ? new Arena(chunkBytes) : current.arena;
+        Table next = new Table(capacity, arena);
+        for (int i = 0; i <= current.mask; i++) {
+            long slot = (long) SLOTS.getAcquire(current.index, i << 3);
+            if (slot == EMPTY || slot == TOMBSTONE) {
+                continue;
+            }
+            long address = slot & 0xFFFF_FFFF_FFFFL;
+            if (wasteful) {
+                int bytes = current.recordBytes(slot);
+                address = arena.allocate(bytes);
+                arena.chunks[(int) (address >>> 32) - 1].put((int) address, current.chunk(slot), (int) slot, bytes);
+            }
+            next.insert(slot & 0xFFFF_0000_0000_0000L, address);
+        }
+        table = next;
+        tombstones = 0;
+        if (wasteful) {
+            deadBytes = 0;
+        }
+        log.debug("LINKTABLE - Rebuilt table ({} links, {} slots, compacted: {}) in {} ms",
+                size, capacity, wasteful, System.currentTimeMillis() - startedAt);
+    }
+
+    private static int capacityFor(long links) {
+        int capacity = 16;
+        while (capacity < MAX_CAPACITY && capacity * MAX_LOAD < links) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Хеш кода: String.hashCode закэширован в строке и для ASCII совпадает с хешем байтов записи.
+     */
+    private static long hash(String code) {
+        return mix(code.hashCode());
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static long tag(long hash) {
+        return hash & 0xFFFF_0000_0000_0000L;
+    }
+
+    private static String string(ByteBuffer chunk, int offset, int length) {
+        byte[] bytes = new byte[length];
+        chunk.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long toMillis(LocalDateTime time, long none) {
+        return time == null ? none : time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toTime(long millis, long none) {
+        return millis == none ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    /**
+     * Индекс с открытой адресацией и буферы записей, на которые он ссылается.
+     */
+    private static final class Table {
+        final ByteBuffer index;
+        final int mask;
+        final Arena arena;
+
+        Table(int capacity, Arena arena) {
+            this.index = ByteBuffer.allocateDirect(capacity * Long.BYTES + Long.BYTES).alignedSlice(Long.BYTES);
+            this.mask = capacity - 1;
+            this.arena = arena;
+        }
+
+        /**
+         * Ищет слот записи с кодом линейным пробированием.
+         * @return значение слота или EMPTY, если кода нет
+         */
+        long find(String code) {
+            long hash = hash(code);
+            long tag = tag(hash);
+            int i = (int) hash & mask;
+            while (true) {
+                long slot = (long) SLOTS.getAcquire(index, i << 3);
+                if (slot == EMPTY) {
+                    return EMPTY;
+                }
+                if (slot != TOMBSTONE && tag(slot) == tag && matches(slot, code)) {
+                    return slot;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        /**
+         * Возвращает номер слота с кодом, а если кода нет - первый свободный или удаленный слот на пути пробирования.
+         */
+        int position(String code) {
+            long hash = hash(code);
+            long tag = tag(hash);
+            int i = (int) hash & mask;
+            int free = -1;
+            while (true) {
+                long slot = (long) SLOTS.getAcquire(index, i << 3);
+                if (slot == EMPTY) {
+                    return free >= 0 ? free : i;
+                }
+                if (slot == TOMBSTONE) {
+                    if (free < 0) {
+                        free = i;
+                    }
+                } else if (tag(slot) == tag && matches(slot, code)) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        /**
+         * Вставляет запись при перестройке: коды уникальны, сравнение не нужно.
+         */
+        void insert(long tag, long address) {
+            int i = (int) (codeHash(address) & mask);
+            while ((long) SLOTS.getAcquire(index, i << 3) != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            SLOTS.setRelease(index, i << 3, tag | address);
+        }
+
+        ByteBuffer chunk(long slot) {
+            return arena.chunks[(int) (slot >>> 32 & 0xFFFF) - 1];
+        }
+
+        int recordBytes(long slot) {
+            ByteBuffer chunk = chunk(slot);
+            int offset = (int) slot;
+            return align(R_DATA + chunk.get(offset + R_CODE_LENGTH) + Math.max(0, chunk.get(offset + R_USER_LENGTH))
+                    + chunk.getInt(offset + R_URL_LENGTH));
+        }
+
+        private boolean matches(long slot, String code) {
+            ByteBuffer chunk = chunk(slot);
+            int offset = (int) slot;
+            int length = chunk.get(offset + R_CODE_LENGTH);
+            if (length != code.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                char c = code.charAt(i);
+                if (c >= 0x80 || chunk.get(offset + R_DATA + i) != (byte) c) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long codeHash(long address) {
+            ByteBuffer chunk = arena.chunks[(int) (address >>> 32) - 1];
+            int offset = (int) address;
+            int length = chunk.get(offset + R_CODE_LENGTH);
+            int h = 0;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + chunk.get(offset + R_DATA + i);
+            }
+            return mix(h);
+        }
+    }
+
+    /**
+     * Буферы записей вне кучи. Записи только дописываются; место удаленных освобождается перезаписью в новые буферы.
+     */
+    private static final class Arena {
+        final ByteBuffer[] chunks = new ByteBuffer[MAX_CHUNKS];
+        final int chunkBytes;
+        int count;
+        int writeOffset;
+
+        Arena(int chunkBytes) {
+            this.chunkBytes = chunkBytes;
+        }
+
+        /**
+         * Выделяет место под запись.
+         * @return адрес (номер буфера + 1 в старших 32 битах, смещение в младших) или -1, если буферы закончились
+         */
+        long allocate(int bytes) {
+            if (count == 0 || writeOffset + bytes > chunkBytes) {
+                if (count == MAX_CHUNKS) {
+                    return -1;
+                }
+                chunks[count++] = ByteBuffer.allocateDirect(chunkBytes + Long.BYTES).alignedSlice(Long.BYTES)
+                        .order(ByteOrder.nativeOrder());
+                writeOffset = 0;
+            }
+            long address = ((long) count << 32) | writeOffset;
+            writeOffset += bytes;
+            return address;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Фильтр Блума по кодам существующих ссылок. Позволяет отвечать 404 на запросы случайных кодов
+ * без обращения к базе. Строится при старте и периодически перестраивается,
+ * чтобы забыть удаленные и истекшие ссылки. До первой сборки пропускает все коды.
+ */
+@Slf4j
+@Component
+public class ShortCodeBloomFilter {
+    private static final int PAGE_SIZE = 10_000;
+
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private AppConfig appConfig;
+
+    private volatile Bits current;
+    private volatile Bits building;
+    private final LongAdder shortCircuited = new LongAdder();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * Проверяет, может ли существовать ссылка с указанным кодом.
+     * @param shortCode код короткой ссылки
+     * @return false если ссылки с таким кодом точно нет
+     */
+    public boolean mightContain(String shortCode) {
+        Bits bits = current;
+        if (!appConfig.isBloomEnabled() || bits == null || bits.mightContain(shortCode)) {
+            return true;
+        }
+        shortCircuited.increment();
+        return false;
+    }
+
+    /**
+     * Добавляет код новой ссылки в фильтр.
+     */
+    public void put(String shortCode) {
+        Bits bits = current;
+        if (bits != null) {
+            bits.put(shortCode);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.put(shortCode);
+        }
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    /**
+     * Перестраивает фильтр по действующим ссылкам, постранично читая только коды.
+     * Интервал настраивается в app.bloom.rebuild-interval.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.bloomRebuildInterval}", initialDelayString = "#{@appConfig.bloomRebuildInterval}")
+    public void rebuild() {
+        if (!appConfig.isBloomEnabled()) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            rebuildFilter();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildFilter() {
+        long startedAt = System.currentTimeMillis();
+        long expected = Math.max(appConfig.getBloomExpectedInsertions(), linkRepository.count());
+        Bits next = Bits.create(expected, appConfig.getBloomFalsePositiveRate(), appConfig.getBloomMaxMemoryBytes());
+        building = next;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            long total = 0;
+            String after = "";
+            List<String> page;
+            do {
+                page = linkRepository.findActiveShortCodesAfter(after, now, PageRequest.ofSize(PAGE_SIZE));
+                page.forEach(next::put);
+                total += page.size();
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1);
+                }
+            } while (page.size() == PAGE_SIZE);
+            current = next;
+            log.info("BLOOM - Rebuilt with {} codes ({} bits, {} hashes) in {} ms",
+                    total, next.numBits, next.numHashes, System.currentTimeMillis() - startedAt);
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * Возвращает количество запросов, отсеченных фильтром без обращения к базе.
+     */
+    public long getShortCircuitedCount() {
+        return shortCircuited.sum();
+    }
+
+    /**
+     * Возвращает размер битового массива фильтра в байтах.
+     */
+    public long getMemoryBytes() {
+        Bits bits = current;
+        return bits == null ? 0 : bits.numBits / 8;
+    }
+
+    static final class Bits {
+        final AtomicLongArray words;
+        final long numBits;
+        final int numHashes;
+
+        private Bits(long numBits, int numHashes) {
+            this.words = new AtomicLongArray((int) (numBits >>> 6));
+            this.numBits = numBits;
+            this.numHashes = numHashes;
+        }
+
+        /**
+         * Подбирает размер фильтра под ожидаемое число кодов и долю ложных срабатываний,
+         * ограничивая его бюджетом памяти.
+         */
+        static Bits create(long expectedInsertions, double falsePositiveRate, long maxMemoryBytes) {
+            long n = Math.max(1, expectedInsertions);
+            long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            long maxBits = Math.min(maxMemoryBytes * 8, (long) Integer.MAX_VALUE * 64);
+            long numBits = Math.max(64, ((Math.min(optimalBits, maxBits) + 63) / 64) * 64);
+            int numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+            return new Bits(numBits, Math.min(numHashes, 16));
+        }
+
+        void put(String shortCode) {
+            long h1 = hash(shortCode);
+            long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                long value;
+                do {
+                    value = words.get(word);
+                    if ((value & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        boolean mightContain(String shortCode) {
+            long h1 = hash(shortCode);
+            long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String value) {
+            long h = 0xCBF29CE484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001B3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+            z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.sharding.ShardRouter;
+import com.promoit.shortLink.storage.LinkStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class ClickCounterBuffer {
+    static final String FLUSH_SQL = "UPDATE link_entity SET click_count = click_count + ? WHERE short_code = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private LinkStore linkStore;
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private ConcurrentHashMap<String, Long>[] stripes;
+    private int stripeMask;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void init() {
+        int stripeCount = Integer.highestOneBit(Math.max(1, appConfig.getClickBufferStripes()));
+        stripes = new ConcurrentHashMap[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Учитывает переход по ссылке в памяти. Счетчики распределены по нескольким полосам,
+     * чтобы потоки, одновременно обрабатывающие одну популярную ссылку, не конкурировали за одну блокировку.
+     * @param shortCode код ссылки
+     */
+    public void increment(String shortCode) {
+        int hash = Thread.currentThread().hashCode();
+        stripes[(hash ^ (hash >>> 16)) & stripeMask].merge(shortCode, 1L, Long::sum);
+    }
+
+    /**
+     * Сбрасывает накопленные переходы в базу одним пакетом UPDATE-запросов на шард.
+     * Интервал настраивается в app.link.click-flush-interval.
+     * При ошибке записи счетчики возвращаются в буфер и будут записаны при следующем сбросе.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.clickFlushInterval}")
+    public void flush() {
+        Map<String, Long> pending = drain();
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(pending.size());
+        pending.forEach((shortCode, count) -> batch.add(new Object[]{count, shortCode}));
+        shardRouter.partition(batch, row -> (String) row[1]).forEach((shard, rows) -> flush(shard, rows));
+    }
+
+    /**
+     * Записывает пакет одного шарда. При ошибке в буфер возвращаются только счетчики этого шарда,
+     * чтобы записанные в другие шарды переходы не учлись повторно.
+     */
+    private void flush(int shard, List<Object[]> rows) {
+        try {
+            shardRouter.run(shard, () -> jdbcTemplate.batchUpdate(FLUSH_SQL, rows));
+            rows.forEach(row -> linkStore.addClicks((String) row[1], (int) Math.min((Long) row[0], Integer.MAX_VALUE)));
+            log.debug("CLICKS - Flushed {} links", rows.size());
+        } catch (DataAccessException e) {
+            log.warn("CLICKS - Failed to flush {} links, will retry: {}", rows.size(), e.getMessage());
+            rows.forEach(row -> stripes[0].merge((String) row[1], (Long) row[0], Long::sum));
+        }
+    }
+
+    /**
+     * Возвращает количество переходов, еще не записанных в базу.
+     */
+    public long pendingCount() {
+        long total = 0;
+        for (ConcurrentHashMap<String, Long> stripe : stripes) {
+            for (Long count : stripe.values()) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        log.info("CLICKS - Flushing pending clicks before shutdown");
+        flush();
+    }
+
+    /**
+     * Забирает накопленные счетчики из всех полос. Удаление ключа атомарно относительно merge,
+     * поэтому параллельный инкремент либо попадет в забранное значение, либо создаст новую запись.
+     */
+    private Map<String, Long> drain() {
+        Map<String, Long> pending = new HashMap<>();
+        for (ConcurrentHashMap<String, Long> stripe : stripes) {
+            for (String shortCode : stripe.keySet()) {
+                Long count = stripe.remove(shortCode);
+                if (count != null) {
+                    pending.merge(shortCode, count, Long::sum);
+                }
+            }
+        }
+        return pending;
+    }
+}
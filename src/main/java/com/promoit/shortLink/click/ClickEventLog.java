@@ -0,0 +1,331 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Журнал событий перехода: время, код, Referer и User-Agent каждого редиректа.
+ * Поток запроса только кладет событие в кольцевой буфер без блокировок (при переполнении событие
+ * отбрасывается и учитывается в счетчике), фоновый писатель пачками дописывает их в бинарные файлы
+ * app.click-log.dir через FileChannel и ротирует файлы по размеру и времени.
+ * Формат записи: длина тела, время в мс, код, Referer, User-Agent (строки - длина и UTF-8, -1 для null).
+ */
+@Slf4j
+@Component
+public class ClickEventLog {
+    static final String FILE_PREFIX = "clicks-";
+    static final String FILE_SUFFIX = ".log";
+    static final int MAX_HEADER_CHARS = 512;
+    private static final int MIN_BATCH_BYTES = 8192;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private volatile boolean enabled;
+    private int mask;
+    private long[] times;
+    private String[] codes;
+    private String[] referrers;
+    private String[] userAgents;
+    private AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+
+    private Path dir;
+    private ByteBuffer buffer;
+    private FileChannel channel;
+    private volatile Path activeFile;
+    private long activeOpenedAt;
+    private long lastFileMillis;
+    private volatile boolean running;
+    private Thread writer;
+
+    @PostConstruct
+    void init() throws IOException {
+        enabled = appConfig.isClickLogEnabled();
+        if (!enabled) {
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, appConfig.getClickLogRingCapacity()));
+        mask = capacity - 1;
+        times = new long[capacity];
+        codes = new String[capacity];
+        referrers = new String[capacity];
+        userAgents = new String[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, i - capacity);
+        }
+        dir = Path.of(appConfig.getClickLogDir());
+        Files.createDirectories(dir);
+        buffer = ByteBuffer.allocateDirect(Math.max(MIN_BATCH_BYTES, appConfig.getClickLogBatchBytes()));
+        rotate();
+        running = true;
+        Thread.Builder builder = appConfig.isVirtualThreads() ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        writer = builder.name("click-log-writer").start(this::writeLoop);
+        log.info("CLICKLOG - Click event log enabled (dir: {}, ring: {})", dir, capacity);
+    }
+
+    /**
+     * Записывает событие перехода. Не блокирует: если писатель не успевает и буфер заполнен,
+     * событие отбрасывается.
+     * @param shortCode код ссылки
+     * @param referrer  заголовок Referer (может быть null)
+     * @param userAgent заголовок User-Agent (может быть null)
+     * @return false если журнал выключен или событие отброшено
+     */
+    public boolean record(String shortCode, String referrer, String userAgent) {
+        if (!enabled) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        int slot = (int) (sequence & mask);
+        times[slot] = System.currentTimeMillis();
+        codes[slot] = shortCode;
+        referrers[slot] = referrer;
+        userAgents[slot] = userAgent;
+        published.setRelease(slot, sequence);
+        return true;
+    }
+
+    /**
+     * Возвращает закрытые файлы журнала по возрастанию времени создания, без текущего файла писателя.
+     * Имя нового файла становится текущим до его создания, а имена растут со временем: файлы не старше
+     * текущего не считаются закрытыми, даже если писатель сменил файл во время обхода каталога.
+     */
+    public List<Path> sealedFiles() throws IOException {
+        if (dir == null) {
+            return List.of();
+        }
+        Path active = activeFile;
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .filter(file -> active == null || fileMillis(file) < fileMillis(active))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Возвращает время создания файла журнала по его имени в мс.
+     */
+    static long fileMillis(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    /**
+     * Читает события файла журнала. Недописанная запись в конце файла (после аварийной остановки) пропускается.
+     */
+    static void read(Path file, ClickEventVisitor visitor) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            while (data.remaining() >= Integer.BYTES) {
+                int length = data.getInt();
+                if (length <= 0 || length > data.remaining()) {
+                    break;
+                }
+                ByteBuffer body = data.slice(data.position(), length);
+                data.position(data.position() + length);
+                long time = body.getLong();
+                String code = readString(body);
+                if (code == null) {
+                    break;
+                }
+                visitor.visit(time, code, readString(body), readString(body));
+            }
+        }
+    }
+
+    /**
+     * Возвращает количество событий, отброшенных из-за переполнения буфера.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Возвращает количество событий, записанных в файлы.
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Возвращает количество событий в буфере, еще не записанных в файл.
+     */
+    public long pendingCount() {
+        return enabled ? tail.get() - head : 0;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(5000);
+        channel.force(false);
+        channel.close();
+    }
+
+    private void writeLoop() {
+        long idleNanos = appConfig.getClickLogFlushIntervalMillis() * 1_000_000L;
+        while (true) {
+            boolean stopping = !running;
+            try {
+                int drained = drain();
+                if (stopping && drained == 0) {
+                    return;
+                }
+                if (drained == 0) {
+                    LockSupport.parkNanos(idleNanos);
+                }
+            } catch (IOException e) {
+                log.error("CLICKLOG - Failed to write click events: {}", e.getMessage());
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+    }
+
+    /**
+     * Переносит опубликованные события из буфера в файл, пока буфер не опустеет,
+     * и ротирует файл по размеру или по времени, если в него что-то записано.
+     * @return количество перенесенных событий
+     */
+    private int drain() throws IOException {
+        int drained = 0;
+        long sequence = head;
+        while (true) {
+            int slot = (int) (sequence & mask);
+            if (published.getAcquire(slot) != sequence) {
+                break;
+            }
+            if (!encode(times[slot], codes[slot], referrers[slot], userAgents[slot])) {
+                flush();
+                encode(times[slot], codes[slot], referrers[slot], userAgents[slot]);
+            }
+            codes[slot] = null;
+            referrers[slot] = null;
+            userAgents[slot] = null;
+            sequence++;
+            head = sequence;
+            drained++;
+        }
+        if (buffer.position() > 0) {
+            flush();
+        }
+        long size = channel.size();
+        if (size >= appConfig.getClickLogRotateBytes()
+                || size > 0 && System.currentTimeMillis() - activeOpenedAt >= appConfig.getClickLogRotateIntervalMillis()) {
+            rotate();
+        }
+        return drained;
+    }
+
+    private boolean encode(long time, String code, String referrer, String userAgent) {
+        byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        byte[] referrerBytes = bytes(referrer);
+        byte[] userAgentBytes = bytes(userAgent);
+        int length = Long.BYTES + 3 * Short.BYTES + codeBytes.length
+                + (referrerBytes == null ? 0 : referrerBytes.length)
+                + (userAgentBytes == null ? 0 : userAgentBytes.length);
+        if (buffer.remaining() < Integer.BYTES + length) {
+            return false;
+        }
+        buffer.putInt(length).putLong(time);
+        putString(codeBytes);
+        putString(referrerBytes);
+        putString(userAgentBytes);
+        written.incrementAndGet();
+        return true;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void rotate() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        long millis = Math.max(System.currentTimeMillis(), lastFileMillis + 1);
+        lastFileMillis = millis;
+        Path file = dir.resolve(String.format("%s%013d%s", FILE_PREFIX, millis, FILE_SUFFIX));
+        activeFile = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        activeOpenedAt = millis;
+    }
+
+    private void putString(byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static byte[] bytes(String value) {
+        if (value == null) {
+            return null;
+        }
+        String truncated = value.length() > MAX_HEADER_CHARS ? value.substring(0, MAX_HEADER_CHARS) : value;
+        return truncated.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer body) {
+        if (body.remaining() < Short.BYTES) {
+            return null;
+        }
+        int length = body.getShort();
+        if (length < 0 || length > body.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Получатель событий при чтении файла журнала.
+     */
+    interface ClickEventVisitor {
+        void visit(long timeMillis, String shortCode, String referrer, String userAgent);
+    }
+}
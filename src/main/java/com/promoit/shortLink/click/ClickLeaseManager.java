@@ -0,0 +1,183 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import com.promoit.shortLink.storage.LinkStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Component
+public class ClickLeaseManager {
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private LinkStore linkStore;
+    @Autowired
+    private AppConfig appConfig;
+
+    private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Списывает переход только из уже арендованного блока, не обращаясь к базе.
+     * @return true если переход списан, false если локальный блок пуст и нужна аренда через {@link #tryAcquire(String)}
+     */
+    public boolean tryAcquireLocal(String shortCode) {
+        Lease lease = leases.get(shortCode);
+        return lease != null && lease.tryTake();
+    }
+
+    /**
+     * Списывает один переход из локально арендованного блока для ссылки с лимитом.
+     * Когда блок исчерпан, в базе атомарно резервируется следующий (не больше оставшегося до лимита),
+     * поэтому суммарное число выданных переходов никогда не превышает clickLimit.
+     * @param shortCode код ссылки
+     * @return true если переход разрешен, false если лимит исчерпан или ссылка недоступна
+     */
+    public boolean tryAcquire(String shortCode) {
+        while (true) {
+            Lease lease = leases.computeIfAbsent(shortCode, code -> new Lease());
+            if (lease.tryTake()) {
+                return true;
+            }
+            lease.lock.lock();
+            try {
+                if (lease.released || lease.remaining.get() > 0) {
+                    continue;
+                }
+                if (lease.exhausted) {
+                    return false;
+                }
+                int granted = reserve(shortCode, appConfig.getClickLeaseSize());
+                if (granted == 0) {
+                    lease.exhausted = true;
+                    return false;
+                }
+                lease.remaining.addAndGet(granted);
+            } finally {
+                lease.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Проверяет по аренде, что лимит переходов ссылки исчерпан: блок пуст, а база больше переходов не выдала.
+     * Счетчик в базе для этого не годится: при отложенной записи он отстает от фактических переходов.
+     * @return false если аренды нет или в ней еще остались переходы
+     */
+    public boolean isExhausted(String shortCode) {
+        Lease lease = leases.get(shortCode);
+        return lease != null && lease.exhausted && lease.remaining.get() <= 0;
+    }
+
+    /**
+     * Возвращает в базу неиспользованный остаток аренды и забывает ее.
+     * Вызывается при изменении лимита, чтобы следующий переход арендовал блок по новому лимиту.
+     * @param shortCode код ссылки
+     */
+    public void release(String shortCode) {
+        Lease lease = leases.remove(shortCode);
+        if (lease == null) {
+            return;
+        }
+        int unused = lease.close();
+        if (unused > 0) {
+            linkRepository.releaseClicks(shortCode, unused);
+            linkStore.addClicks(shortCode, -unused);
+        }
+    }
+
+    /**
+     * Забывает аренды удаленных ссылок без записи в базу.
+     * @param shortCodes коды удаленных ссылок
+     */
+    public void discard(Collection<String> shortCodes) {
+        for (String shortCode : shortCodes) {
+            Lease lease = leases.remove(shortCode);
+            if (lease != null) {
+                lease.close();
+            }
+        }
+    }
+
+    /**
+     * Возвращает в базу остатки аренд, которыми давно не пользовались,
+     * чтобы счетчик переходов в базе не оставался завышенным.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.clickFlushInterval}")
+    public void releaseIdle() {
+        long idleBefore = System.currentTimeMillis() - appConfig.getClickLeaseIdleMillis();
+        for (String shortCode : leases.keySet()) {
+            Lease lease = leases.get(shortCode);
+            if (lease != null && lease.lastUsed < idleBefore) {
+                release(shortCode);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        log.info("CLICKS - Releasing {} click leases before shutdown", leases.size());
+        for (String shortCode : leases.keySet()) {
+            release(shortCode);
+        }
+    }
+
+    /**
+     * Резервирует в базе блок переходов атомарным UPDATE. Если до лимита осталось меньше запрошенного,
+     * размер блока уменьшается вдвое, пока не останется один переход.
+     */
+    private int reserve(String shortCode, int requested) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int clicks = requested; clicks > 0; clicks /= 2) {
+            if (linkRepository.reserveClicks(shortCode, clicks, now) > 0) {
+                linkStore.addClicks(shortCode, clicks);
+                return clicks;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Аренда переходов одной ссылки. Пополнение из базы выполняется под ReentrantLock, а не synchronized,
+     * чтобы ожидание базы не закрепляло виртуальный поток за потоком-носителем.
+     */
+    private static class Lease {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile boolean exhausted;
+        private boolean released;
+
+        boolean tryTake() {
+            lastUsed = System.currentTimeMillis();
+            int current;
+            do {
+                current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        int close() {
+            lock.lock();
+            try {
+                released = true;
+                return remaining.getAndSet(0);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.HourlyClicks;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сводит закрытые файлы журнала событий перехода в почасовые счетчики по ссылкам (таблица click_hourly).
+ * Каждый файл сводится в одной транзакции вместе с отметкой в click_log_rollup, поэтому повторный прогон
+ * не учитывает файл дважды. Сведенные файлы старше app.click-log.retention-hours удаляются.
+ */
+@Slf4j
+@Component
+public class ClickRollup {
+    static final String MERGE_SQL = "MERGE INTO click_hourly t USING (VALUES (CAST(? AS VARCHAR), CAST(? AS TIMESTAMP), CAST(? AS BIGINT))) "
+            + "s(short_code, hour_start, clicks) ON t.short_code = s.short_code AND t.hour_start = s.hour_start "
+            + "WHEN MATCHED THEN UPDATE SET t.clicks = t.clicks + s.clicks "
+            + "WHEN NOT MATCHED THEN INSERT (short_code, hour_start, clicks) VALUES (s.short_code, s.hour_start, s.clicks)";
+
+    @Autowired
+    private ClickEventLog clickEventLog;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AppConfig appConfig;
+
+    @PostConstruct
+    void init() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS click_hourly (short_code VARCHAR(255) NOT NULL, "
+                + "hour_start TIMESTAMP NOT NULL, clicks BIGINT NOT NULL, PRIMARY KEY (short_code, hour_start))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS click_log_rollup (file_name VARCHAR(255) PRIMARY KEY, "
+                + "rolled_at TIMESTAMP NOT NULL)");
+    }
+
+    /**
+     * Сводит еще не учтенные закрытые файлы журнала и удаляет устаревшие.
+     * Интервал настраивается в app.click-log.rollup-interval.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.clickLogRollupInterval}", initialDelayString = "#{@appConfig.clickLogRollupInterval}")
+    public void rollup() {
+        if (!appConfig.isClickLogEnabled()) {
+            return;
+        }
+        try {
+            List<Path> files = clickEventLog.sealedFiles();
+            Set<String> rolled = new HashSet<>(jdbcTemplate.queryForList("SELECT file_name FROM click_log_rollup", String.class));
+            long cutoff = System.currentTimeMillis() - appConfig.getClickLogRetentionHours() * 3_600_000L;
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!rolled.contains(name)) {
+                    rollupFile(file);
+                } else if (ClickEventLog.fileMillis(file) < cutoff) {
+                    Files.deleteIfExists(file);
+                    jdbcTemplate.update("DELETE FROM click_log_rollup WHERE file_name = ?", name);
+                }
+            }
+        } catch (IOException e) {
+            log.error("CLICKLOG - Rollup failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает почасовое число переходов по ссылке за период.
+     * @param shortCode код ссылки
+     * @param from      начало периода (включительно)
+     * @param to        конец периода (не включительно)
+     * @return счетчики по часам в порядке возрастания, часы без переходов пропущены
+     */
+    public List<HourlyClicks> getHourlyClicks(String shortCode, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT hour_start, clicks FROM click_hourly WHERE short_code = ? "
+                        + "AND hour_start >= ? AND hour_start < ? ORDER BY hour_start",
+                (rs, rowNum) -> new HourlyClicks(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)),
+                shortCode, Timestamp.valueOf(from.truncatedTo(ChronoUnit.HOURS)), Timestamp.valueOf(to));
+    }
+
+    private void rollupFile(Path file) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        Map<String, Map<LocalDateTime, Long>> counts = new HashMap<>();
+        long[] events = new long[1];
+        ZoneId zone = ZoneId.systemDefault();
+        ClickEventLog.read(file, (timeMillis, shortCode, referrer, userAgent) -> {
+            LocalDateTime hour = LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), zone).truncatedTo(ChronoUnit.HOURS);
+            counts.computeIfAbsent(shortCode, code -> new HashMap<>()).merge(hour, 1L, Long::sum);
+            events[0]++;
+        });
+        List<Object[]> rows = new ArrayList<>();
+        counts.forEach((shortCode, hours) -> hours.forEach((hour, clicks) ->
+                rows.add(new Object[]{shortCode, Timestamp.valueOf(hour), clicks})));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(MERGE_SQL, rows);
+            }
+            jdbcTemplate.update("INSERT INTO click_log_rollup (file_name, rolled_at) VALUES (?, ?)",
+                    file.getFileName().toString(), Timestamp.valueOf(LocalDateTime.now()));
+        });
+        log.info("CLICKLOG - Rolled up {} events from {} into {} hourly counters in {} ms",
+                events[0], file.getFileName(), rows.size(), System.currentTimeMillis() - startedAt);
+    }
+}
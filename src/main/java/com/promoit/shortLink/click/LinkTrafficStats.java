@@ -0,0 +1,154 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkTraffic;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Живая статистика переходов по ссылкам в памяти: кольцевые буферы посекундных и поминутных счетчиков
+ * за последние 60 секунд и 60 минут. Каждая ячейка - одно long, где старшие 32 бита - номер секунды
+ * (минуты), к которой относится счетчик, младшие - число переходов; устаревшая ячейка обнуляется тем же CAS,
+ * которым учитывается переход, поэтому учет не выделяет память и не берет блокировок.
+ * Ссылки без переходов дольше app.traffic.idle-millis вытесняются, число отслеживаемых ссылок ограничено
+ * app.traffic.max-links.
+ */
+@Slf4j
+@Component
+public class LinkTrafficStats {
+    static final int SLOTS = 60;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private final ConcurrentHashMap<String, AtomicLongArray> series = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Учитывает переход по ссылке в текущей секунде и минуте.
+     * @param shortCode код ссылки
+     */
+    public void record(String shortCode) {
+        record(shortCode, System.currentTimeMillis());
+    }
+
+    void record(String shortCode, long nowMillis) {
+        if (!appConfig.isTrafficEnabled()) {
+            return;
+        }
+        AtomicLongArray slots = series.get(shortCode);
+        if (slots == null) {
+            if (series.size() >= appConfig.getTrafficMaxLinks()) {
+                rejected.increment();
+                return;
+            }
+            slots = series.computeIfAbsent(shortCode, code -> new AtomicLongArray(2 * SLOTS));
+        }
+        long second = nowMillis / 1000;
+        increment(slots, (int) (second % SLOTS), second);
+        long minute = second / 60;
+        increment(slots, SLOTS + (int) (minute % SLOTS), minute);
+    }
+
+    /**
+     * Возвращает переходы по ссылке за последние 60 секунд и 60 минут.
+     * @param shortCode код ссылки
+     * @return Optional со статистикой или empty, если переходов по ссылке давно не было
+     */
+    public Optional<LinkTraffic> get(String shortCode) {
+        return get(shortCode, System.currentTimeMillis());
+    }
+
+    Optional<LinkTraffic> get(String shortCode, long nowMillis) {
+        AtomicLongArray slots = series.get(shortCode);
+        if (slots == null) {
+            return Optional.empty();
+        }
+        long second = nowMillis / 1000;
+        long minute = second / 60;
+        long[] perSecond = new long[SLOTS];
+        long[] perMinute = new long[SLOTS];
+        long lastMinute = 0;
+        long lastHour = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            perSecond[SLOTS - 1 - i] = count(slots, (int) ((second - i) % SLOTS), second - i);
+            perMinute[SLOTS - 1 - i] = count(slots, SLOTS + (int) ((minute - i) % SLOTS), minute - i);
+            lastMinute += perSecond[SLOTS - 1 - i];
+            lastHour += perMinute[SLOTS - 1 - i];
+        }
+        return Optional.of(new LinkTraffic(shortCode, lastMinute, lastHour, perSecond, perMinute));
+    }
+
+    /**
+     * Прекращает отслеживать удаленные ссылки.
+     */
+    public void discard(Collection<String> shortCodes) {
+        shortCodes.forEach(series::remove);
+    }
+
+    /**
+     * Вытесняет ссылки, по которым не было переходов дольше app.traffic.idle-millis.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.trafficEvictionInterval}")
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    void evictIdle(long nowMillis) {
+        long idleSince = (nowMillis - appConfig.getTrafficIdleMillis()) / 60_000;
+        int before = series.size();
+        series.values().removeIf(slots -> lastMinute(slots) < idleSince);
+        int evicted = before - series.size();
+        if (evicted > 0) {
+            log.debug("TRAFFIC - Evicted {} idle links, {} tracked", evicted, series.size());
+        }
+    }
+
+    /**
+     * Возвращает количество отслеживаемых ссылок.
+     */
+    public int size() {
+        return series.size();
+    }
+
+    /**
+     * Возвращает количество переходов, не учтенных из-за ограничения app.traffic.max-links.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private static void increment(AtomicLongArray slots, int index, long period) {
+        int stamp = (int) period;
+        long value;
+        long next;
+        do {
+            value = slots.get(index);
+            next = (int) (value >>> 32) == stamp ? value + 1 : ((long) stamp << 32) | 1;
+        } while (!slots.compareAndSet(index, value, next));
+    }
+
+    private static long count(AtomicLongArray slots, int index, long period) {
+        long value = slots.get(index);
+        return (int) (value >>> 32) == (int) period ? value & 0xFFFFFFFFL : 0;
+    }
+
+    private static long lastMinute(AtomicLongArray slots) {
+        long last = Long.MIN_VALUE;
+        for (int i = SLOTS; i < 2 * SLOTS; i++) {
+            long value = slots.get(i);
+            if (value != 0) {
+                last = Math.max(last, value >>> 32);
+            }
+        }
+        return last;
+    }
+}
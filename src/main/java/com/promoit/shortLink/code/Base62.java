@@ -0,0 +1,35 @@
+package com.promoit.shortLink.code;
+
+/**
+ * Кодирование неотрицательных чисел в алфавит [0-9A-Za-z] фиксированной длины.
+ */
+final class Base62 {
+    static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    static final int RADIX = ALPHABET.length();
+
+    private Base62() {
+    }
+
+    /**
+     * Возвращает количество различных кодов указанной длины (62^length).
+     */
+    static long capacity(int length) {
+        long capacity = 1;
+        for (int i = 0; i < length; i++) {
+            capacity = Math.multiplyExact(capacity, RADIX);
+        }
+        return capacity;
+    }
+
+    /**
+     * Кодирует число в строку указанной длины, дополняя ее слева нулевым символом алфавита.
+     */
+    static String encode(long value, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (value % RADIX));
+            value /= RADIX;
+        }
+        return new String(chars);
+    }
+}
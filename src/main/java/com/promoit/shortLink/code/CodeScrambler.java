@@ -0,0 +1,67 @@
+package com.promoit.shortLink.code;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ключевая перестановка чисел диапазона [0, domain): сеть Фейстеля на ближайшей степени двойки
+ * с обходом цикла (cycle walking) для значений за пределами диапазона.
+ * Перестановка биективна, поэтому различные порядковые номера дают различные коды,
+ * а соседние номера выглядят не связанными друг с другом.
+ */
+final class CodeScrambler {
+    private static final int ROUNDS = 4;
+
+    private final long domain;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    CodeScrambler(long domain, String secret) {
+        if (domain < 2) {
+            throw new IllegalArgumentException("Domain must contain at least two values");
+        }
+        this.domain = domain;
+        int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        long seed = 0x9E3779B97F4A7C15L;
+        for (byte b : secret.getBytes(StandardCharsets.UTF_8)) {
+            seed = mix(seed ^ b);
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            seed = mix(seed + i);
+            roundKeys[i] = seed;
+        }
+    }
+
+    /**
+     * Переставляет значение внутри диапазона [0, domain).
+     */
+    long scramble(long value) {
+        if (value < 0 || value >= domain) {
+            throw new IllegalArgumentException("Value out of domain: " + value);
+        }
+        long result = value;
+        do {
+            result = feistel(result);
+        } while (result >= domain);
+        return result;
+    }
+
+    private long feistel(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (long key : roundKeys) {
+            long next = left ^ (mix(right ^ key) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
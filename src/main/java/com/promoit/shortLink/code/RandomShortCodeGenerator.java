@@ -0,0 +1,93 @@
+package com.promoit.shortLink.code;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Резервный генератор случайных кодов. Проверяет, что код не занят, и повторяет попытку при коллизии.
+ * Источники случайности распределены по полосам, чтобы параллельные потоки не ждали одну блокировку SecureRandom.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.link.code-generator", havingValue = "random")
+public class RandomShortCodeGenerator implements ShortCodeGenerator {
+    private static final int STRIPES = 16;
+
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private AppConfig appConfig;
+
+    private final SecureRandom[] randoms = new SecureRandom[STRIPES];
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < STRIPES; i++) {
+            randoms[i] = new SecureRandom();
+        }
+    }
+
+    @Override
+    public String nextCode() {
+        int attempts = appConfig.getCodeMaxAttempts();
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            String code = randomCode(appConfig.getCodeLength());
+            if (!linkRepository.existsById(code)) {
+                return code;
+            }
+            log.warn("CODES - Collision on attempt {} for code {}", attempt, code);
+        }
+        throw new IllegalStateException("Failed to generate a unique short code after " + attempts + " attempts");
+    }
+
+    /**
+     * Проверяет занятость всей пачки кандидатов одним запросом и догенерирует только столкнувшиеся коды.
+     */
+    @Override
+    public List<String> nextCodes(int count) {
+        Set<String> codes = new LinkedHashSet<>(count);
+        int attempts = appConfig.getCodeMaxAttempts();
+        for (int attempt = 1; attempt <= attempts && codes.size() < count; attempt++) {
+            Set<String> candidates = new LinkedHashSet<>();
+            while (candidates.size() < count - codes.size()) {
+                String code = randomCode(appConfig.getCodeLength());
+                if (!codes.contains(code)) {
+                    candidates.add(code);
+                }
+            }
+            List<String> taken = linkRepository.findExistingShortCodes(candidates);
+            if (!taken.isEmpty()) {
+                log.warn("CODES - {} collisions on batch attempt {}", taken.size(), attempt);
+                taken.forEach(candidates::remove);
+            }
+            codes.addAll(candidates);
+        }
+        if (codes.size() < count) {
+            throw new IllegalStateException("Failed to generate " + count + " unique short codes after " + attempts + " attempts");
+        }
+        return new ArrayList<>(codes);
+    }
+
+    private String randomCode(int length) {
+        int hash = Thread.currentThread().hashCode();
+        SecureRandom random = randoms[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        char[] chars = new char[length];
+        synchronized (random) {
+            for (int i = 0; i < length; i++) {
+                chars[i] = Base62.ALPHABET.charAt(random.nextInt(Base62.RADIX));
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,130 @@
+package com.promoit.shortLink.code;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.storage.LinkStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Генератор кодов на основе последовательности в базе.
+ * Из последовательности резервируются блоки номеров, внутри блока номера выдаются атомарным счетчиком
+ * без блокировок и обращений к базе. Номер переставляется ключевой биекцией и кодируется в base62,
+ * поэтому коды не повторяются и не угадываются по соседним значениям.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.link.code-generator", havingValue = "sequence", matchIfMissing = true)
+public class SequenceShortCodeGenerator implements ShortCodeGenerator {
+    static final String SEQUENCE_NAME = "link_code_seq";
+    private static final int MAX_CODE_LENGTH = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private LinkStore linkStore;
+    @Autowired
+    private AppConfig appConfig;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private CodeScrambler scrambler;
+    private long capacity;
+    private int codeLength;
+
+    @PostConstruct
+    void init() {
+        codeLength = appConfig.getCodeLength();
+        if (codeLength < 2 || codeLength > MAX_CODE_LENGTH) {
+            throw new IllegalStateException("app.link.code-length must be between 2 and " + MAX_CODE_LENGTH);
+        }
+        String secret = appConfig.getCodeSecret();
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("app.link.code-secret (SHORT_LINK_CODE_SECRET) must be set");
+        }
+        capacity = Base62.capacity(codeLength);
+        scrambler = new CodeScrambler(capacity, secret);
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME
+                + " START WITH " + linkStore.codeSequenceStart() + " MINVALUE 0 INCREMENT BY " + appConfig.getCodeBlockSize());
+    }
+
+    @Override
+    public String nextCode() {
+        return Base62.encode(scrambler.scramble(nextId()), codeLength);
+    }
+
+    /**
+     * Забирает номера из текущего блока диапазонами, а не по одному.
+     */
+    @Override
+    public List<String> nextCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        while (codes.size() < count) {
+            Block block = current.get();
+            int wanted = count - codes.size();
+            long from = block.next.getAndAdd(wanted);
+            long to = Math.min(from + wanted, block.end);
+            for (long id = from; id < to; id++) {
+                codes.add(Base62.encode(scrambler.scramble(id), codeLength));
+            }
+            if (to < from + wanted) {
+                refill(block);
+            }
+        }
+        return codes;
+    }
+
+    private long nextId() {
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            refill(block);
+        }
+    }
+
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (current.get() == exhausted) {
+                current.set(reserveBlock());
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Block reserveBlock() {
+        Long start = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE_NAME, Long.class);
+        if (start == null || start >= capacity) {
+            throw new IllegalStateException("Short code space exhausted for length " + codeLength);
+        }
+        long end = Math.min(start + appConfig.getCodeBlockSize(), capacity);
+        linkStore.recordCodeSequence(end);
+        log.debug("CODES - Reserved block [{}, {})", start, end);
+        return new Block(start, end);
+    }
+
+    private static final class Block {
+        static final Block EMPTY = new Block(0, 0);
+
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.promoit.shortLink.code;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Стратегия генерации кодов коротких ссылок.
+ * Реализация выбирается настройкой app.link.code-generator.
+ */
+public interface ShortCodeGenerator {
+
+    /**
+     * Возвращает новый код, не занятый ни одной существующей ссылкой.
+     */
+    String nextCode();
+
+    /**
+     * Возвращает пачку новых кодов для массового создания ссылок.
+     * @param count количество кодов
+     */
+    default List<String> nextCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(nextCode());
+        }
+        return codes;
+    }
+}
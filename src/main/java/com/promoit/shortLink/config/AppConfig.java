@@ -1,6 +1,7 @@
 package com.promoit.shortLink.config;
 
 
+import com.promoit.shortLink.notification.BackpressurePolicy;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
@@ -10,12 +11,180 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @Configuration
 @EnableScheduling
 public class AppConfig {
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
     @Value("${app.link.base-url:http://localhost:8080}")
     private String baseUrl;
     @Value("${app.link.default-ttl-hours:24}")
     private int defaultTtlHours;
     @Value("${app.link.code-length:9}")
     private int codeLength;
+    @Value("${app.link.code-block-size:1000}")
+    private int codeBlockSize;
+    @Value("${app.link.code-secret:}")
+    private String codeSecret;
+    @Value("${app.link.code-max-attempts:5}")
+    private int codeMaxAttempts;
+    @Value("${app.link.dedup:false}")
+    private boolean linkDedup;
+    @Value("${app.link.batch-chunk-size:500}")
+    private int batchChunkSize;
+    @Value("${app.link.page-default-size:100}")
+    private int pageDefaultSize;
+    @Value("${app.link.page-max-size:1000}")
+    private int pageMaxSize;
+    @Value("${app.link.export-page-size:1000}")
+    private int exportPageSize;
+    @Value("${app.link.click-write-behind:true}")
+    private boolean clickWriteBehind;
+    @Value("${app.link.click-flush-interval:1000}")
+    private String clickFlushInterval;
+    @Value("${app.link.click-lease-size:50}")
+    private int clickLeaseSize;
+    @Value("${app.link.click-lease-idle-millis:60000}")
+    private long clickLeaseIdleMillis;
+    @Value("${app.link.click-buffer-stripes:16}")
+    private int clickBufferStripes;
+    @Value("${app.click-log.enabled:false}")
+    private boolean clickLogEnabled;
+    @Value("${app.click-log.dir:data/clicks}")
+    private String clickLogDir;
+    @Value("${app.click-log.ring-capacity:65536}")
+    private int clickLogRingCapacity;
+    @Value("${app.click-log.batch-bytes:262144}")
+    private int clickLogBatchBytes;
+    @Value("${app.click-log.flush-interval-millis:100}")
+    private long clickLogFlushIntervalMillis;
+    @Value("${app.click-log.rotate-bytes:67108864}")  // 64 MB
+    private long clickLogRotateBytes;
+    @Value("${app.click-log.rotate-interval-millis:300000}")  // 5 minutes
+    private long clickLogRotateIntervalMillis;
+    @Value("${app.click-log.rollup-interval:60000}")
+    private String clickLogRollupInterval;
+    @Value("${app.click-log.retention-hours:168}")
+    private long clickLogRetentionHours;
+    @Value("${app.traffic.enabled:true}")
+    private boolean trafficEnabled;
+    @Value("${app.traffic.max-links:20000}")
+    private int trafficMaxLinks;
+    @Value("${app.traffic.idle-millis:3600000}")  // 1 hour
+    private long trafficIdleMillis;
+    @Value("${app.traffic.eviction-interval:60000}")
+    private String trafficEvictionInterval;
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+    @Value("${app.rate-limit.shorten-user-rate:5}")
+    private double rateLimitShortenUserRate;
+    @Value("${app.rate-limit.shorten-user-burst:20}")
+    private int rateLimitShortenUserBurst;
+    @Value("${app.rate-limit.shorten-ip-rate:10}")
+    private double rateLimitShortenIpRate;
+    @Value("${app.rate-limit.shorten-ip-burst:50}")
+    private int rateLimitShortenIpBurst;
+    @Value("${app.rate-limit.shorten-global-rate:1000}")
+    private double rateLimitShortenGlobalRate;
+    @Value("${app.rate-limit.shorten-global-burst:2000}")
+    private int rateLimitShortenGlobalBurst;
+    @Value("${app.rate-limit.batch-user-rate:200}")
+    private double rateLimitBatchUserRate;
+    @Value("${app.rate-limit.batch-user-burst:5000}")
+    private int rateLimitBatchUserBurst;
+    @Value("${app.rate-limit.batch-ip-rate:500}")
+    private double rateLimitBatchIpRate;
+    @Value("${app.rate-limit.batch-ip-burst:10000}")
+    private int rateLimitBatchIpBurst;
+    @Value("${app.rate-limit.redirect-ip-rate:100}")
+    private double rateLimitRedirectIpRate;
+    @Value("${app.rate-limit.redirect-ip-burst:200}")
+    private int rateLimitRedirectIpBurst;
+    @Value("${app.rate-limit.redirect-global-rate:0}")
+    private double rateLimitRedirectGlobalRate;
+    @Value("${app.rate-limit.redirect-global-burst:0}")
+    private int rateLimitRedirectGlobalBurst;
+    @Value("${app.rate-limit.eviction-interval:10000}")
+    private String rateLimitEvictionInterval;
+    @Value("${app.user.cache-enabled:true}")
+    private boolean userCacheEnabled;
+    @Value("${app.user.cache-max-size:100000}")
+    private long userCacheMaxSize;
+    @Value("${app.user.flush-interval:1000}")
+    private String userFlushInterval;
     @Value("${app.cleanup.interval:3600000}")  // 1 hour
     private String cleanupInterval;
+    @Value("${app.cleanup.chunk-size:1000}")
+    private int cleanupChunkSize;
+    @Value("${app.cache.max-size:100000}")
+    private long cacheMaxSize;
+    @Value("${app.cache.ttl-seconds:600}")
+    private long cacheTtlSeconds;
+    @Value("${app.cache.snapshot.enabled:false}")
+    private boolean cacheSnapshotEnabled;
+    @Value("${app.cache.snapshot.file:data/cache-snapshot.bin}")
+    private String cacheSnapshotFile;
+    @Value("${app.cache.snapshot.max-entries:10000}")
+    private int cacheSnapshotMaxEntries;
+    @Value("${app.cache.snapshot.interval:60000}")  // 1 minute
+    private String cacheSnapshotInterval;
+    @Value("${app.cache.snapshot.load-timeout-millis:30000}")
+    private long cacheSnapshotLoadTimeoutMillis;
+    @Value("${app.link-table.enabled:false}")
+    private boolean linkTableEnabled;
+    @Value("${app.link-table.chunk-bytes:67108864}")  // 64 MB
+    private long linkTableChunkBytes;
+    @Value("${app.link-table.initial-capacity:1000000}")
+    private long linkTableInitialCapacity;
+    @Value("${app.link-changes.enabled:false}")
+    private boolean linkChangesEnabled;
+    @Value("${app.link-changes.poll-interval:500}")
+    private String linkChangesPollInterval;
+    @Value("${app.link-changes.batch-size:1000}")
+    private int linkChangesBatchSize;
+    @Value("${app.link-changes.commit-grace-millis:5000}")
+    private long linkChangesCommitGraceMillis;
+    @Value("${app.link-changes.retention-minutes:60}")
+    private long linkChangesRetentionMinutes;
+    @Value("${app.bloom.enabled:true}")
+    private boolean bloomEnabled;
+    @Value("${app.bloom.expected-insertions:1000000}")
+    private long bloomExpectedInsertions;
+    @Value("${app.bloom.false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate;
+    @Value("${app.bloom.max-memory-bytes:16777216}")  // 16 MB
+    private long bloomMaxMemoryBytes;
+    @Value("${app.bloom.rebuild-interval:3600000}")  // 1 hour
+    private String bloomRebuildInterval;
+    @Value("${app.notification.queue-capacity:10000}")
+    private int notificationQueueCapacity;
+    @Value("${app.notification.batch-size:100}")
+    private int notificationBatchSize;
+    @Value("${app.notification.backpressure:COALESCE}")
+    private BackpressurePolicy notificationBackpressure;
+    @Value("${app.notification.file:logs/notifications.log}")
+    private String notificationFile;
+    @Value("${app.storage.dir:data/links}")
+    private String storageDir;
+    @Value("${app.storage.segment-bytes:67108864}")
+    private long storageSegmentBytes;
+    @Value("${app.storage.index-capacity:262144}")
+    private int storageIndexCapacity;
+    @Value("${app.storage.sync-interval:1000}")
+    private String storageSyncInterval;
+    @Value("${app.storage.compaction-interval:3600000}")
+    private String storageCompactionInterval;
+    @Value("${app.sharding.shards:1}")
+    private int shardCount;
+    @Value("${app.sharding.url-template:jdbc:h2:mem:shard%d}")
+    private String shardUrlTemplate;
+    @Value("${app.sharding.pool-size:10}")
+    private int shardPoolSize;
+    @Value("${app.redirect.cacheable:false}")
+    private boolean redirectCacheable;
+    @Value("${app.redirect.cache-max-age-seconds:86400}")  // 1 day
+    private long redirectCacheMaxAgeSeconds;
+    @Value("${app.redirect.async-pool-size:16}")
+    private int redirectAsyncPoolSize;
+    @Value("${app.redirect.async-queue-size:1000}")
+    private int redirectAsyncQueueSize;
+    @Value("${app.metrics.gauge-refresh-interval:30000}")
+    private String metricsGaugeRefreshInterval;
 }
\ No newline at end of file
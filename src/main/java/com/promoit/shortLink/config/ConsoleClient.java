@@ -9,7 +9,6 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import java.awt.*;
-import java.util.List;
 import java.net.URI;
 import java.util.Scanner;
 import static com.promoit.shortLink.utils.StringUtils.truncateUrl;
@@ -123,8 +122,8 @@ public class ConsoleClient implements CommandLineRunner {
             String shortUrl = linkService.buildShortUrl(shortCode);
             System.out.println("Открываю: " + shortUrl);
 
-            var linkOpt = linkService.accessLink(shortCode);
-            if (linkOpt.isEmpty()) {
+            var result = linkService.accessLink(shortCode);
+            if (!result.isAvailable()) {
                 System.out.println("Ссылка недоступна (истекла или достигнут лимит)");
                 return;
             }
@@ -184,20 +183,19 @@ public class ConsoleClient implements CommandLineRunner {
                 return;
             }
 
-            List<LinkEntity> links = linkService.getUserLinks(userId);
-
-            if (links.isEmpty()) {
-                System.out.println("У вас пока нет созданных ссылок");
-            } else {
-                System.out.println("Ваши ссылки:");
-                for (int i = 0; i < links.size(); i++) {
-                    LinkEntity link = links.get(i);
-                    String status = link.canBeAccessed() ? "АКТИВНА" : "НЕДОСТУПНА";
-                    String clicks = link.getClickCount() + "/" + (link.getClickLimit() == null ? "∞" : link.getClickLimit());
-                    System.out.println((i + 1) + ". " + link.getShortCode() + " - " + status);
-                    System.out.println("URL: " + truncateUrl(link.getOriginalUrl(), 50));
-                    System.out.println("Переходы: " + clicks + ", Истекает: " + link.getExpiresAt().toLocalDate());
+            int[] count = {0};
+            linkService.forEachUserLink(userId, false, null, link -> {
+                if (count[0] == 0) {
+                    System.out.println("Ваши ссылки:");
                 }
+                String status = link.isActive() ? "АКТИВНА" : "НЕДОСТУПНА";
+                String clicks = link.getClickCount() + "/" + (link.getClickLimit() == null ? "∞" : link.getClickLimit());
+                System.out.println((++count[0]) + ". " + link.getShortCode() + " - " + status);
+                System.out.println("URL: " + truncateUrl(link.getOriginalUrl(), 50));
+                System.out.println("Переходы: " + clicks + ", Истекает: " + link.getExpiresAt().toLocalDate());
+            });
+            if (count[0] == 0) {
+                System.out.println("У вас пока нет созданных ссылок");
             }
         } catch (Exception e) {
             System.out.println("Ошибка при получении ссылок: " + e.getMessage());
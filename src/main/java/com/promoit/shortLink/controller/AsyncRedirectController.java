@@ -0,0 +1,150 @@
+package com.promoit.shortLink.controller;
+
+import com.promoit.shortLink.click.ClickEventLog;
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.metrics.LinkMetrics;
+import com.promoit.shortLink.service.LinkService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Неблокирующий редирект по короткой ссылке (app.redirect.mode=async).
+ * Поток сервлет-контейнера освобождается сразу: попадания в кэш отвечают готовым CompletableFuture,
+ * промахи кэша и аренда переходов в базе выполняются в отдельном ограниченном пуле.
+ * Очередь пула ограничена app.redirect.async-queue-size: при перегрузке промахи получают 503 с Retry-After,
+ * а не копятся в памяти. /shorten и служебные эндпоинты остаются синхронными.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(name = "app.redirect.mode", havingValue = "async")
+public class AsyncRedirectController {
+    static final String GONE_MESSAGE = "Link is expired or reached click limit";
+    static final String NOT_FOUND_MESSAGE = "Link not found";
+    static final String OVERLOADED_MESSAGE = "Service is overloaded, retry later";
+
+    @Autowired
+    private LinkService linkService;
+    @Autowired
+    private LinkMetrics linkMetrics;
+    @Autowired
+    private ClickEventLog clickEventLog;
+    @Autowired
+    private RedirectResponses redirectResponses;
+    @Autowired
+    private AppConfig appConfig;
+
+    private ExecutorService lookupWorkers;
+    private Executor lookupExecutor;
+
+    /**
+     * Платформенные потоки: фиксированный пул с очередью app.redirect.async-queue-size.
+     * Виртуальные потоки: поток на промах, но не больше async-pool-size + async-queue-size промахов одновременно.
+     * В обоих случаях лишний промах отклоняется RejectedExecutionException.
+     */
+    @PostConstruct
+    void init() {
+        int poolSize = appConfig.getRedirectAsyncPoolSize();
+        int queueSize = appConfig.getRedirectAsyncQueueSize();
+        if (appConfig.isVirtualThreads()) {
+            lookupWorkers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("redirect-lookup-", 0).factory());
+            Semaphore inFlight = new Semaphore(poolSize + queueSize);
+            lookupExecutor = task -> {
+                if (!inFlight.tryAcquire()) {
+                    throw new RejectedExecutionException("Redirect lookup limit reached");
+                }
+                try {
+                    lookupWorkers.execute(() -> {
+                        try {
+                            task.run();
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            };
+        } else {
+            lookupWorkers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>(), Thread.ofPlatform().daemon(true).name("redirect-lookup-", 0).factory(),
+                    new ThreadPoolExecutor.AbortPolicy());
+            lookupExecutor = lookupWorkers;
+        }
+        log.info("Async redirect mode enabled (lookup pool: {}, queue: {})",
+                appConfig.isVirtualThreads() ? "virtual" : poolSize, queueSize);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        lookupWorkers.shutdown();
+        lookupWorkers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Выполняет редирект по короткой ссылке: 302 на оригинальный URL, 410 для истекших ссылок
+     * и ссылок с исчерпанным лимитом, 404 для несуществующих кодов.
+     * Успешные переходы записываются в журнал событий перехода вместе с Referer и User-Agent.
+     * @param shortCode уникальный код короткой ссылки из URL
+     * @param referrer  заголовок Referer (опционально)
+     * @param userAgent заголовок User-Agent (опционально)
+     * @param ifNoneMatch заголовок If-None-Match для условного запроса кэшируемой ссылки (опционально)
+     * @return ответ, который завершается без блокировки потока запроса
+     */
+    @GetMapping("/{shortCode}")
+    public CompletableFuture<ResponseEntity<String>> redirectToOriginal(
+            @PathVariable String shortCode,
+            @RequestHeader(value = HttpHeaders.REFERER, required = false) String referrer,
+            @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<LinkAccessResult> result;
+        try {
+            result = linkService.accessLinkIfCached(shortCode)
+                    .map(CompletableFuture::completedFuture)
+                    .orElseGet(() -> CompletableFuture.supplyAsync(() -> linkService.accessLink(shortCode), lookupExecutor));
+        } catch (RejectedExecutionException e) {
+            log.debug("REDIRECT - Lookup queue is full, rejecting {}", shortCode);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(OVERLOADED_MESSAGE));
+        }
+        return result.thenApply(access -> {
+            if (access.getStatus() == LinkAccessResult.Status.OK) {
+                clickEventLog.record(shortCode, referrer, userAgent);
+            }
+            linkMetrics.recordRedirect(access.getStatus(), startNanos);
+            return toResponse(access, ifNoneMatch);
+        });
+    }
+
+    private ResponseEntity<String> toResponse(LinkAccessResult result, String ifNoneMatch) {
+        return switch (result.getStatus()) {
+            case OK -> redirectResponses.toResponse(result.getLink(), ifNoneMatch);
+            case GONE -> ResponseEntity.status(HttpStatus.GONE).body(GONE_MESSAGE);
+            case NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND_MESSAGE);
+        };
+    }
+}
@@ -1,18 +1,31 @@
 package com.promoit.shortLink.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promoit.shortLink.click.ClickRollup;
+import com.promoit.shortLink.click.LinkTrafficStats;
+import com.promoit.shortLink.domain.dto.LinkTraffic;
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkCursor;
 import com.promoit.shortLink.domain.entity.LinkEntity;
 import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.metrics.LinkMetrics;
+import com.promoit.shortLink.ratelimit.RateLimiter;
+import com.promoit.shortLink.service.BatchLinkService;
 import com.promoit.shortLink.service.LinkService;
 import com.promoit.shortLink.service.UserService;
-import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.function.IntToLongFunction;
 
 
 @RestController
@@ -21,6 +34,20 @@ public class LinkController {
     private LinkService linkService;
     @Autowired
     private UserService userService;
+    @Autowired
+    private BatchLinkService batchLinkService;
+    @Autowired
+    private ClickRollup clickRollup;
+    @Autowired
+    private LinkTrafficStats linkTrafficStats;
+    @Autowired
+    private LinkMetrics linkMetrics;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private RateLimiter rateLimiter;
 
     /**
      * Создает новую короткую ссылку для указанного URL.
@@ -34,6 +61,7 @@ public class LinkController {
             @RequestParam String url,
             @RequestParam(required = false) Integer clickLimit,
             @RequestHeader(value = "X-User-ID", required = false) String userId) {
+        long startNanos = System.nanoTime();
         try {
             UserEntity user = userService.getOrCreateUser(userId);
             LinkEntity link = linkService.createShortLink(url, user, clickLimit);
@@ -44,6 +72,7 @@ public class LinkController {
             response.put("userId", user.getId());
             response.put("expiresAt", link.getExpiresAt());
             response.put("clickLimit", link.getClickLimit());
+            linkMetrics.recordCreate(startNanos);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error creating short link: " + e.getMessage());
@@ -51,21 +80,35 @@ public class LinkController {
     }
 
     /**
-     * Выполняет редирект по короткой ссылке на оригинальный URL, а так же проверяет лимиты переходов и срок действия ссылки.
-     * @param shortCode уникальный код короткой ссылки из URL
-     * @param response  объект HTTP ответа для ручного управления редиректом
-     * @throws IOException если произошла ошибка ввода-вывода при отправке ответа
+     * Создает короткие ссылки пачкой. Тело запроса - JSON-массив или NDJSON объектов {"url": ..., "clickLimit": ...}.
+     * Ответ - NDJSON с результатом по каждому элементу, строки отправляются по мере фиксации порций.
+     * Ошибка отдельного элемента попадает в его строку и не прерывает пачку.
+     * Пакетный лимит на создание списывается по ссылке на элемент перед сохранением каждой порции.
+     * @param request HTTP запрос, тело которого читается потоком
+     * @param userId  идентификатор пользователя из заголовка X-User-ID (опционально)
+     * @return потоковый ответ, идентификатор пользователя возвращается в заголовке X-User-ID
      */
-    @GetMapping("/{shortCode}")
-    public void redirectToOriginal(@PathVariable String shortCode, HttpServletResponse response) throws IOException {
-        Optional<LinkEntity> linkOpt = linkService.accessLink(shortCode);
-        if (linkOpt.isPresent()) {
-            LinkEntity link = linkOpt.get();
-            response.sendRedirect(link.getOriginalUrl());
-        } else {
-            response.setStatus(HttpServletResponse.SC_GONE);
-            response.getWriter().write("Link is expired or reached click limit");
+    @PostMapping(value = "/shorten/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> createShortLinks(
+            HttpServletRequest request,
+            @RequestHeader(value = "X-User-ID", required = false) String userId) throws IOException {
+        UserEntity user = userService.getOrCreateUser(userId);
+        InputStream body = request.getInputStream();
+        IntToLongFunction quota = batchQuota(userId, request.getRemoteAddr());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("X-User-ID", user.getId())
+                .body(out -> batchLinkService.shorten(body, out, user, quota));
+    }
+
+    /**
+     * Списание пакетного лимита на создание для порций запроса.
+     */
+    private IntToLongFunction batchQuota(String userId, String clientIp) {
+        if (!appConfig.isRateLimitEnabled()) {
+            return links -> 0;
         }
+        return links -> rateLimiter.checkBatch(userId, clientIp, links);
     }
 
     /**
@@ -104,18 +147,99 @@ public class LinkController {
     }
 
     /**
-     * Возвращает все короткие ссылки, принадлежащие указанному пользователю.
-     * @param userId идентификатор пользователя из заголовка X-User-ID (обязательный)
-     * @return ResponseEntity со списком ссылок пользователя или сообщением об ошибке
+     * Возвращает живую статистику переходов по ссылке за последнюю минуту и час из памяти. Доступно только для создателя ссылки.
+     * Ссылка без переходов за время хранения статистики возвращается с нулевыми счетчиками.
+     * @param shortCode уникальный код короткой ссылки (path variable)
+     * @param userId    идентификатор пользователя из заголовка X-User-ID (обязательный)
+     * @return ResponseEntity со статистикой или сообщением об ошибке
+     */
+    @GetMapping("/{shortCode}/stats")
+    public ResponseEntity<?> getLinkTraffic(@PathVariable String shortCode, @RequestHeader("X-User-ID") String userId) {
+        if (!linkService.isLinkOwner(shortCode, userId)) {
+            return ResponseEntity.badRequest().body("Link not found or access denied");
+        }
+        return ResponseEntity.ok(linkTrafficStats.get(shortCode).orElseGet(() ->
+                new LinkTraffic(shortCode, 0, 0, new long[LinkTrafficStats.SLOTS], new long[LinkTrafficStats.SLOTS])));
+    }
+
+    /**
+     * Возвращает почасовое число переходов по ссылке из журнала событий перехода. Доступно только для создателя ссылки.
+     * Счетчики обновляются сводкой закрытых файлов журнала, поэтому последние минуты могут еще не попасть в ответ.
+     * @param shortCode уникальный код короткой ссылки (path variable)
+     * @param userId    идентификатор пользователя из заголовка X-User-ID (обязательный)
+     * @param from      начало периода (опционально, по умолчанию сутки назад)
+     * @param to        конец периода (опционально, по умолчанию текущий момент)
+     * @return ResponseEntity со счетчиками по часам или сообщением об ошибке
+     */
+    @GetMapping("/{shortCode}/clicks")
+    public ResponseEntity<?> getHourlyClicks(
+            @PathVariable String shortCode,
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!linkService.isLinkOwner(shortCode, userId)) {
+            return ResponseEntity.badRequest().body("Link not found or access denied");
+        }
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = from == null ? end.minusDays(1) : from;
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().body("from must be before to");
+        }
+        return ResponseEntity.ok(clickRollup.getHourlyClicks(shortCode, start, end));
+    }
+
+    /**
+     * Возвращает страницу коротких ссылок пользователя в порядке создания.
+     * @param userId        идентификатор пользователя из заголовка X-User-ID (обязательный)
+     * @param cursor        курсор nextCursor из предыдущей страницы (опционально)
+     * @param limit         размер страницы, не больше app.link.page-max-size (опционально)
+     * @param activeOnly    только доступные для перехода ссылки
+     * @param expiresBefore только ссылки, истекающие раньше указанного момента (опционально)
+     * @return ResponseEntity со страницей ссылок и курсором следующей страницы или сообщением об ошибке
      */
-    @GetMapping("/user/links")
+    @GetMapping(value = "/user/links", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> getUserLinks(
-            @RequestHeader("X-User-ID") String userId) {
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean activeOnly,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime expiresBefore) {
         if (!userService.getUserById(userId).isPresent()) {
             return ResponseEntity.badRequest().body("User not found");
         }
-        List<LinkEntity> links = linkService.getUserLinks(userId);
-        return ResponseEntity.ok(links);
+        int pageSize = limit == null ? appConfig.getPageDefaultSize() : limit;
+        if (pageSize < 1 || pageSize > appConfig.getPageMaxSize()) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + appConfig.getPageMaxSize());
+        }
+        try {
+            LinkCursor after = cursor == null ? null : LinkCursor.decode(cursor);
+            return ResponseEntity.ok(linkService.getUserLinks(userId, after, pageSize, activeOnly, expiresBefore));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+    }
+
+    /**
+     * Выгружает все короткие ссылки пользователя потоком NDJSON (Accept: application/x-ndjson).
+     * Ссылки читаются из базы страницами, поэтому объем выгрузки не ограничен памятью.
+     * @param userId        идентификатор пользователя из заголовка X-User-ID (обязательный)
+     * @param activeOnly    только доступные для перехода ссылки
+     * @param expiresBefore только ссылки, истекающие раньше указанного момента (опционально)
+     * @return потоковый ответ со ссылкой на строку или сообщение об ошибке
+     */
+    @GetMapping(value = "/user/links", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> exportUserLinks(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(defaultValue = "false") boolean activeOnly,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime expiresBefore) {
+        if (!userService.getUserById(userId).isPresent()) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body("User not found");
+        }
+        StreamingResponseBody body = out -> linkService.forEachUserLink(userId, activeOnly, expiresBefore, link -> {
+            out.write(objectMapper.writeValueAsBytes(link));
+            out.write('\n');
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
 }
\ No newline at end of file
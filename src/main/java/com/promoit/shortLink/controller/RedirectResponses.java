@@ -0,0 +1,190 @@
+package com.promoit.shortLink.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.function.BiConsumer;
+
+/**
+ * Заранее подготовленные ответы редиректа: Location, ETag и Last-Modified строятся один раз на ссылку
+ * и переиспользуются, пока в кэше ссылок лежит тот же снимок. При app.redirect.cacheable ссылки без лимита
+ * переходов отдаются с Cache-Control: public, max-age до истечения ссылки (не больше
+ * app.redirect.cache-max-age-seconds), чтобы повторные переходы обслуживали браузер и прокси;
+ * ссылки с лимитом отдаются с no-store, чтобы каждый переход доходил до сервиса и учитывался.
+ */
+@Component
+public class RedirectResponses {
+    private static final String NO_STORE = "no-store";
+    private static final String PUBLIC_MAX_AGE = "public, max-age=";
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private Cache<String, PreparedRedirect> prepared;
+
+    @PostConstruct
+    void init() {
+        prepared = Caffeine.newBuilder()
+                .maximumSize(appConfig.getCacheMaxSize())
+                .expireAfterAccess(Duration.ofSeconds(appConfig.getCacheTtlSeconds()))
+                .build();
+    }
+
+    /**
+     * Записывает редирект в ответ сервлета: 302 с подготовленными заголовками
+     * или 304, если If-None-Match совпадает с ETag кэшируемой ссылки.
+     */
+    public void write(LinkSnapshot link, String ifNoneMatch, HttpServletResponse response) {
+        response.setStatus(apply(get(link), ifNoneMatch, response::setHeader).value());
+    }
+
+    /**
+     * Возвращает редирект в виде ResponseEntity для неблокирующего контроллера.
+     */
+    public ResponseEntity<String> toResponse(LinkSnapshot link, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        HttpStatus status = apply(get(link), ifNoneMatch, headers::set);
+        return ResponseEntity.status(status).headers(headers).build();
+    }
+
+    /**
+     * Передает заголовки редиректа в ответ и возвращает его статус: 304 без Location,
+     * если If-None-Match совпадает с ETag кэшируемой ссылки, иначе 302.
+     */
+    private HttpStatus apply(PreparedRedirect redirect, String ifNoneMatch, BiConsumer<String, String> headers) {
+        String cacheControl = redirect.cacheControl(System.currentTimeMillis(), appConfig.getRedirectCacheMaxAgeSeconds());
+        if (cacheControl != null) {
+            headers.accept(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        if (redirect.etag != null) {
+            headers.accept(HttpHeaders.ETAG, redirect.etag);
+            if (redirect.lastModified != null) {
+                headers.accept(HttpHeaders.LAST_MODIFIED, redirect.lastModified);
+            }
+            if (matchesIfNoneMatch(ifNoneMatch, redirect.etag)) {
+                return HttpStatus.NOT_MODIFIED;
+            }
+        }
+        headers.accept(HttpHeaders.LOCATION, redirect.location);
+        return HttpStatus.FOUND;
+    }
+
+    /**
+     * Проверяет If-None-Match по RFC 9110, раздел 13.1.2: "*" совпадает с любой ссылкой, иначе значение -
+     * список ETag через запятую, которые сравниваются слабо (без учета префикса W/).
+     * @param ifNoneMatch значение заголовка или null
+     * @param etag        сильный ETag ссылки в кавычках
+     */
+    static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        int length = ifNoneMatch.length();
+        int i = 0;
+        while (i < length) {
+            char c = ifNoneMatch.charAt(i);
+            if (c == ' ' || c == '\t' || c == ',') {
+                i++;
+                continue;
+            }
+            if (c == '*') {
+                return true;
+            }
+            if (c == 'W' && ifNoneMatch.startsWith("/", i + 1)) {
+                i += 2;
+            }
+            if (i >= length || ifNoneMatch.charAt(i) != '"') {
+                return false;
+            }
+            int end = ifNoneMatch.indexOf('"', i + 1);
+            if (end < 0) {
+                return false;
+            }
+            if (end + 1 - i == etag.length() && ifNoneMatch.startsWith(etag, i)) {
+                return true;
+            }
+            i = end + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает подготовленный ответ для снимка ссылки. Если снимок в кэше ссылок сменился
+     * (ссылка изменена или загружена заново), ответ строится заново.
+     */
+    PreparedRedirect get(LinkSnapshot link) {
+        PreparedRedirect redirect = prepared.getIfPresent(link.getShortCode());
+        if (redirect == null || redirect.link != link) {
+            redirect = PreparedRedirect.of(link, appConfig.isRedirectCacheable());
+            prepared.put(link.getShortCode(), redirect);
+        }
+        return redirect;
+    }
+
+    static final class PreparedRedirect {
+        final LinkSnapshot link;
+        final String location;
+        final String etag;
+        final String lastModified;
+        final long expiresAtMillis;
+        final boolean cacheable;
+        final boolean httpCaching;
+
+        private PreparedRedirect(LinkSnapshot link, boolean httpCaching) {
+            ZoneId zone = ZoneId.systemDefault();
+            this.link = link;
+            this.location = link.getOriginalUrl();
+            this.httpCaching = httpCaching;
+            this.cacheable = httpCaching && link.isUnlimited();
+            this.expiresAtMillis = link.getExpiresAt() == null ? Long.MAX_VALUE
+                    : link.getExpiresAt().atZone(zone).toInstant().toEpochMilli();
+            this.etag = cacheable ? etag(link) : null;
+            LocalDateTime createdAt = link.getCreatedAt();
+            this.lastModified = cacheable && createdAt != null
+                    ? DateTimeFormatter.RFC_1123_DATE_TIME.format(createdAt.atZone(zone).withZoneSameInstant(ZoneOffset.UTC)) : null;
+        }
+
+        static PreparedRedirect of(LinkSnapshot link, boolean httpCaching) {
+            return new PreparedRedirect(link, httpCaching);
+        }
+
+        /**
+         * Возвращает значение Cache-Control на текущий момент или null, если кэширование по HTTP выключено.
+         */
+        String cacheControl(long nowMillis, long maxAgeSeconds) {
+            if (!httpCaching) {
+                return null;
+            }
+            if (!cacheable) {
+                return NO_STORE;
+            }
+            long remainingSeconds = expiresAtMillis == Long.MAX_VALUE
+                    ? maxAgeSeconds : Math.min(maxAgeSeconds, (expiresAtMillis - nowMillis) / 1000);
+            return remainingSeconds > 0 ? PUBLIC_MAX_AGE + remainingSeconds : NO_STORE;
+        }
+
+        private static String etag(LinkSnapshot link) {
+            long h = 0xCBF29CE484222325L;
+            for (byte b : (link.getOriginalUrl() + '|' + link.getExpiresAt()).getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001B3L;
+            }
+            return "\"" + Long.toHexString(h) + "\"";
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.promoit.shortLink.controller;
+
+import com.promoit.shortLink.click.ClickEventLog;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.metrics.LinkMetrics;
+import com.promoit.shortLink.service.LinkService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Enumeration;
+
+/**
+ * Редирект по короткой ссылке в потоке сервлет-контейнера (app.redirect.mode=servlet).
+ */
+@RestController
+@ConditionalOnProperty(name = "app.redirect.mode", havingValue = "servlet", matchIfMissing = true)
+public class ServletRedirectController {
+    @Autowired
+    private LinkService linkService;
+    @Autowired
+    private LinkMetrics linkMetrics;
+    @Autowired
+    private ClickEventLog clickEventLog;
+    @Autowired
+    private RedirectResponses redirectResponses;
+
+    /**
+     * Выполняет редирект по короткой ссылке на оригинальный URL, а так же проверяет лимиты переходов и срок действия ссылки.
+     * Заголовки редиректа берутся из {@link RedirectResponses}.
+     * Отвечает 410 для истекших ссылок и ссылок с исчерпанным лимитом, 404 для несуществующих кодов.
+     * Успешные переходы записываются в журнал событий перехода вместе с Referer и User-Agent.
+     * @param shortCode уникальный код короткой ссылки из URL
+     * @param request   объект HTTP запроса для чтения заголовков Referer и User-Agent
+     * @param response  объект HTTP ответа для ручного управления редиректом
+     * @throws IOException если произошла ошибка ввода-вывода при отправке ответа
+     */
+    @GetMapping("/{shortCode}")
+    public void redirectToOriginal(@PathVariable String shortCode, HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        long startNanos = System.nanoTime();
+        LinkAccessResult result = linkService.accessLink(shortCode);
+        switch (result.getStatus()) {
+            case OK -> {
+                clickEventLog.record(shortCode, request.getHeader(HttpHeaders.REFERER), request.getHeader(HttpHeaders.USER_AGENT));
+                redirectResponses.write(result.getLink(), ifNoneMatch(request), response);
+            }
+            case GONE -> {
+                response.setStatus(HttpServletResponse.SC_GONE);
+                response.getWriter().write(AsyncRedirectController.GONE_MESSAGE);
+            }
+            case NOT_FOUND -> {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                response.getWriter().write(AsyncRedirectController.NOT_FOUND_MESSAGE);
+            }
+        }
+        linkMetrics.recordRedirect(result.getStatus(), startNanos);
+    }
+
+    /**
+     * Возвращает If-None-Match, объединяя повторенные заголовки через запятую, как это делает @RequestHeader.
+     */
+    private static String ifNoneMatch(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        if (values == null || !values.hasMoreElements()) {
+            return null;
+        }
+        String first = values.nextElement();
+        if (!values.hasMoreElements()) {
+            return first;
+        }
+        StringBuilder joined = new StringBuilder(first);
+        while (values.hasMoreElements()) {
+            joined.append(',').append(values.nextElement());
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.promoit.shortLink.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.promoit.shortLink.cache.LinkCache;
+import com.promoit.shortLink.cache.ShortCodeBloomFilter;
+import com.promoit.shortLink.click.ClickEventLog;
+import com.promoit.shortLink.service.NotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+@RestController
+@RequestMapping("/internal/stats")
+public class StatsController {
+    @Autowired
+    private LinkCache linkCache;
+    @Autowired
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private ClickEventLog clickEventLog;
+
+    /**
+     * Возвращает статистику кэша ссылок: попадания, промахи, вытеснения и текущий размер.
+     * @return ResponseEntity со счетчиками кэша
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<?> getCacheStats() {
+        CacheStats stats = linkCache.stats();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("hitCount", stats.hitCount());
+        response.put("missCount", stats.missCount());
+        response.put("evictionCount", stats.evictionCount());
+        response.put("hitRate", stats.hitRate());
+        response.put("size", linkCache.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Возвращает статистику фильтра Блума: сколько запросов отсечено без обращения к базе и размер фильтра.
+     * @return ResponseEntity со счетчиками фильтра
+     */
+    @GetMapping("/bloom")
+    public ResponseEntity<?> getBloomStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("shortCircuitedCount", shortCodeBloomFilter.getShortCircuitedCount());
+        response.put("memoryBytes", shortCodeBloomFilter.getMemoryBytes());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Возвращает состояние очереди уведомлений: глубину, задержку и счетчики доставленных,
+     * слитых и отброшенных событий.
+     * @return ResponseEntity со счетчиками очереди уведомлений
+     */
+    @GetMapping("/notifications")
+    public ResponseEntity<?> getNotificationStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("queueDepth", notificationService.getQueueDepth());
+        response.put("queueLagMillis", notificationService.getQueueLagMillis());
+        response.put("lastDeliveryLagMillis", notificationService.getLastDeliveryLagMillis());
+        response.put("deliveredCount", notificationService.getDeliveredCount());
+        response.put("coalescedCount", notificationService.getCoalescedCount());
+        response.put("droppedCount", notificationService.getDroppedCount());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Возвращает состояние журнала событий перехода: записанные, ожидающие записи и отброшенные события.
+     * @return ResponseEntity со счетчиками журнала
+     */
+    @GetMapping("/click-log")
+    public ResponseEntity<?> getClickLogStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("writtenCount", clickEventLog.getWrittenCount());
+        response.put("pendingCount", clickEventLog.pendingCount());
+        response.put("droppedCount", clickEventLog.getDroppedCount());
+        return ResponseEntity.ok(response);
+    }
+}
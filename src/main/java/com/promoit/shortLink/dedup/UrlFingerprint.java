@@ -0,0 +1,72 @@
+package com.promoit.shortLink.dedup;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * Нормализация URL и компактный 64-битный отпечаток для поиска повторно сокращаемых ссылок.
+ * Отпечаток не уникален: совпадение проверяется сравнением нормализованных URL.
+ */
+public final class UrlFingerprint {
+
+    private UrlFingerprint() {
+    }
+
+    /**
+     * Приводит URL к каноническому виду: схема и хост в нижнем регистре, без порта по умолчанию,
+     * пустой путь заменяется на "/". Фрагмент сохраняется: в одностраничных приложениях он задает маршрут,
+     * поэтому URL с разными фрагментами ведут на разные страницы. Некорректный URL возвращается обрезанным по краям.
+     */
+    public static String normalize(String url) {
+        String trimmed = url.trim();
+        try {
+            URI uri = new URI(trimmed);
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return trimmed;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? null : uri.getHost().toLowerCase(Locale.ROOT);
+            if (host == null) {
+                return trimmed;
+            }
+            int port = uri.getPort();
+            boolean defaultPort = port == -1 || ("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443);
+            StringBuilder normalized = new StringBuilder(trimmed.length())
+                    .append(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                normalized.append(uri.getRawUserInfo()).append('@');
+            }
+            normalized.append(host);
+            if (!defaultPort) {
+                normalized.append(':').append(port);
+            }
+            String path = uri.getRawPath();
+            normalized.append(path == null || path.isEmpty() ? "/" : path);
+            if (uri.getRawQuery() != null) {
+                normalized.append('?').append(uri.getRawQuery());
+            }
+            if (uri.getRawFragment() != null) {
+                normalized.append('#').append(uri.getRawFragment());
+            }
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+    }
+
+    /**
+     * Возвращает отпечаток нормализованного URL (FNV-1a с финальным перемешиванием).
+     */
+    public static long hash(String url) {
+        String normalized = normalize(url);
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < normalized.length(); i++) {
+            h ^= normalized.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
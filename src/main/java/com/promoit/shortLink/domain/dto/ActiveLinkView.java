@@ -0,0 +1,26 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция действующей ссылки для заполнения таблицы ссылок вне кучи: снимок и текущий счетчик переходов.
+ */
+@Value
+public class ActiveLinkView {
+    String shortCode;
+    String originalUrl;
+    String userId;
+    Integer clickLimit;
+    Integer clickCount;
+    LocalDateTime expiresAt;
+    LocalDateTime createdAt;
+
+    /**
+     * Возвращает снимок ссылки без счетчика переходов.
+     */
+    public LinkSnapshot toSnapshot() {
+        return new LinkSnapshot(shortCode, originalUrl, userId, clickLimit, expiresAt, createdAt);
+    }
+}
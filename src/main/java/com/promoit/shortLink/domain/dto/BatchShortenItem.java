@@ -0,0 +1,16 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Элемент запроса на массовое создание ссылок.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchShortenItem {
+    private String url;
+    private Integer clickLimit;
+}
@@ -0,0 +1,38 @@
+package com.promoit.shortLink.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import lombok.Value;
+import lombok.With;
+
+import java.time.LocalDateTime;
+
+/**
+ * Результат создания одной ссылки из пачки: созданная ссылка или текст ошибки.
+ * index - позиция элемента во входном потоке.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchShortenResult {
+    @With
+    long index;
+    String url;
+    String shortCode;
+    String shortUrl;
+    Integer clickLimit;
+    LocalDateTime expiresAt;
+    String error;
+
+    public static BatchShortenResult created(LinkEntity link, String shortUrl) {
+        return new BatchShortenResult(0, link.getOriginalUrl(), link.getShortCode(), shortUrl,
+                link.getClickLimit(), link.getExpiresAt(), null);
+    }
+
+    public static BatchShortenResult failed(String url, String error) {
+        return new BatchShortenResult(0, url, null, null, null, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
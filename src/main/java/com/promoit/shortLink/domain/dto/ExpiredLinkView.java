@@ -0,0 +1,15 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция истекшей ссылки для очистки: только поля, нужные для удаления и уведомления владельца.
+ */
+@Value
+public class ExpiredLinkView {
+    String shortCode;
+    String userId;
+    LocalDateTime expiresAt;
+}
@@ -0,0 +1,14 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Число переходов по ссылке за час, собранное из журнала событий перехода.
+ */
+@Value
+public class HourlyClicks {
+    LocalDateTime hour;
+    long clicks;
+}
@@ -0,0 +1,42 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.Value;
+
+/**
+ * Результат обращения к короткой ссылке.
+ */
+@Value
+public class LinkAccessResult {
+    private static final LinkAccessResult NOT_FOUND = new LinkAccessResult(Status.NOT_FOUND, null);
+
+    public enum Status {
+        /** Ссылка доступна, переход учтен. */
+        OK,
+        /** Ссылка существует, но истекла или исчерпала лимит переходов. */
+        GONE,
+        /** Ссылки с таким кодом нет. */
+        NOT_FOUND
+    }
+
+    Status status;
+    LinkSnapshot link;
+
+    public static LinkAccessResult ok(LinkSnapshot link) {
+        return new LinkAccessResult(Status.OK, link);
+    }
+
+    public static LinkAccessResult gone(LinkSnapshot link) {
+        return new LinkAccessResult(Status.GONE, link);
+    }
+
+    public static LinkAccessResult notFound() {
+        return NOT_FOUND;
+    }
+
+    /**
+     * Проверяет, что по ссылке можно выполнить переход.
+     */
+    public boolean isAvailable() {
+        return status == Status.OK;
+    }
+}
@@ -0,0 +1,49 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации по (createdAt, shortCode): позиция последней выданной ссылки.
+ * Клиенту передается как непрозрачная base64url-строка.
+ */
+@Value
+public class LinkCursor {
+    private static final char SEPARATOR = '|';
+
+    LocalDateTime createdAt;
+    String shortCode;
+
+    /**
+     * Курсор, указывающий на позицию после переданной ссылки.
+     */
+    public static LinkCursor after(LinkView link) {
+        return new LinkCursor(link.getCreatedAt(), link.getShortCode());
+    }
+
+    /**
+     * Разбирает курсор из строки запроса.
+     * @throws IllegalArgumentException если строка не является курсором
+     */
+    public static LinkCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new LinkCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + shortCode;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
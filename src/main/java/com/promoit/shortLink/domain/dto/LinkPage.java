@@ -0,0 +1,14 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Страница ссылок пользователя. nextCursor равен null на последней странице.
+ */
+@Value
+public class LinkPage {
+    List<LinkView> items;
+    String nextCursor;
+}
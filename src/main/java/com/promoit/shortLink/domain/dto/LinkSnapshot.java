@@ -0,0 +1,43 @@
+package com.promoit.shortLink.domain.dto;
+
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемый снимок полей ссылки, необходимых для редиректа.
+ * Хранится в кэше вместо сущности, чтобы не держать в памяти граф JPA-объектов.
+ */
+@Value
+public class LinkSnapshot {
+    String shortCode;
+    String originalUrl;
+    String userId;
+    Integer clickLimit;
+    LocalDateTime expiresAt;
+    LocalDateTime createdAt;
+
+    /**
+     * Создает снимок из сущности ссылки.
+     */
+    public static LinkSnapshot from(LinkEntity link) {
+        String userId = link.getUser() == null ? null : link.getUser().getId();
+        return new LinkSnapshot(link.getShortCode(), link.getOriginalUrl(), userId, link.getClickLimit(),
+                link.getExpiresAt(), link.getCreatedAt());
+    }
+
+    /**
+     * Проверяет, истек ли срок действия ссылки.
+     */
+    public boolean isExpired() {
+        return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+    }
+
+    /**
+     * Проверяет, что у ссылки нет лимита переходов.
+     */
+    public boolean isUnlimited() {
+        return clickLimit == null;
+    }
+}
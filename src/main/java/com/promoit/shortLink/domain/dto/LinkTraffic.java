@@ -0,0 +1,16 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.Value;
+
+/**
+ * Живая статистика переходов по ссылке: суммы за последнюю минуту и час и ряды по секундам и минутам
+ * от самых старых к текущей.
+ */
+@Value
+public class LinkTraffic {
+    String shortCode;
+    long lastMinute;
+    long lastHour;
+    long[] perSecond;
+    long[] perMinute;
+}
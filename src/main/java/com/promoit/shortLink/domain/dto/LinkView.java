@@ -0,0 +1,26 @@
+package com.promoit.shortLink.domain.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция ссылки для списков пользователя. Читается конструктором в JPQL без загрузки сущности и владельца.
+ */
+@Value
+public class LinkView {
+    String shortCode;
+    String originalUrl;
+    Integer clickLimit;
+    Integer clickCount;
+    LocalDateTime createdAt;
+    LocalDateTime expiresAt;
+
+    /**
+     * Проверяет, доступна ли ссылка для перехода.
+     */
+    public boolean isActive() {
+        boolean expired = expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+        return !expired && (clickLimit == null || clickCount < clickLimit);
+    }
+}
@@ -1,10 +1,15 @@
 package com.promoit.shortLink.domain.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.promoit.shortLink.cache.LinkChangeListener;
+import com.promoit.shortLink.dedup.UrlFingerprint;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
@@ -12,7 +17,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Data
 @Entity
-public class LinkEntity {
+@Table(indexes = {
+        @Index(name = "idx_link_user_created", columnList = "user_id, createdAt, shortCode"),
+        @Index(name = "idx_link_user_url_hash", columnList = "user_id, urlHash"),
+        @Index(name = "idx_link_expires", columnList = "expiresAt, shortCode")
+})
+@DynamicUpdate
+@EntityListeners(LinkChangeListener.class)
+public class LinkEntity implements Persistable<String> {
     @Id
     private String shortCode;
     @Column(nullable = false, length = 2048)
@@ -25,6 +37,11 @@ public class LinkEntity {
     @Column(nullable = false)
     private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
+    @JsonIgnore
+    private Long urlHash;
+    @Transient
+    @JsonIgnore
+    private boolean persisted;
 
     public LinkEntity(String shortCode, String originalUrl, UserEntity user, Integer clickLimit, LocalDateTime expiresAt) {
         this.shortCode = shortCode;
@@ -35,6 +52,38 @@ public class LinkEntity {
         this.expiresAt = expiresAt;
     }
 
+    @Override
+    @JsonIgnore
+    public String getId() {
+        return shortCode;
+    }
+
+    /**
+     * Новая ссылка сохраняется через persist, а не merge: код назначается приложением,
+     * поэтому без этого save выполнял бы лишний SELECT и мог молча перезаписать ссылку с тем же кодом.
+     */
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    /**
+     * Отпечаток нормализованного URL для режима дедупликации app.link.dedup.
+     */
+    @PrePersist
+    void fingerprintUrl() {
+        if (urlHash == null && originalUrl != null) {
+            urlHash = UrlFingerprint.hash(originalUrl);
+        }
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
     /**
      * Проверяет, истек ли срок действия ссылки.
      */
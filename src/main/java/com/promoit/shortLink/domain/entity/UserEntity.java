@@ -4,7 +4,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
 import lombok.Data;
+import org.springframework.data.domain.Persistable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -13,7 +17,7 @@ import java.util.UUID;
 @Data
 @Entity
 
-public class UserEntity {
+public class UserEntity implements Persistable<String> {
     @Id
     private String id;
 
@@ -21,7 +25,27 @@ public class UserEntity {
     @JsonIgnore
     private List<LinkEntity> links = new ArrayList<>();
 
+    @Transient
+    @JsonIgnore
+    private boolean persisted;
+
     public UserEntity() {
         this.id = UUID.randomUUID().toString();
     }
+
+    /**
+     * Новый пользователь сохраняется через persist: идентификатор назначается приложением,
+     * поэтому без этого save выполнял бы лишний SELECT перед вставкой.
+     */
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package com.promoit.shortLink.domain.repository;
 
+import com.promoit.shortLink.domain.dto.ActiveLinkView;
+import com.promoit.shortLink.domain.dto.ExpiredLinkView;
+import com.promoit.shortLink.domain.dto.LinkView;
 import com.promoit.shortLink.domain.entity.LinkEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,13 +20,96 @@ public interface LinkRepository extends JpaRepository<LinkEntity, String> {
 
     Optional<LinkEntity> findByShortCode(String shortCode);
 
-    List<LinkEntity> findByUserId(String userId);
+    /**
+     * Активные ссылки пользователя с тем же отпечатком URL и тем же лимитом переходов (кандидаты для дедупликации).
+     * Отпечаток может совпасть у разных URL, поэтому вызывающий сравнивает нормализованные URL.
+     */
+    @Query("SELECT l FROM LinkEntity l WHERE l.user.id = :userId AND l.urlHash = :urlHash " +
+            "AND ((:clickLimit IS NULL AND l.clickLimit IS NULL) OR l.clickLimit = :clickLimit) " +
+            "AND (l.expiresAt IS NULL OR l.expiresAt > :now) " +
+            "AND (l.clickLimit IS NULL OR l.clickCount < l.clickLimit) " +
+            "ORDER BY l.createdAt DESC")
+    List<LinkEntity> findDedupCandidates(@Param("userId") String userId, @Param("urlHash") long urlHash,
+                                         @Param("clickLimit") Integer clickLimit, @Param("now") LocalDateTime now,
+                                         Pageable pageable);
+
+    /**
+     * Страница ссылок пользователя после позиции (afterCreatedAt, afterCode) в порядке (createdAt, shortCode).
+     * Возвращает проекции без загрузки сущностей; null в afterCreatedAt означает первую страницу.
+     * activeOnly оставляет неистекшие ссылки с неисчерпанным лимитом, expiresBefore - истекающие раньше момента.
+     */
+    @Query("SELECT new com.promoit.shortLink.domain.dto.LinkView(l.shortCode, l.originalUrl, l.clickLimit, l.clickCount, " +
+            "l.createdAt, l.expiresAt) FROM LinkEntity l WHERE l.user.id = :userId " +
+            "AND (:afterCreatedAt IS NULL OR l.createdAt > :afterCreatedAt " +
+            "OR (l.createdAt = :afterCreatedAt AND l.shortCode > :afterCode)) " +
+            "AND (:activeOnly = false OR ((l.expiresAt IS NULL OR l.expiresAt > :now) " +
+            "AND (l.clickLimit IS NULL OR l.clickCount < l.clickLimit))) " +
+            "AND (:expiresBefore IS NULL OR l.expiresAt < :expiresBefore) " +
+            "ORDER BY l.createdAt, l.shortCode")
+    List<LinkView> findUserLinksAfter(@Param("userId") String userId,
+                                      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                      @Param("afterCode") String afterCode,
+                                      @Param("activeOnly") boolean activeOnly,
+                                      @Param("now") LocalDateTime now,
+                                      @Param("expiresBefore") LocalDateTime expiresBefore,
+                                      Pageable pageable);
+
+    /**
+     * Атомарно резервирует переходы по ссылке одним UPDATE-запросом: счетчик увеличивается,
+     * только если ссылка не истекла и после увеличения не превысит лимит.
+     * @return 1 если переходы зарезервированы, 0 если ссылка не найдена, истекла или лимит исчерпан
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE LinkEntity l SET l.clickCount = l.clickCount + :clicks WHERE l.shortCode = :shortCode " +
+            "AND (l.expiresAt IS NULL OR l.expiresAt > :now) " +
+            "AND (l.clickLimit IS NULL OR l.clickCount + :clicks <= l.clickLimit)")
+    int reserveClicks(@Param("shortCode") String shortCode, @Param("clicks") int clicks, @Param("now") LocalDateTime now);
 
     @Transactional
     @Modifying
-    @Query("DELETE FROM LinkEntity l WHERE l.expiresAt < :now")
-    int deleteExpiredLinks(@Param("now") LocalDateTime now);
+    @Query("UPDATE LinkEntity l SET l.clickCount = l.clickCount - :clicks WHERE l.shortCode = :shortCode")
+    int releaseClicks(@Param("shortCode") String shortCode, @Param("clicks") int clicks);
+
+    @Query("SELECT l.shortCode FROM LinkEntity l WHERE l.shortCode > :after " +
+            "AND (l.expiresAt IS NULL OR l.expiresAt > :now) ORDER BY l.shortCode")
+    List<String> findActiveShortCodesAfter(@Param("after") String after, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Страница действующих ссылок с кодом больше after в порядке кода, без загрузки сущностей.
+     */
+    @Query("SELECT new com.promoit.shortLink.domain.dto.ActiveLinkView(l.shortCode, l.originalUrl, u.id, l.clickLimit, " +
+            "l.clickCount, l.expiresAt, l.createdAt) FROM LinkEntity l LEFT JOIN l.user u WHERE l.shortCode > :after " +
+            "AND (l.expiresAt IS NULL OR l.expiresAt > :now) " +
+            "AND (l.clickLimit IS NULL OR l.clickCount < l.clickLimit) ORDER BY l.shortCode")
+    List<ActiveLinkView> findActiveLinksAfter(@Param("after") String after, @Param("now") LocalDateTime now, Pageable pageable);
 
-    @Query("SELECT l FROM LinkEntity l WHERE l.expiresAt < :now")
-    List<LinkEntity> findByExpiresAtBefore(@Param("now") LocalDateTime now);
+    @Query("SELECT l.shortCode FROM LinkEntity l WHERE l.shortCode IN :shortCodes")
+    List<String> findExistingShortCodes(@Param("shortCodes") Collection<String> shortCodes);
+
+    @Query("SELECT COUNT(l) FROM LinkEntity l WHERE (l.expiresAt IS NULL OR l.expiresAt > :now) " +
+            "AND (l.clickLimit IS NULL OR l.clickCount < l.clickLimit)")
+    long countActive(@Param("now") LocalDateTime now);
+
+    @Query("SELECT COUNT(l) FROM LinkEntity l WHERE l.expiresAt > :from AND l.expiresAt <= :to")
+    long countExpiringBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Страница истекших ссылок после позиции (afterExpiresAt, afterCode) в порядке (expiresAt, shortCode),
+     * совпадающем с индексом idx_link_expires; null в afterExpiresAt означает первую страницу.
+     */
+    @Query("SELECT new com.promoit.shortLink.domain.dto.ExpiredLinkView(l.shortCode, l.user.id, l.expiresAt) " +
+            "FROM LinkEntity l WHERE l.expiresAt < :now " +
+            "AND (:afterExpiresAt IS NULL OR l.expiresAt > :afterExpiresAt " +
+            "OR (l.expiresAt = :afterExpiresAt AND l.shortCode > :afterCode)) " +
+            "ORDER BY l.expiresAt, l.shortCode")
+    List<ExpiredLinkView> findExpiredLinks(@Param("now") LocalDateTime now,
+                                           @Param("afterExpiresAt") LocalDateTime afterExpiresAt,
+                                           @Param("afterCode") String afterCode,
+                                           Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LinkEntity l WHERE l.expiresAt < :now AND l.shortCode IN :shortCodes")
+    int deleteExpiredLinks(@Param("now") LocalDateTime now, @Param("shortCodes") Collection<String> shortCodes);
 }
\ No newline at end of file
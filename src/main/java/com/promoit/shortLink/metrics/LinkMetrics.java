@@ -0,0 +1,211 @@
+package com.promoit.shortLink.metrics;
+
+import com.promoit.shortLink.cache.LinkCache;
+import com.promoit.shortLink.cache.LinkCacheSnapshot;
+import com.promoit.shortLink.cache.OffHeapLinkTable;
+import com.promoit.shortLink.cache.ShortCodeBloomFilter;
+import com.promoit.shortLink.click.ClickCounterBuffer;
+import com.promoit.shortLink.click.ClickEventLog;
+import com.promoit.shortLink.click.LinkTrafficStats;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import com.promoit.shortLink.ratelimit.RateLimiter;
+import com.promoit.shortLink.service.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Метрики сервиса для Prometheus. Теги ограничены результатом операции (ok, gone, not_found),
+ * код ссылки в теги не попадает, чтобы число временных рядов не росло вместе с числом ссылок.
+ * Счетчики и таймеры создаются один раз при старте, на горячем пути выполняется только запись значения.
+ */
+@Slf4j
+@Component
+public class LinkMetrics {
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private LinkCache linkCache;
+    @Autowired
+    private LinkCacheSnapshot linkCacheSnapshot;
+    @Autowired
+    private OffHeapLinkTable offHeapLinkTable;
+    @Autowired
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+    @Autowired
+    private ClickCounterBuffer clickCounterBuffer;
+    @Autowired
+    private ClickEventLog clickEventLog;
+    @Autowired
+    private LinkTrafficStats linkTrafficStats;
+    @Autowired
+    private RateLimiter rateLimiter;
+    @Autowired
+    private NotificationService notificationService;
+
+    private final Map<LinkAccessResult.Status, Timer> redirectTimers = new EnumMap<>(LinkAccessResult.Status.class);
+    private final Map<LinkAccessResult.Status, Counter> redirectCounters = new EnumMap<>(LinkAccessResult.Status.class);
+    private final AtomicLong activeLinks = new AtomicLong();
+    private final AtomicLong expiringLinks = new AtomicLong();
+    private Timer createTimer;
+    private Counter createDeduplicated;
+    private Timer cleanupTimer;
+    private Counter cleanupRemoved;
+
+    @PostConstruct
+    void init() {
+        for (LinkAccessResult.Status status : LinkAccessResult.Status.values()) {
+            String outcome = status.name().toLowerCase(Locale.ROOT);
+            redirectTimers.put(status, Timer.builder("shortlink.redirect")
+                    .description("Latency of GET /{shortCode}")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            redirectCounters.put(status, Counter.builder("shortlink.redirects")
+                    .description("Redirect requests by outcome")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        createTimer = Timer.builder("shortlink.create")
+                .description("Latency of POST /shorten")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        createDeduplicated = Counter.builder("shortlink.create.deduplicated")
+                .description("Create requests answered with an existing link")
+                .register(meterRegistry);
+        cleanupTimer = Timer.builder("shortlink.cleanup.duration")
+                .description("Duration of scheduled expired link cleanup")
+                .register(meterRegistry);
+        cleanupRemoved = Counter.builder("shortlink.cleanup.removed")
+                .description("Expired links removed by scheduled cleanup")
+                .register(meterRegistry);
+
+        Gauge.builder("shortlink.links.active", activeLinks, AtomicLong::get)
+                .description("Links that are not expired and have clicks left")
+                .register(meterRegistry);
+        Gauge.builder("shortlink.links.expiring", expiringLinks, AtomicLong::get)
+                .description("Links expiring within the next hour")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("shortlink.cache.hits", linkCache, cache -> cache.stats().hitCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("shortlink.cache.misses", linkCache, cache -> cache.stats().missCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("shortlink.cache.evictions", linkCache, cache -> cache.stats().evictionCount())
+                .register(meterRegistry);
+        Gauge.builder("shortlink.cache.size", linkCache, LinkCache::size)
+                .register(meterRegistry);
+        Gauge.builder("shortlink.cache.snapshot.entries", linkCacheSnapshot, LinkCacheSnapshot::getLastWrittenEntries)
+                .description("Links in the last written cache snapshot")
+                .register(meterRegistry);
+        Gauge.builder("shortlink.cache.snapshot.size", linkCacheSnapshot, LinkCacheSnapshot::getLastWrittenBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("shortlink.cache.snapshot.loaded", linkCacheSnapshot, LinkCacheSnapshot::getLastLoadedEntries)
+                .description("Links warmed into the cache from the snapshot at startup")
+                .register(meterRegistry);
+        Gauge.builder("shortlink.cache.snapshot.load.duration", linkCacheSnapshot, LinkCacheSnapshot::getLastLoadMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("shortlink.link_table.size", offHeapLinkTable, OffHeapLinkTable::size)
+                .description("Links in the off-heap link table")
+                .register(meterRegistry);
+        Gauge.builder("shortlink.link_table.memory", offHeapLinkTable, OffHeapLinkTable::getMemoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("shortlink.link_table.live", offHeapLinkTable, OffHeapLinkTable::getLiveBytes)
+                .description("Bytes of live records in the off-heap link table, without index and dead records")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("shortlink.bloom.short_circuited", shortCodeBloomFilter, ShortCodeBloomFilter::getShortCircuitedCount)
+                .register(meterRegistry);
+        Gauge.builder("shortlink.clicks.pending", clickCounterBuffer, ClickCounterBuffer::pendingCount)
+                .register(meterRegistry);
+        Gauge.builder("shortlink.click_log.pending", clickEventLog, ClickEventLog::pendingCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("shortlink.click_log.dropped", clickEventLog, ClickEventLog::getDroppedCount)
+                .register(meterRegistry);
+        Gauge.builder("shortlink.traffic.tracked", linkTrafficStats, LinkTrafficStats::size)
+                .description("Links with live traffic stats in memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("shortlink.traffic.rejected", linkTrafficStats, LinkTrafficStats::getRejectedCount)
+                .register(meterRegistry);
+        for (RateLimiter.Scope scope : RateLimiter.Scope.values()) {
+            FunctionCounter.builder("shortlink.ratelimit.rejected", rateLimiter, limiter -> limiter.getRejectedCount(scope))
+                    .description("Requests answered with 429 by limit scope")
+                    .tag("scope", scope.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("shortlink.ratelimit.buckets", rateLimiter, RateLimiter::bucketCount)
+                .register(meterRegistry);
+        Gauge.builder("shortlink.notifications.queue.depth", notificationService, NotificationService::getQueueDepth)
+                .register(meterRegistry);
+        Gauge.builder("shortlink.notifications.queue.lag", notificationService, NotificationService::getQueueLagMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        FunctionCounter.builder("shortlink.notifications.dropped", notificationService, NotificationService::getDroppedCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Записывает длительность и результат редиректа.
+     * @param status результат обращения к ссылке
+     * @param startNanos значение System.nanoTime() в начале обработки запроса
+     */
+    public void recordRedirect(LinkAccessResult.Status status, long startNanos) {
+        redirectTimers.get(status).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        redirectCounters.get(status).increment();
+    }
+
+    /**
+     * Записывает длительность создания короткой ссылки.
+     * @param startNanos значение System.nanoTime() в начале обработки запроса
+     */
+    public void recordCreate(long startNanos) {
+        createTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Учитывает создание ссылки, на которое вернулась уже существующая ссылка.
+     */
+    public void recordDeduplicated() {
+        createDeduplicated.increment();
+    }
+
+    /**
+     * Записывает длительность прогона очистки и число удаленных ссылок.
+     */
+    public void recordCleanup(long durationNanos, long removed) {
+        cleanupTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        cleanupRemoved.increment(removed);
+    }
+
+    /**
+     * Обновляет значения датчиков числа активных и скоро истекающих ссылок.
+     * Подсчет выполняется по расписанию, а не при каждом опросе Prometheus,
+     * чтобы частый сбор метрик не нагружал базу.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.metricsGaugeRefreshInterval}")
+    public void refreshLinkGauges() {
+        LocalDateTime now = LocalDateTime.now();
+        activeLinks.set(linkRepository.countActive(now));
+        expiringLinks.set(linkRepository.countExpiringBetween(now, now.plusHours(1)));
+    }
+}
@@ -0,0 +1,13 @@
+package com.promoit.shortLink.notification;
+
+/**
+ * Поведение очереди уведомлений при переполнении.
+ */
+public enum BackpressurePolicy {
+    /** Новое событие отбрасывается, если очередь заполнена. */
+    DROP,
+    /** Повторное событие по той же ссылке и владельцу сливается с ожидающим, при переполнении вытесняется самое старое. */
+    COALESCE,
+    /** Отправитель ждет освобождения места в очереди. */
+    BLOCK
+}
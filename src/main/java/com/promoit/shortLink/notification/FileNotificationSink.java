@@ -0,0 +1,70 @@
+package com.promoit.shortLink.notification;
+
+import com.promoit.shortLink.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Локальный канал для тестирования: дописывает уведомления построчно в файл app.notification.file.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.notification.sink", havingValue = "file")
+public class FileNotificationSink implements NotificationSink {
+    @Autowired
+    private AppConfig appConfig;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private BufferedWriter writer;
+
+    @PostConstruct
+    void init() throws IOException {
+        Path path = Path.of(appConfig.getNotificationFile());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log.info("Notification file sink writing to {}", path.toAbsolutePath());
+    }
+
+    @Override
+    public void deliver(List<LinkUnavailableEvent> events) {
+        lock.lock();
+        try {
+            for (LinkUnavailableEvent event : events) {
+                writer.write(Instant.ofEpochMilli(event.getCreatedAtMillis()) + "\t" + event.getUserId() + "\t" + event.message());
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        lock.lock();
+        try {
+            writer.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.promoit.shortLink.notification;
+
+import lombok.Value;
+
+/**
+ * Событие о недоступности ссылки, ожидающее доставки владельцу.
+ */
+@Value
+public class LinkUnavailableEvent {
+    String shortCode;
+    String userId;
+    String reason;
+    long createdAtMillis;
+
+    /**
+     * Ключ дедупликации: одна ссылка одного владельца.
+     */
+    public String key() {
+        return shortCode + '/' + userId;
+    }
+
+    /**
+     * Текст уведомления для владельца ссылки.
+     */
+    public String message() {
+        return String.format("Your short link %s is no longer available. Reason: %s", shortCode, reason);
+    }
+}
@@ -0,0 +1,20 @@
+package com.promoit.shortLink.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.notification.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingNotificationSink implements NotificationSink {
+
+    @Override
+    public void deliver(List<LinkUnavailableEvent> events) {
+        for (LinkUnavailableEvent event : events) {
+            log.info("User notification: {} - User: {}", event.message(), event.getUserId());
+        }
+    }
+}
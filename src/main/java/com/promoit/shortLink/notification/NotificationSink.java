@@ -0,0 +1,16 @@
+package com.promoit.shortLink.notification;
+
+import java.util.List;
+
+/**
+ * Канал доставки уведомлений (лог, файл, webhook, почта, очередь).
+ * Реализация выбирается настройкой app.notification.sink.
+ */
+public interface NotificationSink {
+
+    /**
+     * Доставляет пачку уведомлений. Вызывается только из фонового диспетчера.
+     * @param events уведомления без дубликатов по ссылке и владельцу
+     */
+    void deliver(List<LinkUnavailableEvent> events);
+}
@@ -0,0 +1,63 @@
+package com.promoit.shortLink.ratelimit;
+
+import com.promoit.shortLink.config.AppConfig;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Применяет {@link RateLimiter} к POST /shorten и GET /{shortCode}.
+ * Превышение лимита - 429 с Retry-After в секундах. Остальные запросы не ограничиваются.
+ * POST /shorten/batch здесь не списывается: его ссылки считаются порциями по мере разбора тела
+ * в {@link com.promoit.shortLink.service.BatchLinkService} по пакетным корзинам {@link RateLimiter#checkBatch}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    static final String RATE_LIMITED_MESSAGE = "Rate limit exceeded";
+
+    @Autowired
+    private RateLimiter rateLimiter;
+    @Autowired
+    private AppConfig appConfig;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !appConfig.isRateLimitEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        long waitNanos = 0;
+        if (HttpMethod.POST.matches(request.getMethod()) && path.equals("/shorten")) {
+            waitNanos = rateLimiter.checkShorten(request.getHeader("X-User-ID"), request.getRemoteAddr());
+        } else if (HttpMethod.GET.matches(request.getMethod()) && isRedirect(path)) {
+            waitNanos = rateLimiter.checkRedirect(request.getRemoteAddr());
+        }
+        if (waitNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitNanos + 999_999_999L) / 1_000_000_000L));
+            response.getWriter().write(RATE_LIMITED_MESSAGE);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Редирект - путь из одного сегмента, кроме служебных страниц.
+     */
+    private static boolean isRedirect(String path) {
+        return path.length() > 1 && path.indexOf('/', 1) < 0 && !path.equals("/favicon.ico")
+                && !path.startsWith("/h2-console") && !path.startsWith("/actuator");
+    }
+}
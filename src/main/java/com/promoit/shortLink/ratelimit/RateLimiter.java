@@ -0,0 +1,176 @@
+package com.promoit.shortLink.ratelimit;
+
+import com.promoit.shortLink.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничения частоты запросов на создание ссылок и редиректы: по пользователю (X-User-ID), по IP клиента
+ * и общее. Запрос проходит, только если токен есть во всех корзинах; токены, взятые до отказа
+ * следующей корзины, возвращаются. Пакетное создание списывает по токену на ссылку из своих корзин
+ * с большей емкостью, чтобы импорт тысяч ссылок не упирался в лимит одиночных запросов.
+ * Лимиты настраиваются в app.rate-limit.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+    private static final String GLOBAL_KEY = "";
+
+    /**
+     * Ограничение, отклонившее запрос.
+     */
+    public enum Scope {
+        USER, IP, GLOBAL
+    }
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private TokenBucketLimiter shortenUser;
+    private TokenBucketLimiter shortenIp;
+    private TokenBucketLimiter shortenGlobal;
+    private TokenBucketLimiter batchUser;
+    private TokenBucketLimiter batchIp;
+    private TokenBucketLimiter redirectIp;
+    private TokenBucketLimiter redirectGlobal;
+    private final Map<Scope, LongAdder> rejected = new EnumMap<>(Scope.class);
+
+    @PostConstruct
+    void init() {
+        shortenUser = new TokenBucketLimiter(appConfig.getRateLimitShortenUserRate(), appConfig.getRateLimitShortenUserBurst());
+        shortenIp = new TokenBucketLimiter(appConfig.getRateLimitShortenIpRate(), appConfig.getRateLimitShortenIpBurst());
+        shortenGlobal = new TokenBucketLimiter(appConfig.getRateLimitShortenGlobalRate(), appConfig.getRateLimitShortenGlobalBurst());
+        batchUser = new TokenBucketLimiter(appConfig.getRateLimitBatchUserRate(), batchBurst(appConfig.getRateLimitBatchUserBurst()));
+        batchIp = new TokenBucketLimiter(appConfig.getRateLimitBatchIpRate(), batchBurst(appConfig.getRateLimitBatchIpBurst()));
+        redirectIp = new TokenBucketLimiter(appConfig.getRateLimitRedirectIpRate(), appConfig.getRateLimitRedirectIpBurst());
+        redirectGlobal = new TokenBucketLimiter(appConfig.getRateLimitRedirectGlobalRate(), appConfig.getRateLimitRedirectGlobalBurst());
+        for (Scope scope : Scope.values()) {
+            rejected.put(scope, new LongAdder());
+        }
+    }
+
+    /**
+     * Проверяет лимиты на создание ссылок.
+     * @param userId   идентификатор пользователя из X-User-ID (null для анонимных запросов)
+     * @param clientIp IP клиента
+     * @return 0 если запрос разрешен, иначе через сколько наносекунд его можно повторить
+     */
+    public long checkShorten(String userId, String clientIp) {
+        long now = System.nanoTime();
+        long wait = shortenIp.tryAcquire(clientIp, now);
+        if (wait > 0) {
+            return reject(Scope.IP, wait);
+        }
+        if (userId != null) {
+            wait = shortenUser.tryAcquire(userId, now);
+            if (wait > 0) {
+                shortenIp.refund(clientIp);
+                return reject(Scope.USER, wait);
+            }
+        }
+        wait = shortenGlobal.tryAcquire(GLOBAL_KEY, now);
+        if (wait > 0) {
+            shortenIp.refund(clientIp);
+            if (userId != null) {
+                shortenUser.refund(userId);
+            }
+            return reject(Scope.GLOBAL, wait);
+        }
+        return 0;
+    }
+
+    /**
+     * Проверяет лимиты пакетного создания (POST /shorten/batch) для очередной порции ссылок.
+     * Емкость корзин не меньше размера порции, поэтому порция отклоняется, только если лимит действительно исчерпан.
+     * @param userId   идентификатор пользователя из X-User-ID (null для анонимных запросов)
+     * @param clientIp IP клиента
+     * @param links    количество ссылок в порции
+     * @return 0 если порция разрешена, иначе через сколько наносекунд ее можно повторить
+     */
+    public long checkBatch(String userId, String clientIp, int links) {
+        long now = System.nanoTime();
+        long wait = batchIp.tryAcquire(clientIp, links, now);
+        if (wait > 0) {
+            return reject(Scope.IP, wait);
+        }
+        if (userId != null) {
+            wait = batchUser.tryAcquire(userId, links, now);
+            if (wait > 0) {
+                batchIp.refund(clientIp, links);
+                return reject(Scope.USER, wait);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Проверяет лимиты на редиректы.
+     * @param clientIp IP клиента
+     * @return 0 если запрос разрешен, иначе через сколько наносекунд его можно повторить
+     */
+    public long checkRedirect(String clientIp) {
+        long now = System.nanoTime();
+        long wait = redirectIp.tryAcquire(clientIp, now);
+        if (wait > 0) {
+            return reject(Scope.IP, wait);
+        }
+        wait = redirectGlobal.tryAcquire(GLOBAL_KEY, now);
+        if (wait > 0) {
+            redirectIp.refund(clientIp);
+            return reject(Scope.GLOBAL, wait);
+        }
+        return 0;
+    }
+
+    /**
+     * Удаляет полные корзины неактивных пользователей и адресов.
+     * Интервал настраивается в app.rate-limit.eviction-interval.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.rateLimitEvictionInterval}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = shortenUser.evictIdle(now) + shortenIp.evictIdle(now) + batchUser.evictIdle(now)
+                + batchIp.evictIdle(now) + redirectIp.evictIdle(now);
+        if (evicted > 0) {
+            log.debug("RATELIMIT - Evicted {} idle buckets, {} left", evicted, bucketCount());
+        }
+    }
+
+    /**
+     * Возвращает количество запросов, отклоненных ограничением.
+     */
+    public long getRejectedCount(Scope scope) {
+        return rejected.get(scope).sum();
+    }
+
+    /**
+     * Возвращает количество корзин пользователей и адресов в памяти.
+     */
+    public int bucketCount() {
+        return shortenUser.size() + shortenIp.size() + batchUser.size() + batchIp.size() + redirectIp.size();
+    }
+
+    /**
+     * Емкость пакетной корзины не меньше размера порции app.link.batch-chunk-size.
+     */
+    private int batchBurst(int burst) {
+        int chunkSize = appConfig.getBatchChunkSize();
+        if (burst < chunkSize) {
+            log.warn("RATELIMIT - Batch burst {} is below batch-chunk-size {}, using {}", burst, chunkSize, chunkSize);
+            return chunkSize;
+        }
+        return burst;
+    }
+
+    private long reject(Scope scope, long waitNanos) {
+        rejected.get(scope).increment();
+        return waitNanos;
+    }
+}
@@ -0,0 +1,124 @@
+package com.promoit.shortLink.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Набор корзин токенов по ключу (пользователь, IP). Состояние корзины хранится в одном long -
+ * теоретическое время прихода следующего запроса (GCRA): каждый запрос сдвигает его на интервал 1/rate,
+ * запрос отклоняется, если сдвиг уходит в будущее дальше емкости корзины. Это эквивалентно корзине токенов
+ * со скоростью пополнения rate и емкостью burst, но обновляется одним CAS без блокировок.
+ * Корзина, время которой уже прошло, полна и ничем не отличается от отсутствующей, поэтому такие корзины
+ * удаляются при {@link #evictIdle(long)} без потери состояния. Удаляемая корзина помечается значением
+ * {@link #EVICTED}, и запрос, успевший ее получить, берет из карты новую вместо того, чтобы обновить удаленную.
+ */
+public class TokenBucketLimiter {
+    private static final long EVICTED = Long.MAX_VALUE;
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final boolean enabled;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param ratePerSecond скорость пополнения корзины в запросах в секунду, 0 или меньше - без ограничения
+     * @param burst         емкость корзины - сколько запросов подряд разрешено после простоя
+     */
+    public TokenBucketLimiter(double ratePerSecond, int burst) {
+        this.enabled = ratePerSecond > 0;
+        this.intervalNanos = enabled ? Math.max(1, (long) (1_000_000_000L / ratePerSecond)) : 0;
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * Забирает токен из корзины ключа.
+     * @param key      ключ корзины
+     * @param nowNanos текущее значение System.nanoTime()
+     * @return 0 если запрос разрешен, иначе через сколько наносекунд появится токен
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        return tryAcquire(key, 1, nowNanos);
+    }
+
+    /**
+     * Забирает несколько токенов из корзины ключа. Запрос больше емкости корзины пропускается только
+     * из полной корзины и уводит ее в долг: следующие запросы ждут, пока долг не погасится со скоростью rate.
+     * @param key      ключ корзины
+     * @param permits  количество токенов
+     * @param nowNanos текущее значение System.nanoTime()
+     * @return 0 если запрос разрешен, иначе через сколько наносекунд его можно повторить
+     */
+    public long tryAcquire(String key, int permits, long nowNanos) {
+        if (!enabled || permits <= 0) {
+            return 0;
+        }
+        long cost = intervalNanos * permits;
+        while (true) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+            }
+            long stored = bucket.get();
+            if (stored == EVICTED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long start = Math.max(stored, nowNanos);
+            long ahead = start + cost - nowNanos;
+            if (ahead > toleranceNanos && start > nowNanos) {
+                return Math.min(ahead - toleranceNanos, start - nowNanos);
+            }
+            if (bucket.compareAndSet(stored, start + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Возвращает токен, взятый запросом, который затем был отклонен другим ограничением.
+     */
+    public void refund(String key) {
+        refund(key, 1);
+    }
+
+    /**
+     * Возвращает токены, взятые запросом, который затем был отклонен другим ограничением.
+     */
+    public void refund(String key, int permits) {
+        if (!enabled || permits <= 0) {
+            return;
+        }
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            long cost = intervalNanos * permits;
+            bucket.getAndUpdate(stored -> stored == EVICTED ? stored : stored - cost);
+        }
+    }
+
+    /**
+     * Удаляет полные корзины, по которым давно не было запросов. Корзина проверяется и удаляется
+     * атомарно в computeIfPresent; одновременно обновленная запросом корзина остается.
+     * @return количество удаленных корзин
+     */
+    public int evictIdle(long nowNanos) {
+        int evicted = 0;
+        for (String key : buckets.keySet()) {
+            if (buckets.computeIfPresent(key, (k, bucket) -> isIdle(bucket, nowNanos) ? null : bucket) == null) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private static boolean isIdle(AtomicLong bucket, long nowNanos) {
+        long stored = bucket.get();
+        return (stored == Long.MIN_VALUE || stored - nowNanos <= 0) && bucket.compareAndSet(stored, EVICTED);
+    }
+
+    /**
+     * Возвращает количество корзин в памяти.
+     */
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,135 @@
+package com.promoit.shortLink.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.BatchShortenItem;
+import com.promoit.shortLink.domain.dto.BatchShortenResult;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Потоковое массовое создание ссылок. Элементы читаются из JSON-массива или NDJSON по одному,
+ * копятся в порции по app.link.batch-chunk-size и сохраняются {@link LinkService#createShortLinks(List, UserEntity)}.
+ * Результаты пишутся в ответ построчно (NDJSON) после фиксации каждой порции, в порядке входных элементов.
+ * Перед сохранением порция списывает по токену лимита на каждую ссылку; при превышении лимита элементы порции
+ * получают ошибку с временем ожидания, и чтение прекращается - статус ответа к этому моменту уже отправлен.
+ */
+@Slf4j
+@Service
+public class BatchLinkService {
+    private static final byte NEWLINE = '\n';
+    static final String RATE_LIMITED_ERROR = "Rate limit exceeded, retry after %d s";
+
+    @Autowired
+    private LinkService linkService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AppConfig appConfig;
+
+    /**
+     * Читает элементы из входного потока и пишет результат по каждому элементу в выходной.
+     * Некорректный элемент дает строку с ошибкой и не прерывает пачку; поврежденный JSON завершает чтение.
+     * @param in тело запроса: JSON-массив или NDJSON объектов {"url": ..., "clickLimit": ...}
+     * @param out тело ответа в формате NDJSON
+     * @param user пользователь, создающий ссылки
+     * @param quota списывает лимит на указанное число ссылок: 0 если разрешено, иначе ожидание в наносекундах
+     */
+    public void shorten(InputStream in, OutputStream out, UserEntity user, IntToLongFunction quota) throws IOException {
+        int chunkSize = appConfig.getBatchChunkSize();
+        List<BatchShortenItem> chunk = new ArrayList<>(chunkSize);
+        long index = 0;
+        long created = 0;
+        try (MappingIterator<BatchShortenItem> items = objectMapper.readerFor(BatchShortenItem.class).readValues(in)) {
+            while (true) {
+                BatchShortenItem item;
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+                    item = items.nextValue();
+                } catch (JsonMappingException e) {
+                    long flushed = flush(chunk, index - chunk.size(), user, out, quota);
+                    if (flushed < 0) {
+                        break;
+                    }
+                    created += flushed;
+                    write(out, BatchShortenResult.failed(null, "Invalid item: " + e.getOriginalMessage()).withIndex(index++));
+                    continue;
+                } catch (JsonProcessingException e) {
+                    created += Math.max(0, flush(chunk, index - chunk.size(), user, out, quota));
+                    write(out, BatchShortenResult.failed(null, "Malformed input: " + e.getOriginalMessage()).withIndex(index));
+                    break;
+                }
+                chunk.add(item);
+                index++;
+                if (chunk.size() >= chunkSize) {
+                    long flushed = flush(chunk, index - chunk.size(), user, out, quota);
+                    if (flushed < 0) {
+                        break;
+                    }
+                    created += flushed;
+                }
+            }
+            created += Math.max(0, flush(chunk, index - chunk.size(), user, out, quota));
+        }
+        log.info("BATCH - Created {} of {} links for user {}", created, index, user.getId());
+    }
+
+    /**
+     * Сохраняет порцию и пишет ее результаты.
+     * @return количество созданных ссылок или -1, если порция отклонена лимитом и чтение нужно прекратить
+     */
+    private long flush(List<BatchShortenItem> chunk, long firstIndex, UserEntity user, OutputStream out,
+                       IntToLongFunction quota) throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        long waitNanos = quota.applyAsLong(chunk.size());
+        if (waitNanos > 0) {
+            String error = String.format(RATE_LIMITED_ERROR, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            for (int i = 0; i < chunk.size(); i++) {
+                write(out, BatchShortenResult.failed(chunk.get(i).getUrl(), error).withIndex(firstIndex + i));
+            }
+            out.flush();
+            chunk.clear();
+            return -1;
+        }
+        List<BatchShortenResult> results;
+        try {
+            results = linkService.createShortLinks(chunk, user);
+        } catch (RuntimeException e) {
+            log.warn("BATCH - Chunk of {} links failed: {}", chunk.size(), e.getMessage());
+            results = chunk.stream().map(item -> BatchShortenResult.failed(item.getUrl(), e.getMessage())).toList();
+        }
+        long created = 0;
+        for (int i = 0; i < results.size(); i++) {
+            BatchShortenResult result = results.get(i);
+            write(out, result.withIndex(firstIndex + i));
+            if (result.isSuccess()) {
+                created++;
+            }
+        }
+        out.flush();
+        chunk.clear();
+        return created;
+    }
+
+    private void write(OutputStream out, BatchShortenResult result) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(result));
+        out.write(NEWLINE);
+    }
+}
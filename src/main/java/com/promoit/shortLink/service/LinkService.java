@@ -1,42 +1,222 @@
 package com.promoit.shortLink.service;
 
+import com.promoit.shortLink.cache.LinkCache;
+import com.promoit.shortLink.cache.LinkChangeFeed;
+import com.promoit.shortLink.cache.ShortCodeBloomFilter;
+import com.promoit.shortLink.click.ClickCounterBuffer;
+import com.promoit.shortLink.click.ClickLeaseManager;
+import com.promoit.shortLink.click.LinkTrafficStats;
+import com.promoit.shortLink.code.ShortCodeGenerator;
 import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.dedup.UrlFingerprint;
+import com.promoit.shortLink.domain.dto.BatchShortenItem;
+import com.promoit.shortLink.domain.dto.BatchShortenResult;
+import com.promoit.shortLink.domain.dto.ExpiredLinkView;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.domain.dto.LinkCursor;
+import com.promoit.shortLink.domain.dto.LinkPage;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.dto.LinkView;
 import com.promoit.shortLink.domain.entity.LinkEntity;
 import com.promoit.shortLink.domain.entity.UserEntity;
 import com.promoit.shortLink.domain.repository.LinkRepository;
-import org.apache.commons.lang3.RandomStringUtils;
+import com.promoit.shortLink.metrics.LinkMetrics;
+import com.promoit.shortLink.sharding.ShardRouter;
+import com.promoit.shortLink.storage.LinkStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
-import static com.promoit.shortLink.utils.StringUtils.truncateUrl;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Slf4j
 @Service
 public class LinkService {
+    private static final String LINK_UNAVAILABLE = "Link is no longer available";
+    private static final int DEDUP_CANDIDATES = 8;
+
     @Autowired
     private LinkRepository linkRepository;
     @Autowired
     private NotificationService notificationService;
     @Autowired
+    private LinkStore linkStore;
+    @Autowired
+    private LinkCache linkCache;
+    @Autowired
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+    @Autowired
+    private ClickCounterBuffer clickCounterBuffer;
+    @Autowired
+    private ClickLeaseManager clickLeaseManager;
+    @Autowired
+    private LinkTrafficStats linkTrafficStats;
+    @Autowired
+    private ShortCodeGenerator shortCodeGenerator;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private LinkMetrics linkMetrics;
+    @Autowired
+    private LinkChangeFeed linkChangeFeed;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
     AppConfig appConfig;
 
     /**
      * Создает новую короткую ссылку для указанного URL, а также генерирует уникальный код и устанавливает срок действия.
+     * В режиме app.link.dedup возвращает существующую активную ссылку пользователя на тот же URL с тем же лимитом.
      * @param originalUrl оригинальный URL для сокращения
      * @param user пользователь, создающий ссылку
      * @param clickLimit лимит переходов (может быть null для бессрочного использования)
      * @return созданная сущность короткой ссылки
      */
     public LinkEntity createShortLink(String originalUrl, UserEntity user, Integer clickLimit) {
-        String shortCode = RandomStringUtils.secure().nextAlphanumeric(appConfig.getCodeLength());
+        if (appConfig.isLinkDedup()) {
+            Optional<LinkEntity> existing = findDuplicate(originalUrl, user, clickLimit);
+            if (existing.isPresent()) {
+                linkMetrics.recordDeduplicated();
+                return existing.get();
+            }
+        }
+        String shortCode = shortCodeGenerator.nextCode();
         LocalDateTime expiresAt = LocalDateTime.now().plusHours(appConfig.getDefaultTtlHours());
         LinkEntity link = new LinkEntity(shortCode, originalUrl, user, clickLimit, expiresAt);
-        return linkRepository.save(link);
+        userService.ensurePersisted(user);
+        LinkEntity saved = linkRepository.save(link);
+        linkStore.save(saved);
+        linkCache.put(LinkSnapshot.from(saved));
+        shortCodeBloomFilter.put(shortCode);
+        return saved;
+    }
+
+    /**
+     * Ищет активную ссылку пользователя на тот же нормализованный URL с тем же лимитом.
+     * Поиск идет по индексу (user_id, url_hash); без уникального ограничения параллельные одинаковые запросы
+     * могут создать две ссылки, это допустимо для best-effort дедупликации.
+     * Остаток переходов ссылки с лимитом проверяется еще и по таблице ссылок вне кучи и по аренде переходов:
+     * clickCount в базе при отложенной записи отстает, и исчерпанная ссылка могла бы вернуться как дубликат.
+     */
+    private Optional<LinkEntity> findDuplicate(String originalUrl, UserEntity user, Integer clickLimit) {
+        String normalized = UrlFingerprint.normalize(originalUrl);
+        return linkRepository.findDedupCandidates(user.getId(), UrlFingerprint.hash(originalUrl), clickLimit,
+                        LocalDateTime.now(), PageRequest.ofSize(DEDUP_CANDIDATES))
+                .stream()
+                .filter(candidate -> UrlFingerprint.normalize(candidate.getOriginalUrl()).equals(normalized))
+                .filter(candidate -> candidate.getClickLimit() == null || !linkCache.isExhausted(candidate.getShortCode())
+                        && !clickLeaseManager.isExhausted(candidate.getShortCode()))
+                .findFirst();
+    }
+
+    /**
+     * Создает порцию коротких ссылок пакетной вставкой в одной транзакции (saveAll, hibernate.jdbc.batch_size).
+     * Коды генерируются пачкой. Отложенный пользователь записывается до вставки, и если это не удалось,
+     * порция отклоняется целиком. Если порция не сохранилась целиком, ссылки сохраняются по одной,
+     * чтобы ошибка одного элемента не отменяла остальные. Созданные ссылки попадают только в фильтр Блума:
+     * массовое создание не должно вытеснять из кэша горячие ссылки.
+     * @param items элементы порции
+     * @param user пользователь, создающий ссылки
+     * @return результаты в порядке элементов порции
+     */
+    public List<BatchShortenResult> createShortLinks(List<BatchShortenItem> items, UserEntity user) {
+        BatchShortenResult[] results = new BatchShortenResult[items.size()];
+        List<Integer> positions = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String error = validate(items.get(i));
+            if (error != null) {
+                results[i] = BatchShortenResult.failed(items.get(i).getUrl(), error);
+            } else {
+                positions.add(i);
+            }
+        }
+        userService.ensurePersisted(user);
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(appConfig.getDefaultTtlHours());
+        List<String> codes = shortCodeGenerator.nextCodes(positions.size());
+        List<LinkEntity> links = new ArrayList<>(positions.size());
+        for (int k = 0; k < positions.size(); k++) {
+            BatchShortenItem item = items.get(positions.get(k));
+            links.add(new LinkEntity(codes.get(k), item.getUrl(), user, item.getClickLimit(), expiresAt));
+        }
+        try {
+            linkRepository.saveAll(links);
+            linkStore.saveAll(links);
+            for (int k = 0; k < links.size(); k++) {
+                results[positions.get(k)] = created(links.get(k));
+            }
+        } catch (RuntimeException e) {
+            log.warn("BATCH - Chunk of {} links failed, saving one by one: {}", links.size(), e.getMessage());
+            Set<String> saved = savedCodes(codes);
+            for (int k = 0; k < links.size(); k++) {
+                LinkEntity link = links.get(k);
+                results[positions.get(k)] = saved.contains(link.getShortCode())
+                        ? storeCreated(link)
+                        : createIndividually(items.get(positions.get(k)), user, expiresAt);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private String validate(BatchShortenItem item) {
+        if (item.getUrl() == null || item.getUrl().isBlank()) {
+            return "url is required";
+        }
+        if (item.getClickLimit() != null && item.getClickLimit() < 1) {
+            return "clickLimit must be positive";
+        }
+        return null;
+    }
+
+    /**
+     * Коды порции, уже записанные в базу. При нескольких шардах порция сохраняется отдельной транзакцией
+     * в каждом шарде, и ошибка одного шарда не отменяет записанное в других - такие ссылки не создаются повторно.
+     */
+    private Set<String> savedCodes(List<String> codes) {
+        try {
+            return new HashSet<>(linkRepository.findExistingShortCodes(codes));
+        } catch (RuntimeException e) {
+            return Set.of();
+        }
+    }
+
+    private BatchShortenResult storeCreated(LinkEntity link) {
+        try {
+            linkStore.save(link);
+            return created(link);
+        } catch (RuntimeException e) {
+            return BatchShortenResult.failed(link.getOriginalUrl(), e.getMessage());
+        }
+    }
+
+    private BatchShortenResult createIndividually(BatchShortenItem item, UserEntity user, LocalDateTime expiresAt) {
+        try {
+            LinkEntity link = new LinkEntity(shortCodeGenerator.nextCode(), item.getUrl(), user, item.getClickLimit(), expiresAt);
+            LinkEntity saved = linkRepository.save(link);
+            linkStore.save(saved);
+            return created(saved);
+        } catch (RuntimeException e) {
+            return BatchShortenResult.failed(item.getUrl(), e.getMessage());
+        }
+    }
+
+    private BatchShortenResult created(LinkEntity link) {
+        shortCodeBloomFilter.put(link.getShortCode());
+        return BatchShortenResult.created(link, buildShortUrl(link.getShortCode()));
     }
 
     /**
@@ -49,25 +229,96 @@ public class LinkService {
     }
 
     /**
-     * Проверяет доступность ссылки и увеличивает счетчик переходов при успешном доступе.
+     * Проверяет доступность ссылки и учитывает переход при успешном доступе.
+     * Коды, которых точно нет по фильтру Блума, отклоняются без обращения к базе.
+     * Снимок ссылки берется из кэша, переход учитывается методом {@link #registerClick(LinkSnapshot)}.
+     * Ссылки, исчерпанный лимит которых виден по таблице ссылок вне кучи, отклоняются без обращения к базе.
      * @param shortCode код короткой ссылки
-     * @return Optional с ссылкой если она доступна, иначе empty
+     * @return результат обращения: OK со снимком ссылки, GONE если ссылка недоступна, NOT_FOUND если ее нет
      */
-    @Transactional
-    public Optional<LinkEntity> accessLink(String shortCode) {
-        Optional<LinkEntity> linkOpt = linkRepository.findByShortCode(shortCode);
-        if (linkOpt.isPresent()) {
-            LinkEntity link = linkOpt.get();
-            if (link.canBeAccessed()) {
-                link.incrementClickCount();
-                linkRepository.save(link);
-                return Optional.of(link);
-            } else {
-                notificationService.notifyLinkUnavailable(link, "Link is no longer available");
-                return Optional.empty();
+    public LinkAccessResult accessLink(String shortCode) {
+        if (!shortCodeBloomFilter.mightContain(shortCode)) {
+            return LinkAccessResult.notFound();
+        }
+        Optional<LinkSnapshot> cached = linkCache.get(shortCode);
+        if (cached.isEmpty()) {
+            return LinkAccessResult.notFound();
+        }
+        LinkSnapshot snapshot = cached.get();
+        if (snapshot.isExpired() || !snapshot.isUnlimited() && linkCache.isExhausted(shortCode) || !registerClick(snapshot)) {
+            notificationService.notifyLinkUnavailable(snapshot.getShortCode(), snapshot.getUserId(), LINK_UNAVAILABLE);
+            return LinkAccessResult.gone(snapshot);
+        }
+        linkCache.recordClick(shortCode);
+        linkTrafficStats.record(shortCode);
+        return LinkAccessResult.ok(snapshot);
+    }
+
+    /**
+     * Неблокирующий вариант {@link #accessLink(String)}: возвращает результат, только если его можно получить
+     * без обращения к базе (код отсеян фильтром Блума, снимок есть в кэше или таблице ссылок вне кучи
+     * и переход учитывается в памяти).
+     * @param shortCode код короткой ссылки
+     * @return Optional с результатом или empty, если нужен блокирующий {@link #accessLink(String)}
+     */
+    public Optional<LinkAccessResult> accessLinkIfCached(String shortCode) {
+        if (!shortCodeBloomFilter.mightContain(shortCode)) {
+            return Optional.of(LinkAccessResult.notFound());
+        }
+        Optional<LinkSnapshot> cached = linkCache.getIfPresent(shortCode);
+        if (cached.isEmpty()) {
+            return Optional.empty();
+        }
+        LinkSnapshot snapshot = cached.get();
+        if (snapshot.isExpired() || !snapshot.isUnlimited() && linkCache.isExhausted(shortCode)) {
+            notificationService.notifyLinkUnavailable(snapshot.getShortCode(), snapshot.getUserId(), LINK_UNAVAILABLE);
+            return Optional.of(LinkAccessResult.gone(snapshot));
+        }
+        if (!appConfig.isClickWriteBehind()) {
+            return Optional.empty();
+        }
+        if (snapshot.isUnlimited()) {
+            clickCounterBuffer.increment(shortCode);
+        } else if (!clickLeaseManager.tryAcquireLocal(shortCode)) {
+            return Optional.empty();
+        }
+        linkCache.recordClick(shortCode);
+        linkTrafficStats.record(shortCode);
+        return Optional.of(LinkAccessResult.ok(snapshot));
+    }
+
+    /**
+     * Учитывает переход по ссылке. В режиме app.link.click-write-behind переходы по ссылкам без лимита
+     * накапливаются в памяти, а по ссылкам с лимитом списываются из арендованного в базе блока.
+     * Без него каждый переход резервируется в базе одним атомарным UPDATE.
+     * @return true если переход разрешен
+     */
+    private boolean registerClick(LinkSnapshot snapshot) {
+        String shortCode = snapshot.getShortCode();
+        if (!appConfig.isClickWriteBehind()) {
+            if (linkRepository.reserveClicks(shortCode, 1, LocalDateTime.now()) == 0) {
+                return false;
             }
+            linkStore.addClicks(shortCode, 1);
+            return true;
         }
-        return Optional.empty();
+        if (!snapshot.isUnlimited()) {
+            return clickLeaseManager.tryAcquire(shortCode);
+        }
+        clickCounterBuffer.increment(shortCode);
+        return true;
+    }
+
+    /**
+     * Проверяет, что пользователь является владельцем ссылки. Снимок ссылки берется из кэша.
+     * @param shortCode код ссылки
+     * @param userId идентификатор пользователя
+     * @return false если ссылка не найдена или принадлежит другому пользователю
+     */
+    public boolean isLinkOwner(String shortCode, String userId) {
+        return linkCache.get(shortCode)
+                .map(snapshot -> userId.equals(snapshot.getUserId()))
+                .orElse(false);
     }
 
     /**
@@ -81,6 +332,10 @@ public class LinkService {
         Optional<LinkEntity> linkOpt = linkRepository.findByShortCode(shortCode);
         if (linkOpt.isPresent() && linkOpt.get().getUser().getId().equals(userId)) {
             linkRepository.delete(linkOpt.get());
+            linkStore.delete(List.of(shortCode));
+            afterCommit(() -> linkCache.invalidate(shortCode));
+            clickLeaseManager.discard(List.of(shortCode));
+            linkTrafficStats.discard(List.of(shortCode));
             return true;
         }
         return false;
@@ -88,33 +343,67 @@ public class LinkService {
 
     /**
      * Автоматическая очистка просроченных ссылок по расписанию.
-     * Удаляет ссылки с истекшим TTL, логирует операции и уведомляет пользователей.
+     * Проходит по истекшим ссылкам порциями по ключу (expiresAt, shortCode), читая только нужные поля,
+     * и удаляет каждую порцию одним DELETE в отдельной транзакции каждого шарда, уведомляя владельцев.
+     * Удаленные коды порции записываются той же транзакцией в журнал изменений для других экземпляров.
+     * Потребление памяти ограничено размером порции (app.cleanup.chunk-size), а не числом истекших ссылок.
      * Интервал очистки настраивается в app.cleanup.interval (по умолчанию 1 час).
      */
-    @Transactional
     @Scheduled(fixedRateString = "#{@appConfig.cleanupInterval}")
     public void scheduledDeleteExpiredLinks() {
         log.info("Starting the removal of expired links on a schedule");
+        long startNanos = System.nanoTime();
         LocalDateTime now = LocalDateTime.now();
+        PageRequest chunk = PageRequest.ofSize(appConfig.getCleanupChunkSize());
+        LocalDateTime afterExpiresAt = null;
+        String afterCode = "";
+        long removed = 0;
+        int chunks = 0;
+        List<ExpiredLinkView> expiredLinks;
+        do {
+            expiredLinks = linkRepository.findExpiredLinks(now, afterExpiresAt, afterCode, chunk);
+            if (expiredLinks.isEmpty()) {
+                break;
+            }
+            List<String> shortCodes = expiredLinks.stream().map(ExpiredLinkView::getShortCode).toList();
+            removed += deleteExpiredChunk(now, shortCodes);
+            linkStore.delete(shortCodes);
+            linkCache.invalidateAll(shortCodes);
+            clickLeaseManager.discard(shortCodes);
+            linkTrafficStats.discard(shortCodes);
+            for (ExpiredLinkView link : expiredLinks) {
+                log.debug("CLEANUP - Removed link: {} (User: {}, Expired: {})",
+                        link.getShortCode(), link.getUserId(), link.getExpiresAt());
+                notificationService.notifyLinkUnavailable(link.getShortCode(), link.getUserId(), "Link expired automatically");
+            }
+            ExpiredLinkView last = expiredLinks.get(expiredLinks.size() - 1);
+            afterExpiresAt = last.getExpiresAt();
+            afterCode = last.getShortCode();
+            chunks++;
+            log.info("CLEANUP - Chunk {} done, removed {} links so far", chunks, removed);
+        } while (expiredLinks.size() == chunk.getPageSize());
+        linkMetrics.recordCleanup(System.nanoTime() - startNanos, removed);
 
-        List<LinkEntity> expiredLinks = linkRepository.findByExpiresAtBefore(now);
-
-        if (expiredLinks.isEmpty()) {
+        if (removed == 0) {
             log.info("CLEANUP - No expired links found");
             return;
         }
+        log.info("CLEANUP - Completed! Removed {} expired links in {} chunks", removed, chunks);
+    }
 
-        for (LinkEntity link : expiredLinks) {
-            log.info("CLEANUP - Removing link: {} (User: {}, Expired: {}, Original: {})",
-                    link.getShortCode(),
-                    link.getUser().getId(),
-                    link.getExpiresAt(),
-                    truncateUrl(link.getOriginalUrl(), 50));
-
-            notificationService.notifyLinkUnavailable(link, "Link expired automatically");
+    /**
+     * Удаляет порцию истекших ссылок и записывает ее в журнал изменений одной транзакцией в каждом шарде.
+     */
+    private int deleteExpiredChunk(LocalDateTime now, List<String> shortCodes) {
+        int deleted = 0;
+        for (Map.Entry<Integer, List<String>> shard : shardRouter.partition(shortCodes, code -> code).entrySet()) {
+            deleted += shardRouter.call(shard.getKey(), () -> transactionTemplate.execute(status -> {
+                int shardDeleted = linkRepository.deleteExpiredLinks(now, shard.getValue());
+                linkChangeFeed.recordExpired(shard.getValue());
+                return shardDeleted;
+            }));
         }
-        linkRepository.deleteAll(expiredLinks);
-        log.info("CLEANUP - Completed! Removed {} expired links", expiredLinks.size());
+        return deleted;
     }
 
     /**
@@ -131,18 +420,88 @@ public class LinkService {
         if (linkOpt.isPresent() && linkOpt.get().getUser().getId().equals(userId)) {
             LinkEntity link = linkOpt.get();
             link.setClickLimit(newClickLimit);
-            return linkRepository.save(link);
+            LinkEntity saved = linkRepository.save(link);
+            linkStore.save(saved);
+            afterCommit(() -> linkCache.invalidate(shortCode));
+            clickLeaseManager.release(shortCode);
+            return saved;
         }
         throw new SecurityException("Link not found or access denied");
     }
 
     /**
-     * Возвращает все ссылки, принадлежащие указанному пользователю.
+     * Выполняет действие после фиксации текущей транзакции или сразу, если транзакции нет.
+     * Кэш сбрасывается только после коммита: промах кэша до коммита загрузил бы старую строку
+     * и отдавал ее до истечения TTL.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Возвращает страницу ссылок пользователя в порядке создания (keyset-пагинация по createdAt и shortCode).
+     * Запрашивается на одну запись больше страницы, чтобы понять, есть ли следующая.
+     * @param userId идентификатор пользователя
+     * @param cursor курсор предыдущей страницы или null для первой
+     * @param limit размер страницы
+     * @param activeOnly только доступные для перехода ссылки
+     * @param expiresBefore только ссылки, истекающие раньше этого момента (может быть null)
+     * @return страница проекций и курсор следующей страницы
+     */
+    public LinkPage getUserLinks(String userId, LinkCursor cursor, int limit, boolean activeOnly, LocalDateTime expiresBefore) {
+        List<LinkView> links = findUserLinks(userId, cursor, limit + 1, activeOnly, expiresBefore);
+        if (links.size() <= limit) {
+            return new LinkPage(links, null);
+        }
+        List<LinkView> page = links.subList(0, limit);
+        return new LinkPage(page, LinkCursor.after(page.get(limit - 1)).encode());
+    }
+
+    /**
+     * Передает все ссылки пользователя обработчику, читая их страницами по app.link.export-page-size.
+     * Память на запрос ограничена размером страницы, а не числом ссылок пользователя.
      * @param userId идентификатор пользователя
-     * @return список ссылок пользователя (может быть пустым)
+     * @param activeOnly только доступные для перехода ссылки
+     * @param expiresBefore только ссылки, истекающие раньше этого момента (может быть null)
+     * @param consumer обработчик ссылок
+     */
+    public void forEachUserLink(String userId, boolean activeOnly, LocalDateTime expiresBefore, LinkViewConsumer consumer) throws IOException {
+        int pageSize = appConfig.getExportPageSize();
+        LinkCursor cursor = null;
+        List<LinkView> page;
+        do {
+            page = findUserLinks(userId, cursor, pageSize, activeOnly, expiresBefore);
+            for (LinkView link : page) {
+                consumer.accept(link);
+            }
+            if (!page.isEmpty()) {
+                cursor = LinkCursor.after(page.get(page.size() - 1));
+            }
+        } while (page.size() == pageSize);
+    }
+
+    private List<LinkView> findUserLinks(String userId, LinkCursor cursor, int size, boolean activeOnly, LocalDateTime expiresBefore) {
+        return linkRepository.findUserLinksAfter(userId,
+                cursor == null ? null : cursor.getCreatedAt(),
+                cursor == null ? null : cursor.getShortCode(),
+                activeOnly, LocalDateTime.now(), expiresBefore, PageRequest.ofSize(size));
+    }
+
+    /**
+     * Обработчик ссылок при потоковой выгрузке, может писать в поток ответа.
      */
-    public List<LinkEntity> getUserLinks(String userId) {
-        return linkRepository.findByUserId(userId);
+    @FunctionalInterface
+    public interface LinkViewConsumer {
+        void accept(LinkView link) throws IOException;
     }
 
 }
\ No newline at end of file
@@ -1,19 +1,190 @@
 package com.promoit.shortLink.service;
 
+import com.promoit.shortLink.config.AppConfig;
 import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.notification.BackpressurePolicy;
+import com.promoit.shortLink.notification.LinkUnavailableEvent;
+import com.promoit.shortLink.notification.NotificationSink;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Асинхронная доставка уведомлений. Отправитель только кладет событие в ограниченную очередь,
+ * фоновый диспетчер забирает события пачками, убирает дубликаты по ссылке и владельцу
+ * и передает их в {@link NotificationSink}.
+ */
 @Service
 @Slf4j
 public class NotificationService {
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private NotificationSink notificationSink;
+
+    private BlockingQueue<LinkUnavailableEvent> queue;
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private volatile long lastDeliveryLagMillis;
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(appConfig.getNotificationQueueCapacity());
+        running = true;
+        Thread.Builder builder = appConfig.isVirtualThreads() ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        dispatcher = builder.name("notification-dispatcher").start(this::dispatchLoop);
+    }
+
     /**
      * Уведомляет пользователя о недоступности его ссылки
      * @param link ссылка которая стала недоступна
      * @param reason причина недоступности
      */
     public void notifyLinkUnavailable(LinkEntity link, String reason) {
-        String message = String.format("Your short link %s is no longer available. Reason: %s", link.getShortCode(), reason);
-        log.info("User notification: {} - User: {}", message, link.getUser().getId());
+        notifyLinkUnavailable(link.getShortCode(), link.getUser().getId(), reason);
+    }
+
+    /**
+     * Уведомляет пользователя о недоступности его ссылки по коду и владельцу
+     * (используется, когда сущность ссылки не загружалась из базы)
+     * @param shortCode код ссылки которая стала недоступна
+     * @param userId идентификатор владельца ссылки
+     * @param reason причина недоступности
+     */
+    public void notifyLinkUnavailable(String shortCode, String userId, String reason) {
+        enqueue(new LinkUnavailableEvent(shortCode, userId, reason, System.currentTimeMillis()));
+    }
+
+    /**
+     * Возвращает количество событий, ожидающих доставки.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Возвращает возраст самого старого ожидающего события в миллисекундах.
+     */
+    public long getQueueLagMillis() {
+        LinkUnavailableEvent oldest = queue.peek();
+        return oldest == null ? 0 : System.currentTimeMillis() - oldest.getCreatedAtMillis();
+    }
+
+    /**
+     * Возвращает задержку доставки самого старого события последней пачки в миллисекундах.
+     */
+    public long getLastDeliveryLagMillis() {
+        return lastDeliveryLagMillis;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        List<LinkUnavailableEvent> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            log.info("Delivering {} pending notifications before shutdown", rest.size());
+            deliver(rest);
+        }
+    }
+
+    private void enqueue(LinkUnavailableEvent event) {
+        BackpressurePolicy policy = appConfig.getNotificationBackpressure();
+        switch (policy) {
+            case DROP -> {
+                if (!queue.offer(event)) {
+                    dropped.increment();
+                }
+            }
+            case COALESCE -> {
+                if (!pendingKeys.add(event.key())) {
+                    coalesced.increment();
+                    return;
+                }
+                while (!queue.offer(event)) {
+                    LinkUnavailableEvent oldest = queue.poll();
+                    if (oldest != null) {
+                        pendingKeys.remove(oldest.key());
+                        dropped.increment();
+                    }
+                }
+            }
+            case BLOCK -> {
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    private void dispatchLoop() {
+        int batchSize = appConfig.getNotificationBatchSize();
+        List<LinkUnavailableEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                LinkUnavailableEvent first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<LinkUnavailableEvent> batch) {
+        Map<String, LinkUnavailableEvent> unique = new LinkedHashMap<>();
+        for (LinkUnavailableEvent event : batch) {
+            pendingKeys.remove(event.key());
+            unique.putIfAbsent(event.key(), event);
+        }
+        try {
+            notificationSink.deliver(new ArrayList<>(unique.values()));
+            delivered.add(unique.size());
+            lastDeliveryLagMillis = System.currentTimeMillis() - batch.get(0).getCreatedAtMillis();
+        } catch (RuntimeException e) {
+            log.warn("Failed to deliver {} notifications: {}", unique.size(), e.getMessage());
+        }
     }
 }
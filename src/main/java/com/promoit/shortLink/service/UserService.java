@@ -1,18 +1,49 @@
 package com.promoit.shortLink.service;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.promoit.shortLink.config.AppConfig;
 import com.promoit.shortLink.domain.entity.UserEntity;
 import com.promoit.shortLink.domain.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Пользователи сервиса. При app.user.cache-enabled известные пользователи хранятся в ограниченном кэше
+ * (app.user.cache-max-size), поэтому запросы с X-User-ID не читают пользователя из базы. Пользователи не удаляются,
+ * так что кэш не устаревает. Новый анонимный пользователь не записывается сразу: он сохраняется перед его первой
+ * ссылкой ({@link #ensurePersisted}) или пачкой раз в app.user.flush-interval, если ссылок он не создал.
+ */
+@Slf4j
 @Service
 public class UserService {
 
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private AppConfig appConfig;
+
+    private Cache<String, UserEntity> knownUsers;
+    private final ConcurrentHashMap<String, PendingUser> pendingUsers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        knownUsers = Caffeine.newBuilder()
+                .maximumSize(appConfig.getUserCacheMaxSize())
+                .build();
+    }
 
     /**
      * Получает существующего пользователя по ID или создает нового анонимного пользователя.
@@ -21,13 +52,18 @@ public class UserService {
      */
     public UserEntity getOrCreateUser(String userId) {
         if (userId != null) {
-            Optional<UserEntity> existingUser = userRepository.findById(userId);
+            Optional<UserEntity> existingUser = getUserById(userId);
             if (existingUser.isPresent()) {
                 return existingUser.get();
             }
         }
         UserEntity newUser = new UserEntity();
-        return userRepository.save(newUser);
+        if (!appConfig.isUserCacheEnabled()) {
+            return userRepository.save(newUser);
+        }
+        pendingUsers.put(newUser.getId(), new PendingUser(newUser));
+        knownUsers.put(newUser.getId(), newUser);
+        return newUser;
     }
 
     /**
@@ -36,6 +72,98 @@ public class UserService {
      * @return Optional с найденным пользователем или empty если пользователь не существует
      */
     public Optional<UserEntity> getUserById(String userId) {
-        return userRepository.findById(userId);
+        if (!appConfig.isUserCacheEnabled()) {
+            return userRepository.findById(userId);
+        }
+        UserEntity cached = knownUsers.getIfPresent(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        PendingUser pending = pendingUsers.get(userId);
+        if (pending != null) {
+            return Optional.of(pending.user);
+        }
+        Optional<UserEntity> loaded = userRepository.findById(userId);
+        loaded.ifPresent(user -> knownUsers.put(userId, user));
+        return loaded;
+    }
+
+    /**
+     * Записывает отложенного пользователя в базу, если он еще не записан. Вызывается перед вставкой
+     * его ссылок, чтобы внешний ключ ссылки указывал на существующую запись. Параллельные вызовы
+     * для одного пользователя ждут первой записи.
+     */
+    public void ensurePersisted(UserEntity user) {
+        PendingUser pending = pendingUsers.get(user.getId());
+        if (pending == null) {
+            return;
+        }
+        pending.lock.lock();
+        try {
+            if (!pending.persisted) {
+                userRepository.save(pending.user);
+                pending.persisted = true;
+            }
+        } finally {
+            pending.lock.unlock();
+        }
+        pendingUsers.remove(user.getId(), pending);
+    }
+
+    /**
+     * Записывает пачкой отложенных пользователей, так и не создавших ссылку (например, после ошибки
+     * в запросе), чтобы их идентификатор из ответа находился в следующих запросах.
+     * Пользователь, которого в этот момент записывает {@link #ensurePersisted}, пропускается.
+     * При нескольких экземплярах сервиса за общей базой отложенный пользователь до записи известен только
+     * создавшему его экземпляру: запрос с его X-User-ID, попавший на другой экземпляр в течение
+     * app.user.flush-interval, получит нового анонимного пользователя. Пользователь, создавший ссылку,
+     * записывается вместе с ней и этой задержки не имеет.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.userFlushInterval}")
+    public void flushPending() {
+        if (pendingUsers.isEmpty()) {
+            return;
+        }
+        List<PendingUser> locked = new ArrayList<>();
+        for (PendingUser pending : pendingUsers.values()) {
+            if (pending.lock.tryLock()) {
+                if (pending.persisted) {
+                    pending.lock.unlock();
+                } else {
+                    locked.add(pending);
+                }
+            }
+        }
+        try {
+            if (!locked.isEmpty()) {
+                userRepository.saveAll(locked.stream().map(pending -> pending.user).toList());
+                locked.forEach(pending -> pending.persisted = true);
+                log.debug("USERS - Flushed {} anonymous users", locked.size());
+            }
+        } catch (DataAccessException e) {
+            log.warn("USERS - Failed to flush {} anonymous users, will retry: {}", locked.size(), e.getMessage());
+        } finally {
+            for (PendingUser pending : locked) {
+                pending.lock.unlock();
+                if (pending.persisted) {
+                    pendingUsers.remove(pending.user.getId(), pending);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushPending();
+    }
+
+    private static final class PendingUser {
+        final UserEntity user;
+        final ReentrantLock lock = new ReentrantLock();
+        volatile boolean persisted;
+
+        PendingUser(UserEntity user) {
+            this.user = user;
+        }
     }
-}
\ No newline at end of file
+}
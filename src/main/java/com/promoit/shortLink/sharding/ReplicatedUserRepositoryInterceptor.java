@@ -0,0 +1,75 @@
+package com.promoit.shortLink.sharding;
+
+import com.promoit.shortLink.domain.entity.UserEntity;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Копирование пользователей во все шарды: ссылка ссылается на владельца внешним ключом,
+ * поэтому запись о пользователе нужна в каждом шарде. Изменения (save*, delete*) выполняются во всех шардах,
+ * результат возвращается из шарда 0; чтение идет в шард 0.
+ */
+class ReplicatedUserRepositoryInterceptor implements MethodInterceptor {
+    private final ObjectProvider<ShardRouter> shardRouter;
+
+    ReplicatedUserRepositoryInterceptor(ObjectProvider<ShardRouter> shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String name = invocation.getMethod().getName();
+        if (!name.startsWith("save") && !name.startsWith("delete")) {
+            return shardRouter.getObject().call(0, () -> proceed(invocation));
+        }
+        Object target = invocation.getThis();
+        return shardRouter.getObject().fanOut(shard -> {
+            Object[] args = invocation.getArguments();
+            if (shard > 0) {
+                args = Arrays.stream(args).map(ReplicatedUserRepositoryInterceptor::replicate).toArray();
+            }
+            try {
+                return AopUtils.invokeJoinpointUsingReflection(target, invocation.getMethod(), args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }).get(0);
+    }
+
+    /**
+     * Копия пользователя для другого шарда: сущность, сохраняемая одновременно в нескольких сессиях, должна быть своей в каждой.
+     */
+    private static Object replicate(Object arg) {
+        if (arg instanceof UserEntity user) {
+            UserEntity copy = new UserEntity();
+            copy.setId(user.getId());
+            copy.setPersisted(user.isPersisted());
+            return copy;
+        }
+        if (arg instanceof Iterable<?> users) {
+            List<Object> copies = new ArrayList<>();
+            users.forEach(user -> copies.add(replicate(user)));
+            return copies;
+        }
+        return arg;
+    }
+
+    private static Object proceed(MethodInvocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.promoit.shortLink.sharding;
+
+import com.promoit.shortLink.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Распределение ссылок по шардам (app.sharding.shards): шард ссылки - чистая функция ее короткого кода,
+ * поэтому генератор кодов, кэш и хранилища знают шард без обращения к базе.
+ * Выполняет действия в контексте шарда (соединения берутся из его пула) и рассылает запросы
+ * по всем шардам параллельно. При одном шарде все действия выполняются в вызывающем потоке без переключений.
+ */
+@Slf4j
+@Component
+public class ShardRouter {
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    private int shardCount = 1;
+    private ExecutorService fanOutExecutor;
+
+    @PostConstruct
+    void init() {
+        shardCount = Math.max(1, appConfig.getShardCount());
+        if (shardCount == 1) {
+            return;
+        }
+        Thread.Builder builder = appConfig.isVirtualThreads()
+                ? Thread.ofVirtual().name("shard-fan-out-", 0)
+                : Thread.ofPlatform().daemon(true).name("shard-fan-out-", 0);
+        fanOutExecutor = appConfig.isVirtualThreads()
+                ? Executors.newThreadPerTaskExecutor(builder.factory())
+                : Executors.newFixedThreadPool(shardCount * Math.max(1, appConfig.getShardPoolSize()), builder.factory());
+        exportSchema();
+        log.info("SHARD - Link storage partitioned across {} shards", shardCount);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdown();
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Возвращает шард короткого кода. Функция не должна меняться: иначе существующие ссылки окажутся не в своем шарде.
+     */
+    public int shardOf(String shortCode) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        int hash = shortCode.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    /**
+     * Выполняет действие в контексте шарда и возвращает его результат.
+     */
+    public <T> T call(int shard, Supplier<T> action) {
+        if (shardCount == 1) {
+            return action.get();
+        }
+        Integer previous = ShardRoutingDataSource.current();
+        ShardRoutingDataSource.set(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardRoutingDataSource.set(previous);
+        }
+    }
+
+    public void run(int shard, Runnable action) {
+        call(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Группирует элементы по шардам их кодов в порядке номеров шардов.
+     */
+    public <T> Map<Integer, List<T>> partition(Collection<T> items, Function<T, String> shortCode) {
+        if (shardCount == 1) {
+            return Map.of(0, items instanceof List<T> list ? list : new ArrayList<>(items));
+        }
+        Map<Integer, List<T>> shards = new TreeMap<>();
+        for (T item : items) {
+            shards.computeIfAbsent(shardOf(shortCode.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return shards;
+    }
+
+    /**
+     * Выполняет действие во всех шардах параллельно и возвращает результаты в порядке номеров шардов.
+     * Каждый шард работает в своем потоке и своей транзакции; ошибка любого шарда пробрасывается вызывающему.
+     */
+    public <T> List<T> fanOut(IntFunction<T> action) {
+        if (shardCount == 1) {
+            return Collections.singletonList(action.apply(0));
+        }
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(fanOutExecutor.submit(() -> call(target, () -> action.apply(target))));
+        }
+        List<T> results = new ArrayList<>(shardCount);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Shard request failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Создает таблицы сущностей в шардах 1..N-1: Hibernate строит схему только в шарде по умолчанию.
+     */
+    private void exportSchema() {
+        SchemaManager schemaManager = entityManagerFactory.getObject().unwrap(SessionFactory.class).getSchemaManager();
+        for (int shard = 1; shard < shardCount; shard++) {
+            run(shard, () -> schemaManager.exportMappedObjects(true));
+        }
+    }
+}
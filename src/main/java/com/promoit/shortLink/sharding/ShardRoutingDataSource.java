@@ -0,0 +1,29 @@
+package com.promoit.shortLink.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Источник данных, выдающий соединения шарда, выбранного в текущем потоке через {@link ShardRouter}.
+ * Вне контекста шарда соединения берутся из шарда 0.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+}
@@ -0,0 +1,183 @@
+package com.promoit.shortLink.sharding;
+
+import com.promoit.shortLink.domain.dto.ActiveLinkView;
+import com.promoit.shortLink.domain.dto.ExpiredLinkView;
+import com.promoit.shortLink.domain.dto.LinkView;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.query.Param;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Маршрутизация вызовов LinkRepository по шардам:
+ * <ul>
+ *     <li>вызов с одной ссылкой (сущность, параметр shortCode, id) выполняется в шарде ее кода;</li>
+ *     <li>вызов с набором кодов или сущностей делится по шардам, результаты объединяются;</li>
+ *     <li>остальные запросы (по пользователю, по сроку, счетчики) рассылаются во все шарды параллельно.
+ *     Списки сливаются в порядке ORDER BY запроса и обрезаются до размера страницы, счетчики суммируются.</li>
+ * </ul>
+ */
+class ShardedLinkRepositoryInterceptor implements MethodInterceptor {
+    private static final Set<String> BY_ID = Set.of("findById", "existsById", "deleteById", "getReferenceById", "findByShortCode");
+    private static final Set<String> BATCH = Set.of("saveAll", "saveAllAndFlush", "deleteAll", "deleteAllInBatch",
+            "findAllById", "deleteAllById", "deleteAllByIdInBatch");
+    private static final Map<String, Comparator<Object>> MERGE_ORDER = Map.of(
+            "findActiveShortCodesAfter", Comparator.comparing(code -> (String) code),
+            "findActiveLinksAfter", Comparator.comparing(link -> ((ActiveLinkView) link).getShortCode()),
+            "findExpiredLinks", Comparator.<Object, LocalDateTime>comparing(link -> ((ExpiredLinkView) link).getExpiresAt())
+                    .thenComparing(link -> ((ExpiredLinkView) link).getShortCode()),
+            "findUserLinksAfter", Comparator.<Object, LocalDateTime>comparing(link -> ((LinkView) link).getCreatedAt())
+                    .thenComparing(link -> ((LinkView) link).getShortCode()),
+            "findDedupCandidates", Comparator.<Object, LocalDateTime>comparing(link -> ((LinkEntity) link).getCreatedAt())
+                    .reversed());
+
+    private final ObjectProvider<ShardRouter> shardRouter;
+
+    ShardedLinkRepositoryInterceptor(ObjectProvider<ShardRouter> shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        ShardRouter router = shardRouter.getObject();
+        Object target = invocation.getThis();
+        Object[] args = invocation.getArguments();
+
+        String shortCode = shortCodeOf(method, args);
+        if (shortCode != null) {
+            return router.call(router.shardOf(shortCode), () -> invokeTarget(target, method, args));
+        }
+        int batchIndex = batchArgument(method, args);
+        if (batchIndex >= 0) {
+            List<Object> items = new ArrayList<>();
+            ((Iterable<?>) args[batchIndex]).forEach(items::add);
+            List<Object> results = new ArrayList<>();
+            router.partition(items, ShardedLinkRepositoryInterceptor::codeOf).forEach((shard, shardItems) -> {
+                Object[] shardArgs = args.clone();
+                shardArgs[batchIndex] = shardItems;
+                results.add(router.call(shard, () -> invokeTarget(target, method, shardArgs)));
+            });
+            return merge(method, args, results);
+        }
+        return merge(method, args, router.fanOut(shard -> invokeTarget(target, method, args)));
+    }
+
+    private static String shortCodeOf(Method method, Object[] args) {
+        if (args.length == 0) {
+            return null;
+        }
+        if (args[0] instanceof LinkEntity link) {
+            return link.getShortCode();
+        }
+        if (BY_ID.contains(method.getName()) && args[0] instanceof String id) {
+            return id;
+        }
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < args.length; i++) {
+            if ("shortCode".equals(paramName(annotations[i])) && args[i] instanceof String code) {
+                return code;
+            }
+        }
+        return null;
+    }
+
+    private static int batchArgument(Method method, Object[] args) {
+        if (args.length > 0 && BATCH.contains(method.getName()) && args[0] instanceof Iterable<?>) {
+            return 0;
+        }
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < args.length; i++) {
+            if ("shortCodes".equals(paramName(annotations[i])) && args[i] instanceof Collection<?>) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String paramName(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Param param) {
+                return param.value();
+            }
+        }
+        return null;
+    }
+
+    private static String codeOf(Object item) {
+        return item instanceof LinkEntity link ? link.getShortCode() : (String) item;
+    }
+
+    private static Object merge(Method method, Object[] args, List<Object> results) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) {
+            return null;
+        }
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        if (type == long.class || type == Long.class) {
+            return results.stream().mapToLong(result -> (Long) result).sum();
+        }
+        if (type == int.class || type == Integer.class) {
+            return results.stream().mapToInt(result -> (Integer) result).sum();
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return results.contains(Boolean.TRUE);
+        }
+        if (type == Optional.class) {
+            return results.stream().map(result -> (Optional<?>) result).filter(Optional::isPresent).findFirst().orElse(Optional.empty());
+        }
+        if (type.isAssignableFrom(List.class)) {
+            List<Object> merged = new ArrayList<>();
+            results.forEach(result -> ((Iterable<?>) result).forEach(merged::add));
+            Comparator<Object> order = MERGE_ORDER.get(method.getName());
+            if (order != null) {
+                merged.sort(order);
+                Pageable pageable = pageableOf(args);
+                if (pageable != null && pageable.isPaged() && merged.size() > pageable.getPageSize()) {
+                    return new ArrayList<>(merged.subList(0, pageable.getPageSize()));
+                }
+            }
+            return merged;
+        }
+        throw new UnsupportedOperationException("Cannot merge " + method.getName() + " across shards");
+    }
+
+    private static Pageable pageableOf(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Pageable pageable) {
+                return pageable;
+            }
+        }
+        return null;
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) {
+        try {
+            return AopUtils.invokeJoinpointUsingReflection(target, method, args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.promoit.shortLink.sharding;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import com.promoit.shortLink.domain.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Источники данных шардов при app.sharding.shards больше 1. Шард 0 - spring.datasource.url,
+ * шард k - app.sharding.url-template с номером k, с теми же учетными данными.
+ * Соединение берется из пула шарда при первом запросе транзакции, поэтому транзакция работает с одним шардом -
+ * тем, в контексте которого выполнен ее первый запрос. Репозитории ссылок и пользователей оборачиваются
+ * маршрутизаторами {@link ShardedLinkRepositoryInterceptor} и {@link ReplicatedUserRepositoryInterceptor}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("${app.sharding.shards:1} > 1")
+public class ShardingConfig {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, AppConfig appConfig) {
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < appConfig.getShardCount(); shard++) {
+            String url = shard == 0 ? properties.determineUrl() : String.format(appConfig.getShardUrlTemplate(), shard);
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+            pool.setPoolName("shard-" + shard);
+            pool.setMaximumPoolSize(appConfig.getShardPoolSize());
+            pools.add(pool);
+            shards.put(shard, pool);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(shards);
+        routing.setDefaultTargetDataSource(shards.get(0));
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        log.info("SHARD - Configured {} datasources", shards.size());
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    static BeanPostProcessor shardedRepositoryPostProcessor(ObjectProvider<ShardRouter> shardRouter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof LinkRepository) {
+                    return proxy(bean, LinkRepository.class, new ShardedLinkRepositoryInterceptor(shardRouter));
+                }
+                if (bean instanceof UserRepository) {
+                    return proxy(bean, UserRepository.class, new ReplicatedUserRepositoryInterceptor(shardRouter));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @PreDestroy
+    void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private static Object proxy(Object repository, Class<?> type, MethodInterceptor interceptor) {
+        ProxyFactory factory = new ProxyFactory();
+        factory.setTarget(repository);
+        factory.addInterface(type);
+        factory.addAdvice(interceptor);
+        return factory.getProxy(type.getClassLoader());
+    }
+}
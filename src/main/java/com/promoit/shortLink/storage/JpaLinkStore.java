@@ -0,0 +1,52 @@
+package com.promoit.shortLink.storage;
+
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Хранилище по умолчанию: ссылки живут только в базе, поиск идет через {@link LinkRepository}.
+ * Изменения уже записаны в базу вызывающим кодом, поэтому методы записи ничего не делают.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "jpa", matchIfMissing = true)
+public class JpaLinkStore implements LinkStore {
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Override
+    public Optional<LinkSnapshot> find(String shortCode) {
+        return linkRepository.findByShortCode(shortCode).map(LinkSnapshot::from);
+    }
+
+    @Override
+    public void save(LinkEntity link) {
+    }
+
+    @Override
+    public void saveAll(Collection<LinkEntity> links) {
+    }
+
+    @Override
+    public void delete(Collection<String> shortCodes) {
+    }
+
+    @Override
+    public void addClicks(String shortCode, int delta) {
+    }
+
+    @Override
+    public long codeSequenceStart() {
+        return 0;
+    }
+
+    @Override
+    public void recordCodeSequence(long next) {
+    }
+}
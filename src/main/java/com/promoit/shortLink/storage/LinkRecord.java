@@ -0,0 +1,174 @@
+package com.promoit.shortLink.storage;
+
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import lombok.Value;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Запись журнала ссылок. Все записи идемпотентны: PUT и CLICKS содержат абсолютное значение счетчика,
+ * поэтому повторное применение хвоста журнала при восстановлении не искажает состояние.
+ * Формат кадра: длина тела (int), CRC32 тела (int), тело.
+ */
+@Value
+class LinkRecord {
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte CLICKS = 3;
+    static final byte SEQUENCE = 4;
+    static final int FRAME_HEADER = 8;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    byte type;
+    String shortCode;
+    String originalUrl;
+    String userId;
+    Integer clickLimit;
+    int clickCount;
+    LocalDateTime createdAt;
+    LocalDateTime expiresAt;
+    long sequence;
+
+    static LinkRecord put(LinkEntity link, int clickCount) {
+        String userId = link.getUser() == null ? null : link.getUser().getId();
+        return new LinkRecord(PUT, link.getShortCode(), link.getOriginalUrl(), userId, link.getClickLimit(), clickCount,
+                link.getCreatedAt(), link.getExpiresAt(), 0);
+    }
+
+    static LinkRecord delete(String shortCode) {
+        return new LinkRecord(DELETE, shortCode, null, null, null, 0, null, null, 0);
+    }
+
+    static LinkRecord clicks(String shortCode, int clickCount) {
+        return new LinkRecord(CLICKS, shortCode, null, null, null, clickCount, null, null, 0);
+    }
+
+    static LinkRecord sequence(long value) {
+        return new LinkRecord(SEQUENCE, null, null, null, null, 0, null, null, value);
+    }
+
+    LinkRecord withClickCount(int clickCount) {
+        return new LinkRecord(type, shortCode, originalUrl, userId, clickLimit, clickCount, createdAt, expiresAt, sequence);
+    }
+
+    LinkSnapshot toSnapshot() {
+        return new LinkSnapshot(shortCode, originalUrl, userId, clickLimit, expiresAt, createdAt);
+    }
+
+    boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && now.isAfter(expiresAt);
+    }
+
+    /**
+     * Кодирует запись в кадр, готовый к записи в сегмент.
+     */
+    ByteBuffer encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            switch (type) {
+                case PUT -> {
+                    writeString(out, shortCode);
+                    writeString(out, originalUrl);
+                    writeString(out, userId);
+                    out.writeInt(clickLimit == null ? -1 : clickLimit);
+                    out.writeInt(clickCount);
+                    out.writeLong(toMicros(createdAt));
+                    out.writeLong(toMicros(expiresAt));
+                }
+                case DELETE -> writeString(out, shortCode);
+                case CLICKS -> {
+                    writeString(out, shortCode);
+                    out.writeInt(clickCount);
+                }
+                case SEQUENCE -> out.writeLong(sequence);
+                default -> throw new IllegalStateException("Unknown record type " + type);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] body = bytes.toByteArray();
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + body.length);
+        frame.putInt(body.length).putInt(crc(body, 0, body.length)).put(body).flip();
+        return frame;
+    }
+
+    /**
+     * Декодирует тело кадра (без заголовка).
+     * @throws IllegalArgumentException если тело повреждено
+     */
+    static LinkRecord decode(ByteBuffer body) {
+        byte type = body.get();
+        return switch (type) {
+            case PUT -> {
+                String shortCode = readString(body);
+                String originalUrl = readString(body);
+                String userId = readString(body);
+                int clickLimit = body.getInt();
+                int clickCount = body.getInt();
+                LocalDateTime createdAt = fromMicros(body.getLong());
+                LocalDateTime expiresAt = fromMicros(body.getLong());
+                yield new LinkRecord(PUT, shortCode, originalUrl, userId, clickLimit < 0 ? null : clickLimit, clickCount,
+                        createdAt, expiresAt, 0);
+            }
+            case DELETE -> delete(readString(body));
+            case CLICKS -> clicks(readString(body), body.getInt());
+            case SEQUENCE -> sequence(body.getLong());
+            default -> throw new IllegalArgumentException("Unknown record type " + type);
+        };
+    }
+
+    static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > body.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds record");
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return NULL_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), 0, ZoneOffset.UTC)
+                .plus(Math.floorMod(micros, 1_000_000), ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,50 @@
+package com.promoit.shortLink.storage;
+
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Хранилище ссылок для поиска по коду и долговременного хранения.
+ * Реализация выбирается настройкой app.storage.backend: jpa - ссылки живут только в базе,
+ * log - журнал на локальном диске, из которого база восстанавливается при старте.
+ */
+public interface LinkStore {
+
+    /**
+     * Ищет ссылку по коду.
+     */
+    Optional<LinkSnapshot> find(String shortCode);
+
+    /**
+     * Сохраняет новую или измененную ссылку.
+     */
+    void save(LinkEntity link);
+
+    /**
+     * Сохраняет порцию ссылок.
+     */
+    void saveAll(Collection<LinkEntity> links);
+
+    /**
+     * Удаляет ссылки.
+     */
+    void delete(Collection<String> shortCodes);
+
+    /**
+     * Учитывает записанные в базу переходы (отрицательное значение возвращает неиспользованные).
+     */
+    void addClicks(String shortCode, int delta);
+
+    /**
+     * Возвращает номер, с которого генератор кодов должен продолжить последовательность после рестарта.
+     */
+    long codeSequenceStart();
+
+    /**
+     * Запоминает верхнюю границу выданных генератором номеров.
+     */
+    void recordCodeSequence(long next);
+}
@@ -0,0 +1,557 @@
+package com.promoit.shortLink.storage;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.dedup.UrlFingerprint;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.sharding.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Встроенное хранилище ссылок на локальном диске: журнал из сегментов с дописыванием в конец
+ * ({@link SegmentLog}) и отображенный в память хеш-индекс код → позиция записи ({@link MappedIndex}).
+ * <ul>
+ *     <li>Поиск по коду читает слот индекса и одну запись журнала, без обращения к базе.</li>
+ *     <li>Раз в app.storage.sync-interval журнал и индекс сбрасываются на диск и фиксируется контрольная точка.
+ *     После аварийной остановки применяется хвост журнала от контрольной точки, недописанная запись отрезается.</li>
+ *     <li>Компакция переписывает закрытые сегменты, оставляя только живые неистекшие ссылки.</li>
+ *     <li>При старте база (H2 in-memory) заполняется ссылками из журнала, поэтому запросы по пользователю,
+ *     очистка и учет переходов продолжают работать через JPA, а ссылки переживают рестарт.</li>
+ * </ul>
+ * Запись и синхронизация выполняются под блокировкой записи, поиск - под блокировкой чтения.
+ * Компакция берет блокировку записи только на снимок индекса и подмену сегментов.
+ * Записи, сделанные в транзакции, дописываются в журнал после ее фиксации.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "log")
+public class LogLinkStore implements LinkStore {
+    static final String INDEX_FILE = "index.bin";
+    private static final String COMPACTION_FILE = "compaction.tmp";
+    private static final int REHYDRATE_BATCH = 1000;
+    private static final String INSERT_USER_SQL = "MERGE INTO user_entity (id) KEY (id) VALUES (?)";
+    private static final String INSERT_LINK_SQL = "INSERT INTO link_entity (short_code, original_url, user_id, click_limit, " +
+            "click_count, created_at, expires_at, url_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private SegmentLog segmentLog;
+    private MappedIndex index;
+
+    @PostConstruct
+    void init() throws IOException {
+        long startNanos = System.nanoTime();
+        open(Path.of(appConfig.getStorageDir()));
+        int restored = rehydrate();
+        log.info("STORE - Restored {} links from {} in {} ms", restored, appConfig.getStorageDir(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Открывает журнал и индекс. Поврежденный индекс или индекс, брошенный посреди компакции,
+     * перестраивается из всего журнала; после аварийной остановки применяется хвост от контрольной точки.
+     */
+    void open(Path dir) throws IOException {
+        segmentLog = new SegmentLog(dir, appConfig.getStorageSegmentBytes());
+        index = MappedIndex.open(dir.resolve(INDEX_FILE), appConfig.getStorageIndexCapacity());
+        if (index == null || index.isCompacting()) {
+            log.warn("STORE - Index is missing or inconsistent, rebuilding from the whole log");
+            if (index != null) {
+                index.close();
+            }
+            index = MappedIndex.create(dir.resolve(INDEX_FILE), appConfig.getStorageIndexCapacity());
+            segmentLog.scan(segmentLog.firstSegment(), 0, this::apply);
+        } else {
+            if (!index.isClean()) {
+                log.warn("STORE - Unclean shutdown detected, replaying log from {}:{}",
+                        index.checkpointSegment(), index.checkpointOffset());
+            }
+            segmentLog.scan(index.checkpointSegment(), index.checkpointOffset(), this::apply);
+        }
+        index.setClean(false);
+        checkpoint();
+    }
+
+    @Override
+    public Optional<LinkSnapshot> find(String shortCode) {
+        lock.readLock().lock();
+        try {
+            LinkRecord[] found = new LinkRecord[1];
+            return locate(shortCode, found) < 0 ? Optional.empty() : Optional.of(found[0].toSnapshot());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read link " + shortCode, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void save(LinkEntity link) {
+        writeAfterCommit(() -> put(link));
+    }
+
+    @Override
+    public void saveAll(Collection<LinkEntity> links) {
+        writeAfterCommit(() -> {
+            for (LinkEntity link : links) {
+                put(link);
+            }
+        });
+    }
+
+    @Override
+    public void delete(Collection<String> shortCodes) {
+        writeAfterCommit(() -> {
+            for (String shortCode : shortCodes) {
+                int slot = locate(shortCode, null);
+                if (slot >= 0) {
+                    segmentLog.append(LinkRecord.delete(shortCode).encode());
+                    index.remove(slot);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void addClicks(String shortCode, int delta) {
+        write(() -> {
+            int slot = locate(shortCode, null);
+            if (slot >= 0) {
+                int total = Math.max(0, index.clicks(slot) + delta);
+                segmentLog.append(LinkRecord.clicks(shortCode, total).encode());
+                index.setClicks(slot, total);
+            }
+        });
+    }
+
+    @Override
+    public long codeSequenceStart() {
+        lock.readLock().lock();
+        try {
+            return index.sequence();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void recordCodeSequence(long next) {
+        write(() -> {
+            if (next > index.sequence()) {
+                segmentLog.append(LinkRecord.sequence(next).encode());
+                index.setSequence(next);
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает журнал и индекс на диск и фиксирует контрольную точку восстановления.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.storageSyncInterval}")
+    public void sync() {
+        write(this::checkpoint);
+    }
+
+    /**
+     * Переписывает закрытые сегменты в один, оставляя живые неистекшие ссылки с текущими счетчиками.
+     * Активный сегмент сначала закрывается, поэтому компакции подлежит весь журнал до этого момента.
+     * Блокировка записи берется дважды и ненадолго: чтобы снять снимок живых слотов и чтобы подменить сегменты.
+     * Сам файл компакции пишется без блокировки из неизменяемых закрытых сегментов; ссылки, которые за это время
+     * изменили или удалили, остаются на своих новых позициях. На время компакции индекс помечен флагом:
+     * при сбое он будет перестроен из журнала.
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.storageCompactionInterval}",
+            initialDelayString = "#{@appConfig.storageCompactionInterval}")
+    public void compact() {
+        if (!compactionLock.tryLock()) {
+            return;
+        }
+        try {
+            long startNanos = System.nanoTime();
+            CompactionSnapshot snapshot;
+            long bytesBefore;
+            lock.writeLock().lock();
+            try {
+                if (segmentLog.activeSize() == 0 && segmentLog.activeSegment() == segmentLog.firstSegment()) {
+                    return;
+                }
+                bytesBefore = segmentLog.sizeBytes();
+                if (segmentLog.activeSize() > 0) {
+                    segmentLog.roll();
+                }
+                checkpoint();
+                index.setCompacting(true);
+                index.force();
+                snapshot = CompactionSnapshot.of(index, segmentLog.activeSegment() - 1);
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            int target = snapshot.target;
+            Path compacted = segmentLog.dir().resolve(COMPACTION_FILE);
+            long[] newOffsets = new long[snapshot.size];
+            LocalDateTime now = LocalDateTime.now();
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long position = writeFully(out, LinkRecord.sequence(snapshot.sequence).encode(), 0);
+                for (int i = 0; i < snapshot.size; i++) {
+                    LinkRecord record = segmentLog.read(snapshot.segments[i], snapshot.offsets[i]);
+                    snapshot.codes[i] = record.getShortCode();
+                    if (record.isExpired(now)) {
+                        newOffsets[i] = -1;
+                        continue;
+                    }
+                    newOffsets[i] = position;
+                    position = writeFully(out, record.withClickCount(snapshot.clicks[i]).encode(), position);
+                }
+                out.force(true);
+            }
+
+            int kept = 0;
+            int expired = 0;
+            lock.writeLock().lock();
+            try {
+                int[] current = new int[snapshot.size];
+                for (int i = 0; i < snapshot.size; i++) {
+                    current[i] = currentSlot(snapshot, i);
+                }
+                segmentLog.replaceSealed(target, compacted);
+                for (int i = 0; i < snapshot.size; i++) {
+                    if (current[i] < 0) {
+                        continue;
+                    }
+                    if (newOffsets[i] < 0) {
+                        index.remove(current[i]);
+                        expired++;
+                    } else {
+                        index.setLocation(current[i], target, newOffsets[i]);
+                        kept++;
+                    }
+                }
+                if (index.needsResize()) {
+                    index = index.resize();
+                }
+                checkpoint();
+                index.setCompacting(false);
+                index.force();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("STORE - Compacted log up to segment {}: kept {}, dropped {} expired, {} -> {} bytes in {} ms",
+                    target, kept, expired, bytesBefore, segmentLog.sizeBytes(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (IOException e) {
+            log.error("STORE - Compaction failed, index will be rebuilt on next start", e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Слот ссылки из снимка, если она все еще указывает на ту же запись, иначе -1: ссылку изменили
+     * или удалили во время компакции. Если индекс за это время перестроен, слот ищется заново по коду.
+     * Вызывается под блокировкой записи до подмены сегментов, пока старые записи еще читаются.
+     */
+    private int currentSlot(CompactionSnapshot snapshot, int i) throws IOException {
+        int slot = index == snapshot.index ? snapshot.slots[i] : locate(snapshot.codes[i], null);
+        if (slot < 0 || !index.isLive(slot)) {
+            return -1;
+        }
+        return index.segment(slot) == snapshot.segments[i] && index.offset(slot) == snapshot.offsets[i] ? slot : -1;
+    }
+
+    /**
+     * Возвращает число живых ссылок в индексе.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает размер журнала и индекса на диске в байтах.
+     */
+    public long diskBytes() {
+        lock.readLock().lock();
+        try {
+            return segmentLog.sizeBytes() + index.sizeBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkpoint();
+            index.setClean(true);
+            index.force();
+            index.close();
+            segmentLog.close();
+            log.info("STORE - Closed link store");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Заполняет базу живыми ссылками из журнала пакетными вставками, вместе с их владельцами.
+     * Ссылки вставляются в свои шарды, владельцы - во все шарды.
+     */
+    private int rehydrate() throws IOException {
+        List<Object[]> links = new ArrayList<>(REHYDRATE_BATCH);
+        List<Object[]> newUsers = new ArrayList<>();
+        Set<String> users = new HashSet<>();
+        int restored = 0;
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < index.capacity(); slot++) {
+                if (!index.isLive(slot)) {
+                    continue;
+                }
+                LinkRecord record = segmentLog.read(index.segment(slot), index.offset(slot));
+                if (record.getUserId() != null && users.add(record.getUserId())) {
+                    newUsers.add(new Object[]{record.getUserId()});
+                }
+                links.add(new Object[]{record.getShortCode(), record.getOriginalUrl(), record.getUserId(),
+                        record.getClickLimit(), index.clicks(slot), timestamp(record.getCreatedAt()),
+                        timestamp(record.getExpiresAt()), UrlFingerprint.hash(record.getOriginalUrl())});
+                if (links.size() == REHYDRATE_BATCH) {
+                    restored += flushLinks(newUsers, links);
+                }
+            }
+            restored += flushLinks(newUsers, links);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return restored;
+    }
+
+    private int flushLinks(List<Object[]> newUsers, List<Object[]> links) {
+        if (links.isEmpty()) {
+            return 0;
+        }
+        if (!newUsers.isEmpty()) {
+            shardRouter.fanOut(shard -> jdbcTemplate.batchUpdate(INSERT_USER_SQL, newUsers));
+            newUsers.clear();
+        }
+        shardRouter.partition(links, row -> (String) row[0])
+                .forEach((shard, rows) -> shardRouter.run(shard, () -> jdbcTemplate.batchUpdate(INSERT_LINK_SQL, rows)));
+        int count = links.size();
+        links.clear();
+        return count;
+    }
+
+    private void put(LinkEntity link) throws IOException {
+        String shortCode = link.getShortCode();
+        int slot = locate(shortCode, null);
+        int clicks = slot >= 0 ? index.clicks(slot) : link.getClickCount() == null ? 0 : link.getClickCount();
+        long offset = segmentLog.append(LinkRecord.put(link, clicks).encode());
+        if (slot >= 0) {
+            index.setLocation(slot, segmentLog.activeSegment(), offset);
+            return;
+        }
+        if (index.needsResize()) {
+            index = index.resize();
+        }
+        index.put(hash(shortCode), matcher(shortCode, null), segmentLog.activeSegment(), offset, clicks);
+    }
+
+    /**
+     * Применяет запись журнала к индексу при восстановлении.
+     */
+    private void apply(LinkRecord record, int segment, long offset) throws IOException {
+        switch (record.getType()) {
+            case LinkRecord.PUT -> {
+                if (index.needsResize()) {
+                    index = index.resize();
+                }
+                index.put(hash(record.getShortCode()), matcher(record.getShortCode(), null), segment, offset, record.getClickCount());
+            }
+            case LinkRecord.CLICKS -> {
+                int slot = locate(record.getShortCode(), null);
+                if (slot >= 0) {
+                    index.setClicks(slot, record.getClickCount());
+                }
+            }
+            case LinkRecord.DELETE -> {
+                int slot = locate(record.getShortCode(), null);
+                if (slot >= 0) {
+                    index.remove(slot);
+                }
+            }
+            case LinkRecord.SEQUENCE -> index.setSequence(Math.max(index.sequence(), record.getSequence()));
+            default -> throw new IOException("Unknown record type " + record.getType());
+        }
+    }
+
+    private int locate(String shortCode, LinkRecord[] found) throws IOException {
+        return index.find(hash(shortCode), matcher(shortCode, found));
+    }
+
+    /**
+     * Сравнивает код в записи журнала с искомым; найденную запись отдает через found, чтобы не читать ее повторно.
+     */
+    private MappedIndex.SlotMatcher matcher(String shortCode, LinkRecord[] found) {
+        return (segment, offset) -> {
+            LinkRecord record = segmentLog.read(segment, offset);
+            if (!shortCode.equals(record.getShortCode())) {
+                return false;
+            }
+            if (found != null) {
+                found[0] = record;
+            }
+            return true;
+        };
+    }
+
+    private void checkpoint() throws IOException {
+        segmentLog.force();
+        index.setCheckpoint(segmentLog.activeSegment(), segmentLog.activeSize());
+        index.force();
+    }
+
+    private void write(IoAction action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Link store write failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Внутри транзакции откладывает запись в журнал до ее фиксации: после отката журнал не должен
+     * расходиться с базой, иначе удаленная и восстановленная откатом ссылка пропала бы после рестарта.
+     */
+    private void writeAfterCommit(IoAction action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write(action);
+            }
+        });
+    }
+
+    private static long writeFully(FileChannel out, ByteBuffer frame, long position) throws IOException {
+        while (frame.hasRemaining()) {
+            position += out.write(frame, position);
+        }
+        return position;
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+
+    private static long hash(String shortCode) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < shortCode.length(); i++) {
+            h ^= shortCode.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * Живые слоты закрытых сегментов на момент начала компакции: слот, позиция записи и счетчик переходов.
+     * Коды заполняются при переписывании, чтобы найти слот заново, если индекс перестроят.
+     */
+    private static final class CompactionSnapshot {
+        final MappedIndex index;
+        final int target;
+        final long sequence;
+        int[] slots = new int[1024];
+        int[] segments = new int[1024];
+        long[] offsets = new long[1024];
+        int[] clicks = new int[1024];
+        String[] codes;
+        int size;
+
+        private CompactionSnapshot(MappedIndex index, int target) {
+            this.index = index;
+            this.target = target;
+            this.sequence = index.sequence();
+        }
+
+        static CompactionSnapshot of(MappedIndex index, int target) {
+            CompactionSnapshot snapshot = new CompactionSnapshot(index, target);
+            for (int slot = 0; slot < index.capacity(); slot++) {
+                if (index.isLive(slot) && index.segment(slot) <= target) {
+                    snapshot.add(slot, index.segment(slot), index.offset(slot), index.clicks(slot));
+                }
+            }
+            snapshot.codes = new String[snapshot.size];
+            return snapshot;
+        }
+
+        private void add(int slot, int segment, long offset, int clickCount) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                segments = Arrays.copyOf(segments, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+                clicks = Arrays.copyOf(clicks, size * 2);
+            }
+            slots[size] = slot;
+            segments[size] = segment;
+            offsets[size] = offset;
+            clicks[size++] = clickCount;
+        }
+    }
+}
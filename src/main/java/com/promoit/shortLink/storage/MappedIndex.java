@@ -0,0 +1,293 @@
+package com.promoit.shortLink.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Хеш-индекс код → позиция последней записи PUT, отображенный в память (открытая адресация, линейное пробирование).
+ * В слоте хранится 64-битный хеш кода, номер сегмента, смещение записи и текущий счетчик переходов.
+ * Хеш не уникален: совпадение кода проверяет вызывающий через {@link SlotMatcher}, читая запись из журнала.
+ * Заголовок хранит контрольную точку журнала, до которой индекс согласован, и признак штатного закрытия.
+ */
+final class MappedIndex implements Closeable {
+    private static final int MAGIC = 0x4C4E4B31;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 32;
+    private static final int DELETED = -1;
+    private static final double MAX_LOAD = 0.7;
+
+    private static final int H_MAGIC = 0;
+    private static final int H_CAPACITY = 4;
+    private static final int H_SIZE = 8;
+    private static final int H_TOMBSTONES = 12;
+    private static final int H_CHECKPOINT_SEGMENT = 16;
+    private static final int H_CHECKPOINT_OFFSET = 20;
+    private static final int H_SEQUENCE = 28;
+    private static final int H_CLEAN = 36;
+    private static final int H_COMPACTING = 37;
+
+    private static final int S_HASH = 0;
+    private static final int S_SEGMENT = 8;
+    private static final int S_OFFSET = 12;
+    private static final int S_CLICKS = 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+
+    private MappedIndex(Path file, int capacity, boolean create) throws IOException {
+        this.file = file;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        if (create) {
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_CAPACITY, capacity);
+            buffer.putInt(H_CHECKPOINT_SEGMENT, 1);
+        }
+    }
+
+    /**
+     * Открывает существующий индекс или создает пустой.
+     * @param initialCapacity емкость нового индекса, округляется до степени двойки
+     * @return индекс или null, если файл поврежден и индекс нужно перестроить из журнала
+     */
+    static MappedIndex open(Path file, int initialCapacity) throws IOException {
+        if (Files.exists(file) && Files.size(file) >= HEADER_SIZE) {
+            int capacity;
+            try (FileChannel existing = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer header = existing.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt(H_MAGIC) != MAGIC) {
+                    return null;
+                }
+                capacity = header.getInt(H_CAPACITY);
+            }
+            if (Integer.bitCount(capacity) != 1 || Files.size(file) != HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+                return null;
+            }
+            return new MappedIndex(file, capacity, false);
+        }
+        return create(file, initialCapacity);
+    }
+
+    /**
+     * Создает пустой индекс, заменяя существующий файл.
+     */
+    static MappedIndex create(Path file, int capacity) throws IOException {
+        Files.deleteIfExists(file);
+        return new MappedIndex(file, Integer.highestOneBit(Math.max(capacity, 16) * 2 - 1), true);
+    }
+
+    /**
+     * Ищет слот кода.
+     * @return номер слота или -1, если кода нет в индексе
+     */
+    int find(long hash, SlotMatcher matcher) throws IOException {
+        long key = nonZero(hash);
+        for (int i = 0, slot = (int) key & mask; i < capacity; i++, slot = (slot + 1) & mask) {
+            long slotHash = hash(slot);
+            if (slotHash == 0) {
+                return -1;
+            }
+            if (slotHash == key && segment(slot) != DELETED && matcher.matches(segment(slot), offset(slot))) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Записывает позицию кода: обновляет существующий слот или занимает свободный.
+     * Перед вставкой вызывающий проверяет {@link #needsResize()}.
+     */
+    void put(long hash, SlotMatcher matcher, int segment, long offset, int clicks) throws IOException {
+        int existing = find(hash, matcher);
+        if (existing >= 0) {
+            write(existing, nonZero(hash), segment, offset, clicks);
+            return;
+        }
+        long key = nonZero(hash);
+        for (int i = 0, slot = (int) key & mask; i < capacity; i++, slot = (slot + 1) & mask) {
+            long slotHash = hash(slot);
+            if (slotHash == 0 || segment(slot) == DELETED) {
+                if (slotHash != 0) {
+                    buffer.putInt(H_TOMBSTONES, tombstones() - 1);
+                }
+                write(slot, key, segment, offset, clicks);
+                buffer.putInt(H_SIZE, size() + 1);
+                return;
+            }
+        }
+        throw new IllegalStateException("Link index is full");
+    }
+
+    void setClicks(int slot, int clicks) {
+        buffer.putInt(slotBase(slot) + S_CLICKS, clicks);
+    }
+
+    void setLocation(int slot, int segment, long offset) {
+        int base = slotBase(slot);
+        buffer.putInt(base + S_SEGMENT, segment);
+        buffer.putLong(base + S_OFFSET, offset);
+    }
+
+    /**
+     * Помечает слот удаленным. Хеш остается, чтобы не разрывать цепочки пробирования.
+     */
+    void remove(int slot) {
+        buffer.putInt(slotBase(slot) + S_SEGMENT, DELETED);
+        buffer.putInt(H_SIZE, size() - 1);
+        buffer.putInt(H_TOMBSTONES, tombstones() + 1);
+    }
+
+    boolean isLive(int slot) {
+        return hash(slot) != 0 && segment(slot) != DELETED;
+    }
+
+    int segment(int slot) {
+        return buffer.getInt(slotBase(slot) + S_SEGMENT);
+    }
+
+    long offset(int slot) {
+        return buffer.getLong(slotBase(slot) + S_OFFSET);
+    }
+
+    int clicks(int slot) {
+        return buffer.getInt(slotBase(slot) + S_CLICKS);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int size() {
+        return buffer.getInt(H_SIZE);
+    }
+
+    boolean needsResize() {
+        return size() + tombstones() + 1 > capacity * MAX_LOAD;
+    }
+
+    /**
+     * Перестраивает индекс в новый файл: живые слоты переносятся, удаленные отбрасываются.
+     * Емкость удваивается, если живых записей больше половины допустимой загрузки.
+     */
+    MappedIndex resize() throws IOException {
+        int newCapacity = size() + 1 > capacity * MAX_LOAD / 2 ? capacity * 2 : capacity;
+        Path target = file.resolveSibling(file.getFileName() + ".resize");
+        MappedIndex resized = create(target, newCapacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            if (isLive(slot)) {
+                resized.insertUnique(hash(slot), segment(slot), offset(slot), clicks(slot));
+            }
+        }
+        resized.setCheckpoint(checkpointSegment(), checkpointOffset());
+        resized.setSequence(sequence());
+        resized.force();
+        resized.close();
+        close();
+        Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new MappedIndex(file, resized.capacity, false);
+    }
+
+    int checkpointSegment() {
+        return buffer.getInt(H_CHECKPOINT_SEGMENT);
+    }
+
+    long checkpointOffset() {
+        return buffer.getLong(H_CHECKPOINT_OFFSET);
+    }
+
+    void setCheckpoint(int segment, long offset) {
+        buffer.putInt(H_CHECKPOINT_SEGMENT, segment);
+        buffer.putLong(H_CHECKPOINT_OFFSET, offset);
+    }
+
+    long sequence() {
+        return buffer.getLong(H_SEQUENCE);
+    }
+
+    void setSequence(long value) {
+        buffer.putLong(H_SEQUENCE, value);
+    }
+
+    boolean isClean() {
+        return buffer.get(H_CLEAN) == 1;
+    }
+
+    void setClean(boolean clean) {
+        buffer.put(H_CLEAN, (byte) (clean ? 1 : 0));
+    }
+
+    boolean isCompacting() {
+        return buffer.get(H_COMPACTING) == 1;
+    }
+
+    void setCompacting(boolean compacting) {
+        buffer.put(H_COMPACTING, (byte) (compacting ? 1 : 0));
+    }
+
+    long sizeBytes() {
+        return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void insertUnique(long key, int segment, long offset, int clicks) {
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            if (hash(slot) == 0) {
+                write(slot, key, segment, offset, clicks);
+                buffer.putInt(H_SIZE, size() + 1);
+                return;
+            }
+        }
+    }
+
+    private void write(int slot, long key, int segment, long offset, int clicks) {
+        int base = slotBase(slot);
+        buffer.putInt(base + S_SEGMENT, segment);
+        buffer.putLong(base + S_OFFSET, offset);
+        buffer.putInt(base + S_CLICKS, clicks);
+        buffer.putLong(base + S_HASH, key);
+    }
+
+    private long hash(int slot) {
+        return buffer.getLong(slotBase(slot) + S_HASH);
+    }
+
+    private int tombstones() {
+        return buffer.getInt(H_TOMBSTONES);
+    }
+
+    private static int slotBase(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long nonZero(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Проверяет, что слот с совпавшим хешем принадлежит искомому коду.
+     */
+    @FunctionalInterface
+    interface SlotMatcher {
+        boolean matches(int segment, long offset) throws IOException;
+    }
+}
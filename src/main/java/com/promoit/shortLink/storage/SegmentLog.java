@@ -0,0 +1,224 @@
+package com.promoit.shortLink.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Журнал ссылок из сегментов с дописыванием в конец. Запись идет только в последний (активный) сегмент,
+ * закрытые сегменты неизменяемы и переписываются только компакцией. Чтение по позиции потокобезопасно.
+ * Запись и смена сегментов выполняются под блокировкой записи {@link LogLinkStore}.
+ */
+@Slf4j
+final class SegmentLog implements Closeable {
+    private static final String SUFFIX = ".seg";
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+    private final NavigableMap<Integer, FileChannel> segments = new ConcurrentSkipListMap<>();
+    private int activeId;
+    private FileChannel active;
+    private long activeSize;
+
+    SegmentLog(Path dir, long maxSegmentBytes) throws IOException {
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                int id = Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+                segments.put(id, FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(1);
+        }
+        activeId = segments.lastKey();
+        active = segments.get(activeId);
+        activeSize = active.size();
+    }
+
+    /**
+     * Дописывает кадр в активный сегмент, при переполнении сначала открывает новый сегмент.
+     * @return позиция кадра в активном сегменте ({@link #activeSegment()})
+     */
+    long append(ByteBuffer frame) throws IOException {
+        if (activeSize > 0 && activeSize + frame.remaining() > maxSegmentBytes) {
+            roll();
+        }
+        long offset = activeSize;
+        while (frame.hasRemaining()) {
+            activeSize += active.write(frame, activeSize);
+        }
+        return offset;
+    }
+
+    /**
+     * Читает запись по позиции.
+     * @throws IOException если кадр поврежден
+     */
+    LinkRecord read(int segment, long offset) throws IOException {
+        FileChannel channel = segments.get(segment);
+        if (channel == null) {
+            throw new IOException("Segment " + segment + " does not exist");
+        }
+        ByteBuffer body = readBody(channel, offset, channel.size());
+        if (body == null) {
+            throw new IOException("Corrupted record at " + segment + ":" + offset);
+        }
+        return LinkRecord.decode(body);
+    }
+
+    /**
+     * Последовательно читает записи начиная с позиции. Поврежденный или недописанный кадр в активном сегменте
+     * считается хвостом после сбоя: сегмент обрезается по последней целой записи.
+     */
+    void scan(int fromSegment, long fromOffset, RecordVisitor visitor) throws IOException {
+        for (Map.Entry<Integer, FileChannel> entry : segments.tailMap(fromSegment, true).entrySet()) {
+            int segment = entry.getKey();
+            FileChannel channel = entry.getValue();
+            long size = channel.size();
+            long offset = segment == fromSegment ? fromOffset : 0;
+            while (offset < size) {
+                ByteBuffer body = readBody(channel, offset, size);
+                if (body == null) {
+                    if (segment != activeId) {
+                        throw new IOException("Corrupted sealed segment " + segment + " at " + offset);
+                    }
+                    log.warn("STORE - Truncating torn tail of segment {} at {} ({} bytes dropped)", segment, offset, size - offset);
+                    channel.truncate(offset);
+                    activeSize = offset;
+                    break;
+                }
+                int frameLength = LinkRecord.FRAME_HEADER + body.remaining();
+                visitor.visit(LinkRecord.decode(body), segment, offset);
+                offset += frameLength;
+            }
+        }
+    }
+
+    /**
+     * Закрывает активный сегмент и открывает следующий.
+     */
+    void roll() throws IOException {
+        active.force(false);
+        openSegment(activeId + 1);
+        activeId = segments.lastKey();
+        active = segments.get(activeId);
+        activeSize = 0;
+    }
+
+    /**
+     * Заменяет закрытые сегменты до target включительно файлом компакции, который получает номер target.
+     */
+    void replaceSealed(int target, Path compacted) throws IOException {
+        List<Integer> sealed = new ArrayList<>(segments.headMap(target, true).keySet());
+        for (int id : sealed) {
+            segments.remove(id).close();
+        }
+        Files.move(compacted, segmentPath(target), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (int id : sealed) {
+            if (id != target) {
+                Files.deleteIfExists(segmentPath(id));
+            }
+        }
+        segments.put(target, FileChannel.open(segmentPath(target), StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    void force() throws IOException {
+        active.force(false);
+    }
+
+    int activeSegment() {
+        return activeId;
+    }
+
+    long activeSize() {
+        return activeSize;
+    }
+
+    int firstSegment() {
+        return segments.firstKey();
+    }
+
+    long sizeBytes() throws IOException {
+        long total = 0;
+        for (FileChannel channel : segments.values()) {
+            total += channel.size();
+        }
+        return total;
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : segments.values()) {
+            channel.close();
+        }
+        segments.clear();
+    }
+
+    private void openSegment(int id) throws IOException {
+        segments.put(id, FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    private Path segmentPath(int id) {
+        return dir.resolve(String.format("%08d%s", id, SUFFIX));
+    }
+
+    /**
+     * Читает тело кадра и проверяет его длину и CRC.
+     * @return тело или null, если кадр поврежден или дописан не до конца
+     */
+    private static ByteBuffer readBody(FileChannel channel, long offset, long size) throws IOException {
+        if (offset + LinkRecord.FRAME_HEADER > size) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(LinkRecord.FRAME_HEADER);
+        readFully(channel, header, offset);
+        int length = header.getInt(0);
+        int crc = header.getInt(4);
+        if (length <= 0 || length > MAX_RECORD_BYTES || offset + LinkRecord.FRAME_HEADER + length > size) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(channel, body, offset + LinkRecord.FRAME_HEADER);
+        if (LinkRecord.crc(body.array(), 0, length) != crc) {
+            return null;
+        }
+        return body.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(LinkRecord record, int segment, long offset) throws IOException;
+    }
+}
@@ -0,0 +1,109 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LinkCacheSnapshotTest {
+    @Mock
+    private LinkCache linkCache;
+    @Mock
+    private LinkRepository linkRepository;
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private LinkCacheSnapshot linkCacheSnapshot;
+    @TempDir
+    private Path dir;
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("snapshot.bin");
+        lenient().when(appConfig.isCacheSnapshotEnabled()).thenReturn(true);
+        lenient().when(appConfig.getCacheSnapshotFile()).thenReturn(file.toString());
+        lenient().when(appConfig.getCacheSnapshotMaxEntries()).thenReturn(100);
+        lenient().when(appConfig.getCacheSnapshotLoadTimeoutMillis()).thenReturn(10_000L);
+        lenient().when(linkCache.warm(any())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Снимок должен прогревать кэш действующими ссылками, пропуская удаленные за время простоя")
+    void writeAndLoad_ShouldWarmCacheWithExistingLinks() throws Exception {
+        LinkSnapshot limited = new LinkSnapshot("hot1", "https://example.com/1", "user1", 10, LocalDateTime.now().plusHours(1), null);
+        LinkSnapshot unlimited = new LinkSnapshot("hot2", "https://example.com/пример", null, null, null, null);
+        LinkSnapshot deleted = new LinkSnapshot("gone", "https://example.com/3", "user1", null, LocalDateTime.now().plusHours(1), null);
+        when(linkCache.hottest(100)).thenReturn(List.of(limited, unlimited, deleted));
+        linkCacheSnapshot.load();
+        linkCacheSnapshot.write();
+        when(linkRepository.findExistingShortCodes(anyCollection())).thenReturn(List.of("hot1", "hot2"));
+
+        linkCacheSnapshot.load();
+
+        verify(linkCache).warm(limited);
+        verify(linkCache).warm(unlimited);
+        verify(linkCache, never()).warm(deleted);
+        assertEquals(2, linkCacheSnapshot.getLastLoadedEntries());
+        assertEquals(3, linkCacheSnapshot.getLastWrittenEntries());
+        assertEquals(Files.size(file), linkCacheSnapshot.getLastWrittenBytes());
+    }
+
+    @Test
+    @DisplayName("Ссылки, истекшие за время простоя, не должны загружаться в кэш")
+    void load_WhenLinkExpiredWhileDown_ShouldSkipIt() throws Exception {
+        LinkSnapshot expiring = new LinkSnapshot("soon", "https://example.com/soon", "user1", null, LocalDateTime.now().plusNanos(50_000_000), null);
+        when(linkCache.hottest(100)).thenReturn(List.of(expiring));
+        linkCacheSnapshot.load();
+        linkCacheSnapshot.write();
+        Thread.sleep(100);
+
+        linkCacheSnapshot.load();
+
+        verify(linkCache, never()).warm(any());
+        verifyNoInteractions(linkRepository);
+    }
+
+    @Test
+    @DisplayName("Поврежденный снимок должен игнорироваться")
+    void load_WhenSnapshotCorrupt_ShouldStartCold() throws Exception {
+        when(linkCache.hottest(anyInt())).thenReturn(List.of(
+                new LinkSnapshot("hot1", "https://example.com/1", "user1", null, null, null)));
+        linkCacheSnapshot.load();
+        linkCacheSnapshot.write();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        linkCacheSnapshot.load();
+
+        verify(linkCache, never()).warm(any());
+        assertEquals(0, linkCacheSnapshot.getLastLoadedEntries());
+    }
+
+    @Test
+    @DisplayName("До окончания прогрева снимок не должен перезаписываться")
+    void write_BeforeLoad_ShouldDoNothing() {
+        linkCacheSnapshot.write();
+
+        verifyNoInteractions(linkCache);
+        assertFalse(Files.exists(file));
+    }
+}
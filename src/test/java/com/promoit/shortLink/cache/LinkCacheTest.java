@@ -0,0 +1,123 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.storage.LinkStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LinkCacheTest {
+    @Mock
+    private LinkStore linkStore;
+    @Mock
+    private OffHeapLinkTable linkTable;
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private LinkCache linkCache;
+    private LinkEntity link;
+
+    @BeforeEach
+    void setUp() {
+        when(appConfig.getCacheMaxSize()).thenReturn(100L);
+        when(appConfig.getCacheTtlSeconds()).thenReturn(60L);
+        linkCache.init();
+        link = new LinkEntity("cached123", "https://cached.com", new UserEntity(), null, LocalDateTime.now().plusHours(24));
+    }
+
+    @Test
+    @DisplayName("Повторное обращение к ссылке должно обслуживаться из кэша без запроса к хранилищу")
+    void get_WhenCalledTwice_ShouldLoadOnce() {
+        when(linkStore.find("cached123")).thenReturn(Optional.of(LinkSnapshot.from(link)));
+
+        assertTrue(linkCache.get("cached123").isPresent());
+        assertTrue(linkCache.get("cached123").isPresent());
+
+        verify(linkStore, times(1)).find("cached123");
+        assertEquals(1, linkCache.stats().hitCount());
+        assertEquals(1, linkCache.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Параллельные промахи по одному коду должны выполнять один запрос к хранилищу")
+    void get_WithConcurrentMisses_ShouldLoadOnce() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        when(linkStore.find("cached123")).thenAnswer(inv -> {
+            Thread.sleep(100);
+            return Optional.of(LinkSnapshot.from(link));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<LinkSnapshot>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return linkCache.get("cached123");
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<LinkSnapshot>> result : results) {
+                assertTrue(result.get(5, TimeUnit.SECONDS).isPresent());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(linkStore, times(1)).find("cached123");
+    }
+
+    @Test
+    @DisplayName("Ссылка, добавленная через put, должна читаться без обращения к хранилищу")
+    void put_ShouldServeLinkWithoutLoading() {
+        linkCache.put(LinkSnapshot.from(link));
+
+        Optional<LinkSnapshot> result = linkCache.get("cached123");
+
+        assertTrue(result.isPresent());
+        assertEquals("https://cached.com", result.get().getOriginalUrl());
+        verify(linkStore, never()).find(any());
+    }
+
+    @Test
+    @DisplayName("После инвалидации ссылка должна заново загружаться из хранилища")
+    void invalidate_ShouldForceReload() {
+        linkCache.put(LinkSnapshot.from(link));
+        linkCache.invalidate("cached123");
+        when(linkStore.find("cached123")).thenReturn(Optional.empty());
+
+        assertTrue(linkCache.get("cached123").isEmpty());
+        verify(linkStore).find("cached123");
+    }
+
+    @Test
+    @DisplayName("Прогрев не должен затирать запись, уже загруженную из хранилища")
+    void warm_WhenAlreadyCached_ShouldKeepExistingEntry() {
+        linkCache.put(LinkSnapshot.from(link));
+        LinkSnapshot stale = new LinkSnapshot("cached123", "https://stale.com", null, null, null, null);
+
+        assertFalse(linkCache.warm(stale));
+        assertTrue(linkCache.warm(new LinkSnapshot("warm456", "https://warm.com", null, null, null, null)));
+
+        assertEquals("https://cached.com", linkCache.getIfPresent("cached123").orElseThrow().getOriginalUrl());
+        assertEquals(2, linkCache.hottest(10).size());
+    }
+}
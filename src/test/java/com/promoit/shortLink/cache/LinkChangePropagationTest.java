@@ -0,0 +1,109 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.ShortLinkApplication;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Два экземпляра приложения над одной базой H2: изменения, сделанные через первый,
+ * должны доходить до кэша второго через журнал изменений.
+ */
+class LinkChangePropagationTest {
+    private static final long PROPAGATION_TIMEOUT_MILLIS = 5000;
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void startInstances() {
+        first = startInstance();
+        second = startInstance();
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    @DisplayName("Создание, новый лимит и удаление ссылки на одном экземпляре должны доходить до другого")
+    void linkChanges_ShouldPropagateToOtherInstance() {
+        LinkService firstService = first.getBean(LinkService.class);
+        LinkService secondService = second.getBean(LinkService.class);
+        LinkCache secondCache = second.getBean(LinkCache.class);
+        UserEntity user = first.getBean(UserService.class).getOrCreateUser(null);
+        String code = firstService.createShortLink("https://example.com/changes", user, 10).getShortCode();
+
+        await(() -> second.getBean(ShortCodeBloomFilter.class).mightContain(code));
+        assertTrue(secondService.accessLink(code).isAvailable());
+        assertEquals(10, secondCache.getIfPresent(code).map(LinkSnapshot::getClickLimit).orElseThrow());
+
+        LinkEntity updated = firstService.updateClickLimit(code, user.getId(), 100);
+        assertEquals(100, updated.getClickLimit());
+        await(() -> secondCache.get(code).map(LinkSnapshot::getClickLimit).orElse(0) == 100);
+
+        assertTrue(firstService.deleteLink(code, user.getId()));
+        await(() -> secondService.accessLink(code).getStatus() == LinkAccessResult.Status.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("Удаление истекшей ссылки очисткой на одном экземпляре должно доходить до кэша другого")
+    void cleanupDelete_ShouldPropagateToOtherInstance() {
+        LinkService firstService = first.getBean(LinkService.class);
+        LinkService secondService = second.getBean(LinkService.class);
+        UserEntity user = first.getBean(UserService.class).getOrCreateUser(null);
+        String code = firstService.createShortLink("https://example.com/cleanup", user, 10).getShortCode();
+        await(() -> second.getBean(ShortCodeBloomFilter.class).mightContain(code));
+        assertTrue(secondService.accessLink(code).isAvailable());
+
+        first.getBean(JdbcTemplate.class).update("UPDATE link_entity SET expires_at = ? WHERE short_code = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), code);
+        firstService.scheduledDeleteExpiredLinks();
+
+        await(() -> secondService.accessLink(code).getStatus() == LinkAccessResult.Status.NOT_FOUND);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + PROPAGATION_TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Change did not propagate within " + PROPAGATION_TIMEOUT_MILLIS + " ms");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startInstance() {
+        return new SpringApplicationBuilder(ShortLinkApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:link-changes;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.main.banner-mode=off",
+                        "--app.link-changes.enabled=true",
+                        "--app.link-changes.poll-interval=100",
+                        "--app.cache.snapshot.enabled=false");
+    }
+}
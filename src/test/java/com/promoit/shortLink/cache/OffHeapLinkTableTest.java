@@ -0,0 +1,159 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.ActiveLinkView;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OffHeapLinkTableTest {
+    @Mock
+    private LinkRepository linkRepository;
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private OffHeapLinkTable linkTable;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.isLinkTableEnabled()).thenReturn(true);
+        lenient().when(appConfig.getLinkTableChunkBytes()).thenReturn(64L * 1024);
+        lenient().when(appConfig.getLinkTableInitialCapacity()).thenReturn(16L);
+        linkTable.init();
+    }
+
+    @Test
+    @DisplayName("Снимок ссылки должен читаться из таблицы без потерь")
+    void get_AfterPut_ShouldReturnSameSnapshot() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com/пример", "user1", 10, expiresAt, createdAt);
+
+        assertTrue(linkTable.put(link));
+
+        assertEquals(link, linkTable.get("abc123"));
+        assertNull(linkTable.get("abc124"));
+        assertEquals(1, linkTable.size());
+    }
+
+    @Test
+    @DisplayName("Проверка доступа должна учитывать срок действия и лимит переходов")
+    void check_ShouldMirrorCanBeAccessed() {
+        long now = System.currentTimeMillis();
+        linkTable.put(new LinkSnapshot("open", "https://example.com", null, null, null, null));
+        linkTable.put(new LinkSnapshot("expired", "https://example.com", null, null, LocalDateTime.now().minusMinutes(1), null));
+        linkTable.put(new LinkSnapshot("limited", "https://example.com", "user1", 2, null, null));
+
+        assertEquals(OffHeapLinkTable.ACCESSIBLE, linkTable.check("open", now));
+        assertEquals(OffHeapLinkTable.EXPIRED, linkTable.check("expired", now));
+        assertEquals(OffHeapLinkTable.ABSENT, linkTable.check("missing", now));
+        linkTable.recordClick("limited");
+        assertEquals(OffHeapLinkTable.ACCESSIBLE, linkTable.check("limited", now));
+        linkTable.recordClick("limited");
+        assertEquals(OffHeapLinkTable.EXHAUSTED, linkTable.check("limited", now));
+    }
+
+    @Test
+    @DisplayName("Удаленная ссылка должна пропадать из таблицы и добавляться заново")
+    void remove_ShouldHideLinkUntilPutAgain() {
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com", null, null, null, null);
+        linkTable.put(link);
+
+        linkTable.remove("abc123");
+
+        assertNull(linkTable.get("abc123"));
+        assertEquals(0, linkTable.size());
+        linkTable.put(link);
+        assertEquals(link, linkTable.get("abc123"));
+    }
+
+    @Test
+    @DisplayName("Таблица должна расти и переписывать записи, не теряя действующие ссылки")
+    void put_ManyLinksAndUpdates_ShouldGrowAndCompact() {
+        for (int i = 0; i < 20_000; i++) {
+            linkTable.put(new LinkSnapshot("c" + i, "https://example.com/" + i, null, null, null, null));
+        }
+        long grown = linkTable.getMemoryBytes();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 20_000; i++) {
+                linkTable.put(new LinkSnapshot("c" + i, "https://example.org/" + round + "/" + i, null, null, null, null));
+            }
+        }
+        for (int i = 0; i < 20_000; i += 2) {
+            linkTable.remove("c" + i);
+        }
+
+        assertEquals(10_000, linkTable.size());
+        assertTrue(linkTable.getMemoryBytes() < 3 * grown);
+        for (int i = 0; i < 20_000; i++) {
+            LinkSnapshot link = linkTable.get("c" + i);
+            if (i % 2 == 0) {
+                assertNull(link);
+            } else {
+                assertEquals("https://example.org/2/" + i, link.getOriginalUrl());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Код вне ASCII не должен попадать в таблицу и находить чужую запись")
+    void put_NonAsciiCode_ShouldBeRejected() {
+        linkTable.put(new LinkSnapshot("A", "https://example.com", null, null, null, null));
+
+        assertFalse(linkTable.put(new LinkSnapshot("Ł", "https://example.com", null, null, null, null)));
+        assertEquals(OffHeapLinkTable.ABSENT, linkTable.check("Ł", System.currentTimeMillis()));
+    }
+
+    @Test
+    @DisplayName("Загрузка из базы не должна затирать ссылки, записанные во время загрузки")
+    void load_ShouldKeepNewerEntriesAndCountClicks() {
+        linkTable.put(new LinkSnapshot("fresh", "https://example.com/new", "user1", null, null, null));
+        when(linkRepository.findActiveLinksAfter(eq(""), any(), any())).thenReturn(List.of(
+                new ActiveLinkView("fresh", "https://example.com/old", "user1", null, 0, null, null),
+                new ActiveLinkView("used", "https://example.com/used", "user1", 5, 5, null, null)));
+
+        linkTable.load();
+
+        assertEquals("https://example.com/new", linkTable.get("fresh").getOriginalUrl());
+        assertEquals(OffHeapLinkTable.EXHAUSTED, linkTable.check("used", System.currentTimeMillis()));
+    }
+
+    @Test
+    @DisplayName("Загрузка из базы не должна возвращать ссылку, удаленную во время загрузки")
+    void load_WithRemoveDuringLoad_ShouldNotRestoreLink() {
+        when(linkRepository.findActiveLinksAfter(eq(""), any(), any())).thenAnswer(inv -> {
+            linkTable.remove("gone");
+            return List.of(new ActiveLinkView("gone", "https://example.com/gone", "user1", null, 0, null, null),
+                    new ActiveLinkView("kept", "https://example.com/kept", "user1", null, 0, null, null));
+        });
+
+        linkTable.load();
+
+        assertNull(linkTable.get("gone"));
+        assertEquals("https://example.com/kept", linkTable.get("kept").getOriginalUrl());
+    }
+
+    @Test
+    @DisplayName("Выключенная таблица не должна хранить ссылки")
+    void put_Disabled_ShouldBeNoOp() {
+        OffHeapLinkTable disabled = new OffHeapLinkTable();
+
+        assertFalse(disabled.put(new LinkSnapshot("abc123", "https://example.com", null, null, null, null)));
+        assertNull(disabled.get("abc123"));
+        assertEquals(OffHeapLinkTable.ABSENT, disabled.check("abc123", System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.promoit.shortLink.cache;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShortCodeBloomFilterTest {
+    @Mock
+    private LinkRepository linkRepository;
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private ShortCodeBloomFilter bloomFilter;
+    private final List<String> existingCodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.isBloomEnabled()).thenReturn(true);
+        lenient().when(appConfig.getBloomExpectedInsertions()).thenReturn(10_000L);
+        lenient().when(appConfig.getBloomFalsePositiveRate()).thenReturn(0.01);
+        lenient().when(appConfig.getBloomMaxMemoryBytes()).thenReturn(1_048_576L);
+        for (int i = 0; i < 10_000; i++) {
+            existingCodes.add(String.format("code%05d", i));
+        }
+    }
+
+    @Test
+    @DisplayName("До первой сборки фильтр должен пропускать любые коды")
+    void mightContain_BeforeBuild_ShouldAllowAllCodes() {
+        assertTrue(bloomFilter.mightContain("anything"));
+        assertEquals(0, bloomFilter.getShortCircuitedCount());
+    }
+
+    @Test
+    @DisplayName("Фильтр не должен отклонять существующие коды и должен отсекать большинство случайных")
+    void mightContain_AfterRebuild_ShouldHaveNoFalseNegatives() {
+        when(linkRepository.findActiveShortCodesAfter(eq(""), any(), any())).thenReturn(existingCodes);
+
+        bloomFilter.rebuild();
+
+        existingCodes.forEach(code -> assertTrue(bloomFilter.mightContain(code)));
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloomFilter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertEquals(10_000 - falsePositives, bloomFilter.getShortCircuitedCount());
+    }
+
+    @Test
+    @DisplayName("Новый код должен быть виден сразу после добавления")
+    void put_ShouldMakeCodeVisible() {
+        when(linkRepository.findActiveShortCodesAfter(eq(""), any(), any())).thenReturn(List.of());
+        bloomFilter.rebuild();
+        assertFalse(bloomFilter.mightContain("fresh123"));
+
+        bloomFilter.put("fresh123");
+
+        assertTrue(bloomFilter.mightContain("fresh123"));
+    }
+
+    @Test
+    @DisplayName("Перестроение должно забывать удаленные коды")
+    void rebuild_ShouldDropRemovedCodes() {
+        when(linkRepository.findActiveShortCodesAfter(eq(""), any(), any())).thenReturn(List.of("gone123"), List.of());
+        bloomFilter.rebuild();
+        assertTrue(bloomFilter.mightContain("gone123"));
+
+        bloomFilter.rebuild();
+
+        assertFalse(bloomFilter.mightContain("gone123"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.sharding.ShardRouter;
+import com.promoit.shortLink.storage.LinkStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClickCounterBufferTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private AppConfig appConfig;
+    @Mock
+    private LinkStore linkStore;
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+    @InjectMocks
+    private ClickCounterBuffer clickCounterBuffer;
+
+    @BeforeEach
+    void setUp() {
+        when(appConfig.getClickBufferStripes()).thenReturn(8);
+        clickCounterBuffer.init();
+    }
+
+    @Test
+    @DisplayName("Переходы из разных потоков должны суммироваться и записываться одним пакетом")
+    @SuppressWarnings("unchecked")
+    void flush_WithConcurrentIncrements_ShouldWriteAggregatedCounts() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    clickCounterBuffer.increment("hot123");
+                }
+                clickCounterBuffer.increment("cold123");
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(8008, clickCounterBuffer.pendingCount());
+
+        clickCounterBuffer.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(ClickCounterBuffer.FLUSH_SQL), captor.capture());
+        Map<Object, Object> flushed = new HashMap<>();
+        captor.getValue().forEach(args -> flushed.put(args[1], args[0]));
+        assertEquals(8000L, flushed.get("hot123"));
+        assertEquals(8L, flushed.get("cold123"));
+        assertEquals(0, clickCounterBuffer.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Пустой буфер не должен обращаться к базе")
+    void flush_WithNoClicks_ShouldNotTouchDatabase() {
+        clickCounterBuffer.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("При ошибке записи переходы должны остаться в буфере")
+    void flush_WhenDatabaseFails_ShouldKeepPendingClicks() {
+        clickCounterBuffer.increment("hot123");
+        clickCounterBuffer.increment("hot123");
+        when(jdbcTemplate.batchUpdate(eq(ClickCounterBuffer.FLUSH_SQL), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        clickCounterBuffer.flush();
+
+        assertEquals(2, clickCounterBuffer.pendingCount());
+    }
+
+    @Test
+    @DisplayName("При ошибке одного шарда в буфере должны остаться только его переходы")
+    void flush_WhenOneShardFails_ShouldKeepOnlyItsClicks() {
+        ReflectionTestUtils.setField(shardRouter, "shardCount", 2);
+        String failing = "hot123";
+        String written = IntStream.range(0, 100).mapToObj(i -> "code" + i)
+                .filter(code -> shardRouter.shardOf(code) != shardRouter.shardOf(failing))
+                .findFirst().orElseThrow();
+        clickCounterBuffer.increment(failing);
+        clickCounterBuffer.increment(written);
+        clickCounterBuffer.increment(written);
+        when(jdbcTemplate.batchUpdate(eq(ClickCounterBuffer.FLUSH_SQL), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            if (rows.stream().anyMatch(row -> failing.equals(row[1]))) {
+                throw new DataAccessResourceFailureException("shard down");
+            }
+            return new int[rows.size()];
+        });
+
+        clickCounterBuffer.flush();
+
+        assertEquals(1, clickCounterBuffer.pendingCount());
+        verify(linkStore).addClicks(written, 2);
+        verify(linkStore, never()).addClicks(eq(failing), anyInt());
+    }
+}
@@ -0,0 +1,126 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClickEventLogTest {
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private ClickEventLog clickEventLog;
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.isClickLogEnabled()).thenReturn(true);
+        lenient().when(appConfig.getClickLogDir()).thenReturn(dir.toString());
+        lenient().when(appConfig.getClickLogRingCapacity()).thenReturn(1 << 16);
+        lenient().when(appConfig.getClickLogBatchBytes()).thenReturn(8192);
+        lenient().when(appConfig.getClickLogFlushIntervalMillis()).thenReturn(10L);
+        lenient().when(appConfig.getClickLogRotateBytes()).thenReturn(64L * 1024);
+        lenient().when(appConfig.getClickLogRotateIntervalMillis()).thenReturn(60_000L);
+    }
+
+    @Test
+    @DisplayName("События из разных потоков должны попасть в файлы журнала без потерь и с заголовками")
+    void record_FromManyThreads_ShouldWriteAllEvents() throws Exception {
+        clickEventLog.init();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            String code = "code" + i;
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    clickEventLog.record(code, j % 2 == 0 ? "https://ref.example.com" : null, "Mozilla/5.0");
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        clickEventLog.shutdown();
+
+        Map<String, Integer> counts = new HashMap<>();
+        List<String> referrers = new ArrayList<>();
+        for (Path file : logFiles()) {
+            ClickEventLog.read(file, (time, code, referrer, userAgent) -> {
+                counts.merge(code, 1, Integer::sum);
+                referrers.add(referrer);
+                assertEquals("Mozilla/5.0", userAgent);
+            });
+        }
+        assertEquals(0, clickEventLog.getDroppedCount());
+        assertEquals(8000, clickEventLog.getWrittenCount());
+        assertEquals(8, counts.size());
+        counts.values().forEach(count -> assertEquals(1000, count));
+        assertEquals(4000, referrers.stream().filter(referrer -> referrer == null).count());
+        assertTrue(logFiles().size() > 1);
+    }
+
+    @Test
+    @DisplayName("Недописанная запись в конце файла должна пропускаться при чтении")
+    void read_WithTornTail_ShouldSkipIncompleteRecord() throws Exception {
+        clickEventLog.init();
+        clickEventLog.record("abc123", null, null);
+        clickEventLog.shutdown();
+        Path file = logFiles().get(0);
+        Files.write(file, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<String> codes = new ArrayList<>();
+        ClickEventLog.read(file, (time, code, referrer, userAgent) -> codes.add(code));
+
+        assertEquals(List.of("abc123"), codes);
+    }
+
+    @Test
+    @DisplayName("Выключенный журнал не должен создавать файлы")
+    void record_WhenDisabled_ShouldDoNothing() throws Exception {
+        when(appConfig.isClickLogEnabled()).thenReturn(false);
+        clickEventLog.init();
+
+        assertFalse(clickEventLog.record("abc123", null, null));
+        assertTrue(clickEventLog.sealedFiles().isEmpty());
+        assertEquals(0, logFiles().size());
+    }
+
+    @Test
+    @DisplayName("Текущий файл и файлы новее него не должны считаться закрытыми")
+    void sealedFiles_WithFileNewerThanActive_ShouldSkipIt() throws Exception {
+        clickEventLog.init();
+        clickEventLog.record("abc123", null, null);
+        Path active = logFiles().get(0);
+        Path newer = dir.resolve(String.format("%s%013d%s", ClickEventLog.FILE_PREFIX,
+                ClickEventLog.fileMillis(active) + 1000, ClickEventLog.FILE_SUFFIX));
+        Files.createFile(newer);
+
+        assertTrue(clickEventLog.sealedFiles().isEmpty());
+        Files.delete(newer);
+        clickEventLog.shutdown();
+    }
+
+    private List<Path> logFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(ClickEventLog.FILE_SUFFIX)).sorted().toList();
+        }
+    }
+}
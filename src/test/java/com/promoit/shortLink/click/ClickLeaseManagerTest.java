@@ -0,0 +1,104 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import com.promoit.shortLink.storage.LinkStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClickLeaseManagerTest {
+    @Mock
+    private LinkRepository linkRepository;
+    @Mock
+    private AppConfig appConfig;
+    @Mock
+    private LinkStore linkStore;
+    @InjectMocks
+    private ClickLeaseManager clickLeaseManager;
+    private LinkEntity limitedLink;
+
+    @BeforeEach
+    void setUp() {
+        limitedLink = new LinkEntity("limited123", "https://limited.com", new UserEntity(), 25, LocalDateTime.now().plusHours(24));
+        lenient().when(appConfig.getClickLeaseSize()).thenReturn(10);
+        lenient().when(linkRepository.reserveClicks(eq("limited123"), anyInt(), any())).thenAnswer(inv -> {
+            int clicks = inv.getArgument(1);
+            synchronized (limitedLink) {
+                if (limitedLink.getClickCount() + clicks > limitedLink.getClickLimit()) {
+                    return 0;
+                }
+                limitedLink.setClickCount(limitedLink.getClickCount() + clicks);
+                return 1;
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Параллельные переходы не должны превышать лимит ссылки")
+    void tryAcquire_WithConcurrentClicks_ShouldNotExceedLimit() throws Exception {
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 100; i++) {
+            executor.submit(() -> {
+                if (clickLeaseManager.tryAcquire("limited123")) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(25, granted.get());
+        assertEquals(25, limitedLink.getClickCount());
+    }
+
+    @Test
+    @DisplayName("Переходы должны списываться из аренды без обращения к базе на каждый клик")
+    void tryAcquire_WithinLease_ShouldReserveOnce() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(clickLeaseManager.tryAcquire("limited123"));
+        }
+        verify(linkRepository, times(1)).reserveClicks(eq("limited123"), eq(10), any());
+        assertEquals(10, limitedLink.getClickCount());
+    }
+
+    @Test
+    @DisplayName("У лимита аренда должна уменьшаться, чтобы выдать ровно оставшиеся переходы")
+    void tryAcquire_NearLimit_ShouldShrinkLease() {
+        limitedLink.setClickCount(18);
+        int granted = 0;
+        while (clickLeaseManager.tryAcquire("limited123")) {
+            granted++;
+        }
+        assertEquals(7, granted);
+        assertEquals(25, limitedLink.getClickCount());
+    }
+
+    @Test
+    @DisplayName("Освобождение аренды должно возвращать неиспользованные переходы в базу")
+    void release_ShouldReturnUnusedClicks() {
+        assertTrue(clickLeaseManager.tryAcquire("limited123"));
+
+        clickLeaseManager.release("limited123");
+
+        verify(linkRepository).releaseClicks("limited123", 9);
+    }
+}
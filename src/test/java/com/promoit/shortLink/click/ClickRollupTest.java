@@ -0,0 +1,113 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClickRollupTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private ClickRollup clickRollup;
+    @TempDir
+    private Path dir;
+    private final AppConfig logConfig = mock(AppConfig.class);
+    private ClickEventLog clickEventLog;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        when(logConfig.isClickLogEnabled()).thenReturn(true);
+        when(logConfig.getClickLogDir()).thenReturn(dir.toString());
+        when(logConfig.getClickLogRingCapacity()).thenReturn(1024);
+        when(logConfig.getClickLogBatchBytes()).thenReturn(8192);
+        when(logConfig.getClickLogFlushIntervalMillis()).thenReturn(10L);
+        when(logConfig.getClickLogRotateBytes()).thenReturn(64L * 1024 * 1024);
+        when(logConfig.getClickLogRotateIntervalMillis()).thenReturn(60_000L);
+        clickEventLog = new ClickEventLog();
+        ReflectionTestUtils.setField(clickEventLog, "appConfig", logConfig);
+        ReflectionTestUtils.setField(clickRollup, "clickEventLog", clickEventLog);
+        lenient().when(appConfig.isClickLogEnabled()).thenReturn(true);
+        lenient().when(appConfig.getClickLogRetentionHours()).thenReturn(168L);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("Сводка должна суммировать события файла по ссылке и часу и отмечать файл как учтенный")
+    @SuppressWarnings("unchecked")
+    void rollup_ShouldAggregateSealedFilesByHour() throws Exception {
+        clickEventLog.init();
+        for (int i = 0; i < 5; i++) {
+            clickEventLog.record("hot123", null, null);
+        }
+        clickEventLog.record("cold123", "https://ref.example.com", null);
+        clickEventLog.shutdown();
+        ReflectionTestUtils.setField(clickEventLog, "activeFile", null);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of());
+
+        clickRollup.rollup();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(ClickRollup.MERGE_SQL), captor.capture());
+        Map<Object, Object> counts = new HashMap<>();
+        captor.getValue().forEach(row -> {
+            assertInstanceOf(Timestamp.class, row[1]);
+            counts.put(row[0], row[2]);
+        });
+        assertEquals(5L, counts.get("hot123"));
+        assertEquals(1L, counts.get("cold123"));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO click_log_rollup"), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Уже учтенный файл не должен сводиться повторно")
+    void rollup_WhenFileAlreadyRolled_ShouldSkipIt() throws Exception {
+        clickEventLog.init();
+        clickEventLog.record("hot123", null, null);
+        clickEventLog.shutdown();
+        ReflectionTestUtils.setField(clickEventLog, "activeFile", null);
+        List<String> names;
+        try (Stream<Path> files = Files.list(dir)) {
+            names = files.map(file -> file.getFileName().toString()).toList();
+        }
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(names);
+
+        clickRollup.rollup();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verifyNoInteractions(transactionTemplate);
+    }
+}
@@ -0,0 +1,107 @@
+package com.promoit.shortLink.click;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkTraffic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LinkTrafficStatsTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private LinkTrafficStats linkTrafficStats;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.isTrafficEnabled()).thenReturn(true);
+        lenient().when(appConfig.getTrafficMaxLinks()).thenReturn(100);
+        lenient().when(appConfig.getTrafficIdleMillis()).thenReturn(3_600_000L);
+    }
+
+    @Test
+    @DisplayName("Переходы из разных потоков должны учитываться без потерь")
+    void record_FromManyThreads_ShouldCountEveryClick() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    linkTrafficStats.record("hot123", NOW);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        LinkTraffic traffic = linkTrafficStats.get("hot123", NOW).orElseThrow();
+
+        assertEquals(8000, traffic.getLastMinute());
+        assertEquals(8000, traffic.getLastHour());
+        assertEquals(8000, traffic.getPerSecond()[LinkTrafficStats.SLOTS - 1]);
+    }
+
+    @Test
+    @DisplayName("Переходы должны раскладываться по секундам и минутам и выпадать из окна по мере его сдвига")
+    void get_ShouldSlideWindows() {
+        linkTrafficStats.record("abc123", NOW);
+        linkTrafficStats.record("abc123", NOW + 1_000);
+        linkTrafficStats.record("abc123", NOW + 1_500);
+
+        LinkTraffic afterSecond = linkTrafficStats.get("abc123", NOW + 1_000).orElseThrow();
+        assertEquals(3, afterSecond.getLastMinute());
+        assertEquals(2, afterSecond.getPerSecond()[LinkTrafficStats.SLOTS - 1]);
+        assertEquals(1, afterSecond.getPerSecond()[LinkTrafficStats.SLOTS - 2]);
+
+        linkTrafficStats.record("abc123", NOW + 120_000);
+        LinkTraffic afterTwoMinutes = linkTrafficStats.get("abc123", NOW + 120_000).orElseThrow();
+        assertEquals(1, afterTwoMinutes.getLastMinute());
+        assertEquals(4, afterTwoMinutes.getLastHour());
+
+        LinkTraffic afterTwoHours = linkTrafficStats.get("abc123", NOW + 7_200_000).orElseThrow();
+        assertEquals(0, afterTwoHours.getLastHour());
+    }
+
+    @Test
+    @DisplayName("Ячейка прошлого круга буфера должна обнуляться при новом переходе")
+    void record_AfterFullCycle_ShouldResetStaleSlot() {
+        linkTrafficStats.record("abc123", NOW);
+        linkTrafficStats.record("abc123", NOW + 60_000);
+
+        LinkTraffic traffic = linkTrafficStats.get("abc123", NOW + 60_000).orElseThrow();
+
+        assertEquals(1, traffic.getLastMinute());
+        assertEquals(2, traffic.getLastHour());
+    }
+
+    @Test
+    @DisplayName("Ссылки без переходов должны вытесняться, а число отслеживаемых ссылок - ограничиваться")
+    void evictIdle_ShouldBoundTrackedLinks() {
+        when(appConfig.getTrafficMaxLinks()).thenReturn(2);
+        linkTrafficStats.record("old123", NOW);
+        linkTrafficStats.record("new123", NOW + 3_000_000);
+        linkTrafficStats.record("extra1", NOW + 3_000_000);
+
+        assertEquals(2, linkTrafficStats.size());
+        assertEquals(1, linkTrafficStats.getRejectedCount());
+
+        linkTrafficStats.evictIdle(NOW + 4_000_000);
+
+        assertTrue(linkTrafficStats.get("old123").isEmpty());
+        assertTrue(linkTrafficStats.get("new123").isPresent());
+        linkTrafficStats.discard(List.of("new123"));
+        assertEquals(0, linkTrafficStats.size());
+    }
+}
@@ -0,0 +1,51 @@
+package com.promoit.shortLink.code;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RandomShortCodeGeneratorTest {
+    @Mock
+    private LinkRepository linkRepository;
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private RandomShortCodeGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        when(appConfig.getCodeLength()).thenReturn(9);
+        when(appConfig.getCodeMaxAttempts()).thenReturn(3);
+        generator.init();
+    }
+
+    @Test
+    @DisplayName("При коллизии генератор должен повторить попытку")
+    void nextCode_WithCollision_ShouldRetry() {
+        when(linkRepository.existsById(anyString())).thenReturn(true, false);
+
+        String code = generator.nextCode();
+
+        assertEquals(9, code.length());
+        verify(linkRepository, times(2)).existsById(anyString());
+    }
+
+    @Test
+    @DisplayName("Если все попытки заняты, генератор должен выбросить исключение")
+    void nextCode_WhenAllAttemptsCollide_ShouldThrow() {
+        when(linkRepository.existsById(anyString())).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> generator.nextCode());
+        verify(linkRepository, times(3)).existsById(anyString());
+    }
+}
@@ -0,0 +1,112 @@
+package com.promoit.shortLink.code;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.storage.LinkStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SequenceShortCodeGeneratorTest {
+    private static final int BLOCK_SIZE = 100;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private AppConfig appConfig;
+    @Mock
+    private LinkStore linkStore;
+    @InjectMocks
+    private SequenceShortCodeGenerator generator;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        when(appConfig.getCodeLength()).thenReturn(9);
+        when(appConfig.getCodeSecret()).thenReturn("test-secret");
+        when(appConfig.getCodeBlockSize()).thenReturn(BLOCK_SIZE);
+        lenient().when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenAnswer(inv -> sequence.getAndAdd(BLOCK_SIZE));
+        generator.init();
+    }
+
+    @Test
+    @DisplayName("Без ключа перестановки генератор не должен запускаться")
+    void init_BlankSecret_ShouldFail() {
+        when(appConfig.getCodeSecret()).thenReturn(" ");
+
+        assertThrows(IllegalStateException.class, generator::init);
+    }
+
+    @Test
+    @DisplayName("Коды из параллельных потоков должны быть уникальными и иметь заданную длину")
+    void nextCode_FromConcurrentThreads_ShouldBeUnique() throws Exception {
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 5000; j++) {
+                    codes.add(generator.nextCode());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(40000, codes.size());
+        assertTrue(codes.stream().allMatch(code -> code.length() == 9 && code.chars().allMatch(Character::isLetterOrDigit)));
+        verify(jdbcTemplate, times(400)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @Test
+    @DisplayName("Пачка кодов через границу блоков должна быть уникальной и не пересекаться с одиночными кодами")
+    void nextCodes_AcrossBlocks_ShouldBeUnique() {
+        String single = generator.nextCode();
+
+        List<String> batch = generator.nextCodes(250);
+
+        assertEquals(250, batch.size());
+        assertEquals(250, new HashSet<>(batch).size());
+        assertFalse(batch.contains(single));
+        verify(jdbcTemplate, times(3)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @Test
+    @DisplayName("Соседние номера не должны давать соседние коды")
+    void nextCode_ShouldNotLookSequential() {
+        String first = generator.nextCode();
+        String second = generator.nextCode();
+        assertNotEquals(first.substring(0, 8), second.substring(0, 8));
+    }
+
+    @Test
+    @DisplayName("Перестановка должна быть биекцией на всем диапазоне")
+    void scramble_ShouldBeBijective() {
+        long domain = Base62.capacity(2);
+        CodeScrambler scrambler = new CodeScrambler(domain, "test-secret");
+        Set<Long> values = new HashSet<>();
+        for (long i = 0; i < domain; i++) {
+            long scrambled = scrambler.scramble(i);
+            assertTrue(scrambled >= 0 && scrambled < domain);
+            values.add(scrambled);
+        }
+        assertEquals(domain, values.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.promoit.shortLink.controller;
+
+import com.promoit.shortLink.click.ClickEventLog;
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.metrics.LinkMetrics;
+import com.promoit.shortLink.service.LinkService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncRedirectControllerTest {
+    @Mock
+    private LinkService linkService;
+    @Mock
+    private LinkMetrics linkMetrics;
+    @Mock
+    private ClickEventLog clickEventLog;
+    @Mock
+    private RedirectResponses redirectResponses;
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private AsyncRedirectController controller;
+
+    @BeforeEach
+    void setUp() {
+        when(appConfig.getRedirectAsyncPoolSize()).thenReturn(1);
+        when(appConfig.getRedirectAsyncQueueSize()).thenReturn(1);
+        controller.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        controller.shutdown();
+    }
+
+    @Test
+    @DisplayName("Промах кэша сверх пула и очереди должен получать 503, а не ждать в памяти")
+    void redirectToOriginal_LookupQueueFull_ShouldReturnServiceUnavailable() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(linkService.accessLinkIfCached(anyString())).thenReturn(Optional.empty());
+        when(linkService.accessLink(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return LinkAccessResult.notFound();
+        });
+
+        CompletableFuture<ResponseEntity<String>> running = controller.redirectToOriginal("a", null, null, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ResponseEntity<String>> queued = controller.redirectToOriginal("b", null, null, null);
+        ResponseEntity<String> rejected = controller.redirectToOriginal("c", null, null, null).get(1, TimeUnit.SECONDS);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+        assertEquals("1", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        release.countDown();
+        assertEquals(HttpStatus.NOT_FOUND, running.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, queued.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
+}
@@ -0,0 +1,57 @@
+package com.promoit.shortLink.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.nio.charset.StandardCharsets;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+class LinkControllerBatchTest {
+    private static final int LINKS = 600;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Пачка больше емкости лимита одиночных запросов и больше порции должна создаваться целиком с лимитами по умолчанию")
+    void createShortLinks_LargerThanShortenBurst_ShouldCreateAllLinks() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < LINKS; i++) {
+            body.append("{\"url\":\"https://example.com/batch/").append(i).append("\"}\n");
+        }
+
+        MvcResult started = mockMvc.perform(post("/shorten/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .header("X-User-ID", "batch-user")
+                        .content(body.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(LINKS, lines.length);
+        for (String line : lines) {
+            JsonNode item = objectMapper.readTree(line);
+            assertTrue(item.get("success").asBoolean(), line);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.promoit.shortLink.controller;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedirectResponsesTest {
+    @Mock
+    private AppConfig appConfig;
+    @InjectMocks
+    private RedirectResponses redirectResponses;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.getCacheMaxSize()).thenReturn(100L);
+        lenient().when(appConfig.getCacheTtlSeconds()).thenReturn(60L);
+        lenient().when(appConfig.isRedirectCacheable()).thenReturn(true);
+        lenient().when(appConfig.getRedirectCacheMaxAgeSeconds()).thenReturn(86400L);
+        redirectResponses.init();
+    }
+
+    @Test
+    @DisplayName("Ссылка без лимита должна кэшироваться не дольше, чем живет сама ссылка")
+    void write_UnlimitedLink_ShouldSetMaxAgeUntilExpiry() {
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com", "user1", null,
+                LocalDateTime.now().plusHours(1), LocalDateTime.of(2025, 1, 1, 12, 0));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        redirectResponses.write(link, null, response);
+
+        assertEquals(HttpStatus.FOUND.value(), response.getStatus());
+        assertEquals("https://example.com", response.getHeader(HttpHeaders.LOCATION));
+        String cacheControl = response.getHeader(HttpHeaders.CACHE_CONTROL);
+        assertTrue(cacheControl.startsWith("public, max-age="));
+        long maxAge = Long.parseLong(cacheControl.substring("public, max-age=".length()));
+        assertTrue(maxAge > 3500 && maxAge <= 3600);
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.LAST_MODIFIED).endsWith("GMT"));
+    }
+
+    @Test
+    @DisplayName("Бессрочная ссылка должна кэшироваться на app.redirect.cache-max-age-seconds")
+    void write_LinkWithoutExpiry_ShouldUseConfiguredMaxAge() {
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com", null, null, null, null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        redirectResponses.write(link, null, response);
+
+        assertEquals("public, max-age=86400", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    @DisplayName("Ссылка с лимитом переходов не должна кэшироваться")
+    void write_LimitedLink_ShouldSetNoStore() {
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com", "user1", 10,
+                LocalDateTime.now().plusHours(1), LocalDateTime.now());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        redirectResponses.write(link, null, response);
+
+        assertEquals(HttpStatus.FOUND.value(), response.getStatus());
+        assertEquals("no-store", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Совпадающий If-None-Match должен давать 304 без Location")
+    void toResponse_MatchingIfNoneMatch_ShouldReturnNotModified() {
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com", "user1", null,
+                LocalDateTime.now().plusHours(1), LocalDateTime.now());
+        String etag = redirectResponses.toResponse(link, null).getHeaders().getETag();
+
+        ResponseEntity<String> response = redirectResponses.toResponse(link, etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getHeaders().getLocation());
+        assertEquals(etag, response.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("If-None-Match со списком и слабым ETag должен давать 304 и в ответе сервлета")
+    void write_WeakEtagInList_ShouldReturnNotModified() {
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com", "user1", null,
+                LocalDateTime.now().plusHours(1), LocalDateTime.now());
+        String etag = redirectResponses.toResponse(link, null).getHeaders().getETag();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        redirectResponses.write(link, "\"other\", W/" + etag, response);
+
+        assertEquals(304, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.LOCATION));
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("If-None-Match должен сравниваться слабо и поддерживать *, списки и запятые внутри ETag")
+    void matchesIfNoneMatch_ShouldFollowRfc9110() {
+        String etag = "\"abc\"";
+
+        assertTrue(RedirectResponses.matchesIfNoneMatch("\"abc\"", etag));
+        assertTrue(RedirectResponses.matchesIfNoneMatch("*", etag));
+        assertTrue(RedirectResponses.matchesIfNoneMatch("W/\"abc\"", etag));
+        assertTrue(RedirectResponses.matchesIfNoneMatch("\"x,y\" , W/\"abc\"", etag));
+        assertFalse(RedirectResponses.matchesIfNoneMatch(null, etag));
+        assertFalse(RedirectResponses.matchesIfNoneMatch("\"abcd\", \"ab\"", etag));
+        assertFalse(RedirectResponses.matchesIfNoneMatch("\"x,\"abc\"\"", etag));
+        assertFalse(RedirectResponses.matchesIfNoneMatch("abc", etag));
+    }
+
+    @Test
+    @DisplayName("При выключенном кэшировании должен отдаваться только редирект")
+    void toResponse_CachingDisabled_ShouldReturnPlainRedirect() {
+        when(appConfig.isRedirectCacheable()).thenReturn(false);
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com", "user1", null, null, LocalDateTime.now());
+
+        ResponseEntity<String> response = redirectResponses.toResponse(link, "\"abc\"");
+
+        assertEquals(HttpStatus.FOUND, response.getStatusCode());
+        assertEquals("https://example.com", response.getHeaders().getFirst(HttpHeaders.LOCATION));
+        assertNull(response.getHeaders().getCacheControl());
+        assertNull(response.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("Подготовленный ответ должен переиспользоваться для того же снимка и строиться заново для нового")
+    void get_SameSnapshot_ShouldReusePreparedRedirect() {
+        LinkSnapshot link = new LinkSnapshot("abc123", "https://example.com", "user1", null, null, null);
+        LinkSnapshot updated = new LinkSnapshot("abc123", "https://example.org", "user1", null, null, null);
+
+        RedirectResponses.PreparedRedirect first = redirectResponses.get(link);
+
+        assertSame(first, redirectResponses.get(link));
+        RedirectResponses.PreparedRedirect rebuilt = redirectResponses.get(updated);
+        assertNotSame(first, rebuilt);
+        assertEquals("https://example.org", rebuilt.location);
+        assertNotEquals(first.etag, rebuilt.etag);
+    }
+}
@@ -0,0 +1,34 @@
+package com.promoit.shortLink.dedup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlFingerprintTest {
+
+    @Test
+    @DisplayName("Эквивалентные записи URL должны нормализоваться одинаково и давать один отпечаток")
+    void normalize_EquivalentUrls_ShouldMatch() {
+        String canonical = UrlFingerprint.normalize("https://example.com/");
+
+        assertEquals(canonical, UrlFingerprint.normalize("  HTTPS://Example.COM"));
+        assertEquals(canonical, UrlFingerprint.normalize("https://example.com:443/"));
+        assertEquals(UrlFingerprint.hash("https://example.com/"), UrlFingerprint.hash("HTTPS://EXAMPLE.com:443"));
+    }
+
+    @Test
+    @DisplayName("Путь, запрос и нестандартный порт должны сохраняться в нормализованном URL")
+    void normalize_ShouldKeepSignificantParts() {
+        assertEquals("http://example.com:8080/Path?q=A", UrlFingerprint.normalize("http://EXAMPLE.com:8080/Path?q=A"));
+        assertNotEquals(UrlFingerprint.hash("https://example.com/a"), UrlFingerprint.hash("https://example.com/A"));
+        assertEquals("not a url", UrlFingerprint.normalize(" not a url "));
+    }
+
+    @Test
+    @DisplayName("URL, различающиеся только фрагментом, не должны совпадать")
+    void normalize_DifferentFragments_ShouldNotMatch() {
+        assertEquals("https://app/#/a", UrlFingerprint.normalize("HTTPS://APP#/a"));
+        assertNotEquals(UrlFingerprint.normalize("https://app/#/a"), UrlFingerprint.normalize("https://app/#/b"));
+        assertNotEquals(UrlFingerprint.hash("https://example.com/page#top"), UrlFingerprint.hash("https://example.com/page"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.promoit.shortLink.domain.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import java.nio.file.Path;
+
+/**
+ * Те же проверки планов, что в {@link RepositoryQueryPlanTest}, на миллионах ссылок в файловой базе,
+ * с замером среднего времени каждого запроса в build/reports/query-plans-scale.txt.
+ * Помечен тегом scale и не входит в ./gradlew test: ./gradlew scaleTest -PscaleLinks=5000000
+ * (по умолчанию миллион ссылок).
+ */
+@Tag("scale")
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./build/query-plans/db",
+        "app.metrics.gauge-refresh-interval=3600000"})
+@Import(RepositoryQueryPlanTest.StatementCaptureConfig.class)
+@DirtiesContext
+class RepositoryQueryPlanScaleTest extends RepositoryQueryPlanTest {
+    private static final int TIMED_RUNS = 20;
+
+    @Override
+    protected int linkCount() {
+        return Integer.getInteger("scale.links", 1_000_000);
+    }
+
+    @Override
+    protected int timedRuns() {
+        return TIMED_RUNS;
+    }
+
+    @Override
+    protected Path reportFile() {
+        return Path.of("build", "reports", "query-plans-scale.txt");
+    }
+}
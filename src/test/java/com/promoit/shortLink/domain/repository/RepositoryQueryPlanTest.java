@@ -0,0 +1,290 @@
+package com.promoit.shortLink.domain.repository;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Планы запросов репозиториев на синтетических данных: каждый запрос к ссылкам и пользователям
+ * должен находить строки через индекс с условием, а не полным сканированием таблицы.
+ * SQL берется у Hibernate в момент вызова репозитория, план - из EXPLAIN H2 после ANALYZE, поэтому регрессия
+ * в JPQL или в описании индексов LinkEntity роняет ./gradlew test. Здесь генерируется 10 тысяч ссылок
+ * в отдельной базе в памяти, и проверяются только планы; время запросов на миллионах ссылок замеряет
+ * {@link RepositoryQueryPlanScaleTest}. Планы пишутся в build/reports/query-plans.txt.
+ * countActive и count() считают все ссылки и индексом не сокращаются, поэтому здесь не проверяются.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plans",
+        "app.metrics.gauge-refresh-interval=3600000"})
+@Import(RepositoryQueryPlanTest.StatementCaptureConfig.class)
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryQueryPlanTest {
+    private static final int LOAD_CHUNK = 500_000;
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* \"?PUBLIC\"?\\.\"?(\\w+)\"?(\\.tableScan)?(:[^*]*)?\\s*\\*/");
+    private static final String INSERT_USERS = "INSERT INTO user_entity(id) SELECT 'user-' || X FROM SYSTEM_RANGE(?, ?)";
+    private static final String INSERT_LINKS = "INSERT INTO link_entity(short_code, original_url, user_id, click_limit, " +
+            "click_count, created_at, expires_at, url_hash) " +
+            "SELECT 'c' || X, 'https://example.com/articles/' || X, 'user-' || MOD(X, ?), " +
+            "CASE WHEN MOD(X, 4) = 0 THEN 100 END, 0, DATEADD('SECOND', -X, CAST(? AS TIMESTAMP)), " +
+            "CASE WHEN MOD(X, 10) = 0 THEN NULL ELSE DATEADD('MINUTE', MOD(X, 1000) - 100, CAST(? AS TIMESTAMP)) END, X " +
+            "FROM SYSTEM_RANGE(?, ?)";
+
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CapturingStatementInspector statementInspector;
+
+    private final StringBuilder report = new StringBuilder();
+    private final PageRequest page = PageRequest.ofSize(100);
+    private LocalDateTime now;
+    private int links;
+    private int users;
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+        @Bean
+        CapturingStatementInspector capturingStatementInspector() {
+            return new CapturingStatementInspector();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspectorCustomizer(CapturingStatementInspector inspector) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    /**
+     * Запоминает SQL, выполненный в текущем потоке во время capture; запросы фоновых задач не попадают.
+     */
+    static class CapturingStatementInspector implements StatementInspector {
+        private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = captured.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        List<String> capture(Runnable call) {
+            List<String> statements = new ArrayList<>();
+            captured.set(statements);
+            try {
+                call.run();
+            } finally {
+                captured.remove();
+            }
+            return statements;
+        }
+    }
+
+    @BeforeAll
+    void generateData() {
+        links = linkCount();
+        users = Math.max(1, links / 10);
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long startNanos = System.nanoTime();
+        for (int from = 0; from < users; from += LOAD_CHUNK) {
+            jdbcTemplate.update(INSERT_USERS, from, Math.min(users, from + LOAD_CHUNK) - 1);
+        }
+        for (int from = 1; from <= links; from += LOAD_CHUNK) {
+            jdbcTemplate.update(INSERT_LINKS, users, now, now, from, Math.min(links, from + LOAD_CHUNK - 1));
+        }
+        jdbcTemplate.execute("ANALYZE");
+        report.append(String.format(Locale.ROOT, "%d links, %d users, generated in %d ms%n%n",
+                links, users, (System.nanoTime() - startNanos) / 1_000_000));
+    }
+
+    @AfterAll
+    void writeReport() throws IOException {
+        System.out.print(report);
+        Path file = reportFile();
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, report);
+    }
+
+    /**
+     * Количество генерируемых ссылок; пользователей - в десять раз меньше.
+     */
+    protected int linkCount() {
+        return 10_000;
+    }
+
+    /**
+     * Сколько раз выполнять каждый вызов для замера времени; 0 - только проверка планов.
+     */
+    protected int timedRuns() {
+        return 0;
+    }
+
+    protected Path reportFile() {
+        return Path.of("build", "reports", "query-plans.txt");
+    }
+
+    @Test
+    @DisplayName("Запросы одной ссылки и набора кодов должны идти по первичному ключу")
+    void shortCodeQueries_ShouldUsePrimaryKey() {
+        String code = unexpiringCode(links / 2);
+        List<String> codes = List.of(unexpiringCode(links / 3), code, unexpiringCode(links));
+
+        assertIndexed("findByShortCode", "SHORT_CODE=", () -> linkRepository.findByShortCode(code));
+        assertIndexed("findById", "SHORT_CODE=", () -> linkRepository.findById(code));
+        assertIndexed("existsById", "SHORT_CODE=", () -> linkRepository.existsById(code));
+        assertIndexed("findExistingShortCodes", "SHORT_CODEIN(", () -> linkRepository.findExistingShortCodes(codes));
+        assertIndexed("reserveClicks", "SHORT_CODE=", () -> linkRepository.reserveClicks(code, 1, now));
+        assertIndexed("releaseClicks", "SHORT_CODE=", () -> linkRepository.releaseClicks(code, 1));
+        assertIndexed("deleteExpiredLinks", "SHORT_CODEIN(", () -> linkRepository.deleteExpiredLinks(now, codes));
+    }
+
+    @Test
+    @DisplayName("Обход действующих ссылок должен идти по первичному ключу от позиции курсора")
+    void activeLinkScans_ShouldSeekByPrimaryKey() {
+        String after = code(links / 2);
+
+        assertIndexed("findActiveShortCodesAfter", "SHORT_CODE>", () -> linkRepository.findActiveShortCodesAfter(after, now, page));
+        assertIndexed("findActiveLinksAfter", "SHORT_CODE>", () -> linkRepository.findActiveLinksAfter(after, now, page));
+    }
+
+    @Test
+    @DisplayName("Страницы ссылок пользователя и поиск дубликатов должны идти по индексам пользователя")
+    void userQueries_ShouldUseUserIndexes() {
+        int link = users + 7;
+        String userId = "user-" + (link % users);
+        LocalDateTime afterCreatedAt = now.minusSeconds(link);
+
+        assertIndexed("findUserLinksAfter first page", "USER_ID=",
+                () -> linkRepository.findUserLinksAfter(userId, null, "", false, now, null, page));
+        assertIndexed("findUserLinksAfter next page", "USER_ID=",
+                () -> linkRepository.findUserLinksAfter(userId, afterCreatedAt, code(link), false, now, null, page));
+        assertIndexed("findUserLinksAfter active", "USER_ID=",
+                () -> linkRepository.findUserLinksAfter(userId, null, "", true, now, null, page));
+        assertIndexed("findUserLinksAfter expiring", "USER_ID=",
+                () -> linkRepository.findUserLinksAfter(userId, null, "", false, now, now.plusHours(1), page));
+        assertIndexed("findDedupCandidates", "URL_HASH=",
+                () -> linkRepository.findDedupCandidates(userId, link, null, now, PageRequest.ofSize(1)));
+        assertIndexed("UserRepository.findById", "ID=", () -> userRepository.findById(userId));
+    }
+
+    @Test
+    @DisplayName("Выборки по сроку действия должны идти по индексу expiresAt")
+    void expiryQueries_ShouldUseExpiresIndex() {
+        LocalDateTime afterExpiresAt = now.minusMinutes(50);
+
+        assertIndexed("findExpiredLinks first page", "EXPIRES_AT<",
+                () -> linkRepository.findExpiredLinks(now, null, "", page));
+        assertIndexed("findExpiredLinks next page", "EXPIRES_AT<",
+                () -> linkRepository.findExpiredLinks(now, afterExpiresAt, code(1), page));
+        assertIndexed("countExpiringBetween", "EXPIRES_AT>",
+                () -> linkRepository.countExpiringBetween(now, now.plusHours(1)));
+    }
+
+    /**
+     * Выполняет вызов репозитория, проверяет планы всех его запросов и записывает среднее время вызова,
+     * если замер включен.
+     * expectedCondition - условие индекса без пробелов, по которому должна искаться основная таблица запроса.
+     */
+    private void assertIndexed(String name, String expectedCondition, Runnable call) {
+        List<String> plans = statementInspector.capture(call).stream()
+                .filter(RepositoryQueryPlanTest::isExplainable)
+                .map(this::explain)
+                .toList();
+        assertFalse(plans.isEmpty(), name + ": no statements captured");
+        boolean expectedFound = false;
+        for (String plan : plans) {
+            Matcher access = TABLE_ACCESS.matcher(plan);
+            boolean anyAccess = false;
+            while (access.find()) {
+                anyAccess = true;
+                assertNull(access.group(2), name + " scans table " + access.group(1) + ":\n" + plan);
+                assertNotNull(access.group(3), name + " reads whole index " + access.group(1) + ":\n" + plan);
+                expectedFound |= access.group(3).replaceAll("[\\s\"]", "").contains(expectedCondition);
+            }
+            assertTrue(anyAccess, name + ": no table access in plan:\n" + plan);
+        }
+        assertTrue(expectedFound, name + " does not search by " + expectedCondition + ":\n" + String.join("\n", plans));
+
+        int runs = timedRuns();
+        if (runs > 0) {
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                call.run();
+            }
+            double averageMillis = (System.nanoTime() - startNanos) / 1e6 / runs;
+            report.append(String.format(Locale.ROOT, "%-32s %10.3f ms%n", name, averageMillis));
+        } else {
+            report.append(name).append(System.lineSeparator());
+        }
+        plans.forEach(plan -> report.append("    ").append(plan.replaceAll("\\s+", " ")).append(System.lineSeparator()));
+    }
+
+    private static boolean isExplainable(String sql) {
+        String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete");
+    }
+
+    /**
+     * План запроса в H2. Значения параметров на план не влияют: H2 выбирает индекс при подготовке запроса.
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    private static String code(int link) {
+        return "c" + link;
+    }
+
+    /**
+     * Код ссылки без срока действия: генератор не задает expiresAt ссылкам с номером, кратным 10,
+     * поэтому повторные вызовы deleteExpiredLinks при замерах не меняют данные.
+     */
+    private static String unexpiringCode(int link) {
+        return code(link - link % 10);
+    }
+}
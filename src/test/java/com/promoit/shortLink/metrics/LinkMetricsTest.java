@@ -0,0 +1,96 @@
+package com.promoit.shortLink.metrics;
+
+import com.promoit.shortLink.cache.LinkCache;
+import com.promoit.shortLink.cache.LinkCacheSnapshot;
+import com.promoit.shortLink.cache.OffHeapLinkTable;
+import com.promoit.shortLink.cache.ShortCodeBloomFilter;
+import com.promoit.shortLink.click.ClickCounterBuffer;
+import com.promoit.shortLink.click.ClickEventLog;
+import com.promoit.shortLink.click.LinkTrafficStats;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import com.promoit.shortLink.ratelimit.RateLimiter;
+import com.promoit.shortLink.service.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LinkMetricsTest {
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Mock
+    private LinkRepository linkRepository;
+    @Mock
+    private LinkCache linkCache;
+    @Mock
+    private LinkCacheSnapshot linkCacheSnapshot;
+    @Mock
+    private OffHeapLinkTable offHeapLinkTable;
+    @Mock
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+    @Mock
+    private ClickCounterBuffer clickCounterBuffer;
+    @Mock
+    private ClickEventLog clickEventLog;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private LinkTrafficStats linkTrafficStats;
+    @Mock
+    private RateLimiter rateLimiter;
+    @InjectMocks
+    private LinkMetrics linkMetrics;
+
+    @BeforeEach
+    void setUp() {
+        linkMetrics.init();
+    }
+
+    @Test
+    @DisplayName("Редиректы должны учитываться по результату без тега с кодом ссылки")
+    void recordRedirect_ShouldCountByOutcome() {
+        long start = System.nanoTime();
+        linkMetrics.recordRedirect(LinkAccessResult.Status.OK, start);
+        linkMetrics.recordRedirect(LinkAccessResult.Status.OK, start);
+        linkMetrics.recordRedirect(LinkAccessResult.Status.NOT_FOUND, start);
+
+        assertEquals(2, meterRegistry.get("shortlink.redirects").tag("outcome", "ok").counter().count());
+        assertEquals(1, meterRegistry.get("shortlink.redirects").tag("outcome", "not_found").counter().count());
+        assertEquals(0, meterRegistry.get("shortlink.redirects").tag("outcome", "gone").counter().count());
+        assertEquals(2, meterRegistry.get("shortlink.redirect").tag("outcome", "ok").timer().count());
+        assertEquals(3, meterRegistry.get("shortlink.redirect").timers().size());
+    }
+
+    @Test
+    @DisplayName("Очистка должна записывать длительность и число удаленных ссылок")
+    void recordCleanup_ShouldRecordDurationAndRemovedRows() {
+        linkMetrics.recordCleanup(TimeUnit.MILLISECONDS.toNanos(250), 42);
+
+        assertEquals(42, meterRegistry.get("shortlink.cleanup.removed").counter().count());
+        assertEquals(250, meterRegistry.get("shortlink.cleanup.duration").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    @DisplayName("Датчики активных и истекающих ссылок должны обновляться по расписанию из базы")
+    void refreshLinkGauges_ShouldUpdateGauges() {
+        when(linkRepository.countActive(any())).thenReturn(10L);
+        when(linkRepository.countExpiringBetween(any(), any())).thenReturn(3L);
+
+        linkMetrics.refreshLinkGauges();
+
+        assertEquals(10, meterRegistry.get("shortlink.links.active").gauge().value());
+        assertEquals(3, meterRegistry.get("shortlink.links.expiring").gauge().value());
+    }
+}
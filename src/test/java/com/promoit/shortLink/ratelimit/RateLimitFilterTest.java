@@ -0,0 +1,89 @@
+package com.promoit.shortLink.ratelimit;
+
+import com.promoit.shortLink.config.AppConfig;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitFilterTest {
+    @Mock
+    private RateLimiter rateLimiter;
+    @Mock
+    private AppConfig appConfig;
+    @Mock
+    private FilterChain chain;
+    @InjectMocks
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.isRateLimitEnabled()).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Превышение лимита на создание должно отвечать 429 с Retry-After")
+    void shorten_WhenLimited_ShouldReturn429() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/shorten");
+        request.addHeader("X-User-ID", "user1");
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(rateLimiter.checkShorten("user1", "10.0.0.1")).thenReturn(1_500_000_000L);
+
+        rateLimitFilter.doFilter(request, response, chain);
+
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals(RateLimitFilter.RATE_LIMITED_MESSAGE, response.getContentAsString());
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    @DisplayName("Пакетный запрос не должен списываться фильтром: его ссылки считаются порциями при разборе тела")
+    void shortenBatch_ShouldPassThroughWithoutCharge() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/shorten/batch");
+        request.addHeader("X-User-ID", "user1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        rateLimitFilter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(any(), any());
+        verifyNoInteractions(rateLimiter);
+    }
+
+    @Test
+    @DisplayName("Разрешенный редирект должен передаваться дальше")
+    void redirect_WhenAllowed_ShouldPassThrough() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/abc123");
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(rateLimiter.checkRedirect("10.0.0.1")).thenReturn(0L);
+
+        rateLimitFilter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Служебные запросы и запросы при выключенном ограничении не должны проверяться")
+    void otherRequests_ShouldNotBeLimited() throws Exception {
+        rateLimitFilter.doFilter(new MockHttpServletRequest("GET", "/user/links"), new MockHttpServletResponse(), chain);
+        rateLimitFilter.doFilter(new MockHttpServletRequest("DELETE", "/abc123"), new MockHttpServletResponse(), chain);
+        when(appConfig.isRateLimitEnabled()).thenReturn(false);
+        rateLimitFilter.doFilter(new MockHttpServletRequest("POST", "/shorten"), new MockHttpServletResponse(), chain);
+
+        verify(chain, times(3)).doFilter(any(), any());
+        verifyNoInteractions(rateLimiter);
+    }
+}
@@ -0,0 +1,138 @@
+package com.promoit.shortLink.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final long NOW = 42 * SECOND;
+
+    @Test
+    @DisplayName("После простоя должно пропускаться burst запросов подряд, затем - отказ со временем ожидания")
+    void tryAcquire_ShouldAllowBurstThenReject() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("user1", NOW));
+        }
+        long wait = limiter.tryAcquire("user1", NOW);
+
+        assertTrue(wait > 0 && wait <= SECOND / 10);
+        assertEquals(0, limiter.tryAcquire("user2", NOW));
+        assertEquals(0, limiter.tryAcquire("user1", NOW + wait));
+    }
+
+    @Test
+    @DisplayName("Корзина должна пополняться со скоростью rate")
+    void tryAcquire_ShouldRefillAtRate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1);
+
+        assertEquals(0, limiter.tryAcquire("ip", NOW));
+        assertTrue(limiter.tryAcquire("ip", NOW + SECOND / 4) > 0);
+        assertEquals(0, limiter.tryAcquire("ip", NOW + SECOND / 2));
+    }
+
+    @Test
+    @DisplayName("Параллельные запросы не должны получить больше burst токенов")
+    void tryAcquire_FromManyThreads_ShouldNotOvershoot() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 100);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    if (limiter.tryAcquire("hot", NOW) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    @DisplayName("Возвращенный токен должен снова быть доступен")
+    void refund_ShouldReturnToken() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1);
+        assertEquals(0, limiter.tryAcquire("user1", NOW));
+        assertTrue(limiter.tryAcquire("user1", NOW) > 0);
+
+        limiter.refund("user1");
+
+        assertEquals(0, limiter.tryAcquire("user1", NOW));
+    }
+
+    @Test
+    @DisplayName("Полные корзины должны удаляться, частично израсходованные - оставаться")
+    void evictIdle_ShouldRemoveOnlyFullBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 10);
+        limiter.tryAcquire("idle", NOW);
+        limiter.tryAcquire("busy", NOW + 5 * SECOND);
+        limiter.tryAcquire("busy", NOW + 5 * SECOND);
+
+        assertEquals(1, limiter.evictIdle(NOW + 5 * SECOND));
+        assertEquals(1, limiter.size());
+        assertEquals(1, limiter.evictIdle(NOW + 10 * SECOND));
+    }
+
+    @Test
+    @DisplayName("Запрос на несколько токенов должен списывать их все, а запрос больше емкости - уводить полную корзину в долг")
+    void tryAcquire_WithPermits_ShouldChargeEachToken() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 5);
+
+        assertEquals(0, limiter.tryAcquire("user1", 3, NOW));
+        assertEquals(0, limiter.tryAcquire("user1", 2, NOW));
+        assertTrue(limiter.tryAcquire("user1", 1, NOW) > 0);
+
+        assertEquals(0, limiter.tryAcquire("user2", 50, NOW));
+        long wait = limiter.tryAcquire("user2", 1, NOW);
+        assertTrue(wait > 4 * SECOND && wait <= 5 * SECOND);
+        assertTrue(limiter.tryAcquire("user2", 50, NOW + wait) > 0);
+        assertEquals(0, limiter.tryAcquire("user2", 50, NOW + 5 * SECOND));
+    }
+
+    @Test
+    @DisplayName("Запрос, получивший удаляемую корзину, должен списать токен с новой корзины")
+    void tryAcquire_WhileEvicting_ShouldNotLoseTokens() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 100);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 3; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    if (limiter.tryAcquire("hot", NOW) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.submit(() -> {
+            for (int j = 0; j < 1000; j++) {
+                limiter.evictIdle(NOW);
+            }
+        });
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    @DisplayName("Нулевая скорость должна отключать ограничение")
+    void tryAcquire_WithZeroRate_ShouldAlwaysAllow() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(0, 0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.tryAcquire("any", NOW));
+        }
+        assertEquals(0, limiter.size());
+    }
+}
@@ -0,0 +1,129 @@
+package com.promoit.shortLink.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.BatchShortenItem;
+import com.promoit.shortLink.domain.dto.BatchShortenResult;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchLinkServiceTest {
+    @Mock
+    private LinkService linkService;
+    @Mock
+    private AppConfig appConfig;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    @InjectMocks
+    private BatchLinkService batchLinkService;
+    private final UserEntity user = new UserEntity();
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(appConfig.getBatchChunkSize()).thenReturn(2);
+        lenient().when(linkService.createShortLinks(anyList(), any())).thenAnswer(inv -> {
+            List<BatchShortenItem> items = inv.getArgument(0);
+            chunkSizes.add(items.size());
+            return items.stream()
+                    .map(item -> BatchShortenResult.created(new LinkEntity("c" + item.getUrl().length(), item.getUrl(), user, null, null), null))
+                    .toList();
+        });
+    }
+
+    @Test
+    @DisplayName("JSON-массив должен сохраняться порциями, а результаты - идти построчно в порядке элементов")
+    void shorten_WithJsonArray_ShouldProcessInChunks() throws Exception {
+        List<JsonNode> lines = shorten("[{\"url\":\"https://a.com\"},{\"url\":\"https://bb.com\",\"clickLimit\":3},{\"url\":\"https://ccc.com\"}]");
+
+        assertEquals(3, lines.size());
+        assertEquals(List.of(2, 1), chunkSizes);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, lines.get(i).get("index").asInt());
+            assertTrue(lines.get(i).get("success").asBoolean());
+        }
+        assertEquals("https://bb.com", lines.get(1).get("url").asText());
+    }
+
+    @Test
+    @DisplayName("NDJSON с некорректным элементом должен вернуть ошибку только для этого элемента")
+    void shorten_WithNdjsonAndInvalidItem_ShouldIsolateError() throws Exception {
+        List<JsonNode> lines = shorten("{\"url\":\"https://a.com\"}\n{\"url\":\"https://b.com\",\"clickLimit\":\"many\"}\n{\"url\":\"https://c.com\"}\n");
+
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).get("success").asBoolean());
+        assertFalse(lines.get(1).get("success").asBoolean());
+        assertEquals(1, lines.get(1).get("index").asInt());
+        assertTrue(lines.get(2).get("success").asBoolean());
+        assertEquals(2, lines.get(2).get("index").asInt());
+    }
+
+    @Test
+    @DisplayName("Ошибка сохранения порции должна отмечаться в строках ее элементов и не прерывать пачку")
+    void shorten_WhenChunkFails_ShouldReportFailedItemsAndContinue() throws Exception {
+        when(linkService.createShortLinks(anyList(), any()))
+                .thenThrow(new IllegalStateException("code space exhausted"))
+                .thenAnswer(inv -> List.of(BatchShortenResult.created(new LinkEntity("c3", "https://c.com", user, null, null), null)));
+
+        List<JsonNode> lines = shorten("{\"url\":\"https://a.com\"}\n{\"url\":\"https://b.com\"}\n{\"url\":\"https://c.com\"}\n");
+
+        assertEquals(3, lines.size());
+        assertEquals("code space exhausted", lines.get(0).get("error").asText());
+        assertEquals("code space exhausted", lines.get(1).get("error").asText());
+        assertEquals("c3", lines.get(2).get("shortCode").asText());
+    }
+
+    @Test
+    @DisplayName("Порция сверх лимита должна получить ошибку с временем ожидания и прекратить чтение")
+    void shorten_WhenRateLimited_ShouldRejectChunkAndStop() throws Exception {
+        List<Integer> charged = new ArrayList<>();
+        IntToLongFunction quota = links -> {
+            charged.add(links);
+            return charged.size() == 1 ? 0 : 1_500_000_000L;
+        };
+
+        List<JsonNode> lines = shorten("{\"url\":\"https://a.com\"}\n{\"url\":\"https://b.com\"}\n"
+                + "{\"url\":\"https://c.com\"}\n{\"url\":\"https://d.com\"}\n{\"url\":\"https://e.com\"}\n", quota);
+
+        assertEquals(List.of(2, 2), charged);
+        assertEquals(List.of(2), chunkSizes);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).get("success").asBoolean());
+        assertEquals(3, lines.get(3).get("index").asInt());
+        assertEquals("Rate limit exceeded, retry after 2 s", lines.get(3).get("error").asText());
+    }
+
+    private List<JsonNode> shorten(String body) throws Exception {
+        return shorten(body, links -> 0);
+    }
+
+    private List<JsonNode> shorten(String body, IntToLongFunction quota) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchLinkService.shorten(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out, user, quota);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
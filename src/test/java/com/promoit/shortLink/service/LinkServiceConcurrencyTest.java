@@ -0,0 +1,106 @@
+package com.promoit.shortLink.service;
+
+import com.promoit.shortLink.click.ClickLeaseManager;
+import com.promoit.shortLink.click.LinkTrafficStats;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class LinkServiceConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final int CLICK_LIMIT = 50;
+
+    @Autowired
+    private LinkService linkService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private ClickLeaseManager clickLeaseManager;
+    @Autowired
+    private LinkTrafficStats linkTrafficStats;
+
+    @Test
+    @DisplayName("Атомарное резервирование должно разрешать ровно clickLimit переходов при параллельных запросах")
+    void reserveClicks_WithConcurrentThreads_ShouldGrantExactlyClickLimit() throws Exception {
+        LinkEntity link = createLimitedLink();
+        AtomicInteger granted = new AtomicInteger();
+
+        hammer(() -> {
+            if (linkRepository.reserveClicks(link.getShortCode(), 1, LocalDateTime.now()) > 0) {
+                granted.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(CLICK_LIMIT, granted.get());
+        assertEquals(CLICK_LIMIT, linkRepository.findByShortCode(link.getShortCode()).orElseThrow().getClickCount());
+    }
+
+    @Test
+    @DisplayName("Параллельные редиректы через сервис должны пропускать ровно clickLimit переходов")
+    void accessLink_WithConcurrentThreads_ShouldGrantExactlyClickLimit() throws Exception {
+        LinkEntity link = createLimitedLink();
+        AtomicInteger granted = new AtomicInteger();
+
+        hammer(() -> {
+            if (linkService.accessLink(link.getShortCode()).isAvailable()) {
+                granted.incrementAndGet();
+            }
+            return null;
+        });
+        clickLeaseManager.release(link.getShortCode());
+
+        assertEquals(CLICK_LIMIT, granted.get());
+        assertEquals(CLICK_LIMIT, linkRepository.findByShortCode(link.getShortCode()).orElseThrow().getClickCount());
+        assertEquals(CLICK_LIMIT, linkTrafficStats.get(link.getShortCode()).orElseThrow().getLastHour());
+    }
+
+    private LinkEntity createLimitedLink() {
+        UserEntity user = userService.getOrCreateUser(null);
+        return linkService.createShortLink("https://example.com", user, CLICK_LIMIT);
+    }
+
+    private void hammer(Callable<Void> click) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> workers = new ArrayList<>(THREADS);
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        click.call();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,9 +1,28 @@
 package com.promoit.shortLink.service;
 
+import com.promoit.shortLink.cache.LinkCache;
+import com.promoit.shortLink.cache.LinkChangeFeed;
+import com.promoit.shortLink.cache.ShortCodeBloomFilter;
+import com.promoit.shortLink.click.ClickCounterBuffer;
+import com.promoit.shortLink.click.ClickLeaseManager;
+import com.promoit.shortLink.click.LinkTrafficStats;
+import com.promoit.shortLink.code.ShortCodeGenerator;
 import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.dedup.UrlFingerprint;
+import com.promoit.shortLink.domain.dto.BatchShortenItem;
+import com.promoit.shortLink.domain.dto.BatchShortenResult;
+import com.promoit.shortLink.domain.dto.ExpiredLinkView;
+import com.promoit.shortLink.domain.dto.LinkAccessResult;
+import com.promoit.shortLink.domain.dto.LinkCursor;
+import com.promoit.shortLink.domain.dto.LinkPage;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.dto.LinkView;
 import com.promoit.shortLink.domain.entity.LinkEntity;
 import com.promoit.shortLink.domain.entity.UserEntity;
 import com.promoit.shortLink.domain.repository.LinkRepository;
+import com.promoit.shortLink.metrics.LinkMetrics;
+import com.promoit.shortLink.sharding.ShardRouter;
+import com.promoit.shortLink.storage.LinkStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,10 +30,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,13 +57,38 @@ class LinkServiceTest {
     @Mock
     private NotificationService notificationService;
     @Mock
+    private LinkCache linkCache;
+    @Mock
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+    @Mock
+    private ClickCounterBuffer clickCounterBuffer;
+    @Mock
+    private ClickLeaseManager clickLeaseManager;
+    @Mock
+    private ShortCodeGenerator shortCodeGenerator;
+    @Mock
+    private LinkMetrics linkMetrics;
+    @Mock
     private AppConfig appConfig;
+    @Mock
+    private LinkStore linkStore;
+    @Mock
+    private LinkTrafficStats linkTrafficStats;
+    @Mock
+    private UserService userService;
+    @Mock
+    private LinkChangeFeed linkChangeFeed;
+    @Mock
+    private ShardRouter shardRouter;
+    @Mock
+    private TransactionTemplate transactionTemplate;
     @InjectMocks
     private LinkService linkService;
     private UserEntity testUser;
     private LinkEntity activeLink;
     private LinkEntity expiredLink;
     private LinkEntity limitReachedLink;
+    private LinkEntity unlimitedLink;
 
     @BeforeEach
     void setUp() {
@@ -45,12 +103,17 @@ class LinkServiceTest {
                 "limit123", "https://limit.com", testUser, 1, LocalDateTime.now().plusHours(24)
         );
         limitReachedLink.incrementClickCount();
+        unlimitedLink = new LinkEntity(
+                "unlimited123", "https://unlimited.com", testUser, null, LocalDateTime.now().plusHours(24)
+        );
+        lenient().when(appConfig.isClickWriteBehind()).thenReturn(true);
+        lenient().when(shortCodeBloomFilter.mightContain(anyString())).thenReturn(true);
     }
 
     @Test
     @DisplayName("Создание короткой ссылки должно генерировать уникальный код и устанавливать срок действия")
     void createShortLink_ShouldCreateLinkWithUniqueCode() {
-        when(appConfig.getCodeLength()).thenReturn(9);
+        when(shortCodeGenerator.nextCode()).thenReturn("aB3dE5gH9");
         when(appConfig.getDefaultTtlHours()).thenReturn(24);
         when(linkRepository.save(any(LinkEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -58,12 +121,60 @@ class LinkServiceTest {
 
         assertNotNull(result);
         assertNotNull(result.getShortCode());
-        assertEquals(9, result.getShortCode().length());
+        assertEquals("aB3dE5gH9", result.getShortCode());
         assertEquals("https://example.com", result.getOriginalUrl());
         assertEquals(testUser, result.getUser());
         assertEquals(100, result.getClickLimit());
         assertTrue(result.getExpiresAt().isAfter(LocalDateTime.now()));
         verify(linkRepository).save(any(LinkEntity.class));
+        verify(linkCache).put(any(LinkSnapshot.class));
+    }
+
+    @Test
+    @DisplayName("В режиме дедупликации повторное сокращение URL должно возвращать существующую ссылку")
+    void createShortLink_WithDedupAndExistingLink_ShouldReturnExisting() {
+        when(appConfig.isLinkDedup()).thenReturn(true);
+        LinkEntity existing = new LinkEntity("exist123", "https://Example.com", testUser, null, LocalDateTime.now().plusHours(1));
+        when(linkRepository.findDedupCandidates(eq(testUser.getId()), eq(UrlFingerprint.hash("https://example.com/")),
+                isNull(), any(), any())).thenReturn(List.of(existing));
+
+        LinkEntity result = linkService.createShortLink("https://example.com/", testUser, null);
+
+        assertSame(existing, result);
+        verify(linkMetrics).recordDeduplicated();
+        verify(linkRepository, never()).save(any());
+        verifyNoInteractions(shortCodeGenerator);
+    }
+
+    @Test
+    @DisplayName("Ссылка с исчерпанной арендой переходов не должна возвращаться как дубликат")
+    void createShortLink_WithDedupAndExhaustedLease_ShouldCreateNewLink() {
+        when(appConfig.isLinkDedup()).thenReturn(true);
+        LinkEntity used = new LinkEntity("used1234", "https://example.com/", testUser, 5, LocalDateTime.now().plusHours(1));
+        when(linkRepository.findDedupCandidates(any(), anyLong(), eq(5), any(), any())).thenReturn(List.of(used));
+        when(clickLeaseManager.isExhausted("used1234")).thenReturn(true);
+        when(shortCodeGenerator.nextCode()).thenReturn("new12345");
+        when(linkRepository.save(any(LinkEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        LinkEntity result = linkService.createShortLink("https://example.com/", testUser, 5);
+
+        assertEquals("new12345", result.getShortCode());
+        verify(linkMetrics, never()).recordDeduplicated();
+    }
+
+    @Test
+    @DisplayName("Совпадение отпечатка у другого URL не должно считаться дубликатом")
+    void createShortLink_WithDedupAndHashCollision_ShouldCreateNewLink() {
+        when(appConfig.isLinkDedup()).thenReturn(true);
+        LinkEntity other = new LinkEntity("other123", "https://other.com", testUser, null, LocalDateTime.now().plusHours(1));
+        when(linkRepository.findDedupCandidates(any(), anyLong(), any(), any(), any())).thenReturn(List.of(other));
+        when(shortCodeGenerator.nextCode()).thenReturn("new12345");
+        when(linkRepository.save(any(LinkEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        LinkEntity result = linkService.createShortLink("https://example.com", testUser, null);
+
+        assertEquals("new12345", result.getShortCode());
+        verify(linkMetrics, never()).recordDeduplicated();
     }
 
     @Test
@@ -75,50 +186,226 @@ class LinkServiceTest {
     }
 
     @Test
-    @DisplayName("Доступ к активной ссылке должен увеличивать счетчик переходов")
-    void accessLink_WithActiveLink_ShouldIncrementClickCount() {
-        when(linkRepository.findByShortCode("active123")).thenReturn(Optional.of(activeLink));
-        when(linkRepository.save(any(LinkEntity.class))).thenReturn(activeLink);
+    @DisplayName("Доступ к активной ссылке с лимитом должен списывать переход из арендованного блока")
+    void accessLink_WithActiveLink_ShouldAcquireClickFromLease() {
+        when(linkCache.get("active123")).thenReturn(Optional.of(LinkSnapshot.from(activeLink)));
+        when(clickLeaseManager.tryAcquire("active123")).thenReturn(true);
 
-        Optional<LinkEntity> result = linkService.accessLink("active123");
+        LinkAccessResult result = linkService.accessLink("active123");
 
-        assertTrue(result.isPresent());
-        assertEquals(1, activeLink.getClickCount());
-        verify(linkRepository).save(activeLink);
+        assertEquals(LinkAccessResult.Status.OK, result.getStatus());
+        verify(clickLeaseManager).tryAcquire("active123");
+        verify(clickCounterBuffer, never()).increment(any());
+        verify(linkRepository, never()).findByShortCode(any());
+    }
+
+    @Test
+    @DisplayName("Без write-behind переход должен резервироваться атомарным запросом к базе")
+    void accessLink_WithoutWriteBehind_ShouldReserveClickInDatabase() {
+        when(appConfig.isClickWriteBehind()).thenReturn(false);
+        when(linkCache.get("active123")).thenReturn(Optional.of(LinkSnapshot.from(activeLink)));
+        when(linkRepository.reserveClicks(eq("active123"), eq(1), any())).thenReturn(0);
+
+        LinkAccessResult result = linkService.accessLink("active123");
+
+        assertEquals(LinkAccessResult.Status.GONE, result.getStatus());
+        verify(notificationService).notifyLinkUnavailable("active123", testUser.getId(), "Link is no longer available");
+        verifyNoInteractions(clickLeaseManager, clickCounterBuffer);
     }
 
     @Test
-    @DisplayName("Доступ к просроченной ссылке должен возвращать empty и отправлять уведомление")
-    void accessLink_WithExpiredLink_ShouldReturnEmpty() {
-        when(linkRepository.findByShortCode("expired123")).thenReturn(Optional.of(expiredLink));
+    @DisplayName("Доступ к ссылке без лимита из кэша не должен читать ссылку из базы")
+    void accessLink_WithCachedUnlimitedLink_ShouldNotLoadEntity() {
+        when(linkCache.get("unlimited123")).thenReturn(Optional.of(LinkSnapshot.from(unlimitedLink)));
 
-        Optional<LinkEntity> result = linkService.accessLink("expired123");
+        LinkAccessResult result = linkService.accessLink("unlimited123");
 
-        assertTrue(result.isEmpty());
-        verify(notificationService).notifyLinkUnavailable(expiredLink, "Link is no longer available");
+        assertEquals(LinkAccessResult.Status.OK, result.getStatus());
+        assertEquals("https://unlimited.com", result.getLink().getOriginalUrl());
+        verify(linkRepository, never()).findByShortCode(any());
+        verify(clickCounterBuffer).increment("unlimited123");
         verify(linkRepository, never()).save(any());
     }
 
     @Test
-    @DisplayName("Доступ к ссылке с достигнутым лимитом должен возвращать empty и отправлять уведомление")
-    void accessLink_WithLimitReachedLink_ShouldReturnEmpty() {
-        when(linkRepository.findByShortCode("limit123")).thenReturn(Optional.of(limitReachedLink));
+    @DisplayName("Доступ к просроченной ссылке без лимита из кэша должен возвращать GONE и отправлять уведомление")
+    void accessLink_WithCachedExpiredUnlimitedLink_ShouldReturnGone() {
+        unlimitedLink.setExpiresAt(LocalDateTime.now().minusHours(1));
+        when(linkCache.get("unlimited123")).thenReturn(Optional.of(LinkSnapshot.from(unlimitedLink)));
 
-        Optional<LinkEntity> result = linkService.accessLink("limit123");
+        LinkAccessResult result = linkService.accessLink("unlimited123");
 
-        assertTrue(result.isEmpty());
-        verify(notificationService).notifyLinkUnavailable(limitReachedLink, "Link is no longer available");
+        assertEquals(LinkAccessResult.Status.GONE, result.getStatus());
+        verify(notificationService).notifyLinkUnavailable("unlimited123", testUser.getId(), "Link is no longer available");
+        verify(clickCounterBuffer, never()).increment(any());
     }
 
     @Test
-    @DisplayName("Доступ к несуществующей ссылке должен возвращать empty")
-    void accessLink_WithNonExistentCode_ShouldReturnEmpty() {
-        when(linkRepository.findByShortCode("nonexistent")).thenReturn(Optional.empty());
+    @DisplayName("Доступ к просроченной ссылке должен возвращать GONE и отправлять уведомление")
+    void accessLink_WithExpiredLink_ShouldReturnGone() {
+        when(linkCache.get("expired123")).thenReturn(Optional.of(LinkSnapshot.from(expiredLink)));
 
-        Optional<LinkEntity> result = linkService.accessLink("nonexistent");
+        LinkAccessResult result = linkService.accessLink("expired123");
+
+        assertEquals(LinkAccessResult.Status.GONE, result.getStatus());
+        verify(notificationService).notifyLinkUnavailable("expired123", testUser.getId(), "Link is no longer available");
+        verify(clickLeaseManager, never()).tryAcquire(any());
+        verify(linkRepository, never()).save(any());
+    }
 
-        assertTrue(result.isEmpty());
+    @Test
+    @DisplayName("Доступ к ссылке с достигнутым лимитом должен возвращать GONE и отправлять уведомление")
+    void accessLink_WithLimitReachedLink_ShouldReturnGone() {
+        when(linkCache.get("limit123")).thenReturn(Optional.of(LinkSnapshot.from(limitReachedLink)));
+        when(clickLeaseManager.tryAcquire("limit123")).thenReturn(false);
+
+        LinkAccessResult result = linkService.accessLink("limit123");
+
+        assertEquals(LinkAccessResult.Status.GONE, result.getStatus());
+        verify(notificationService).notifyLinkUnavailable("limit123", testUser.getId(), "Link is no longer available");
+    }
+
+    @Test
+    @DisplayName("Доступ к несуществующей ссылке должен возвращать NOT_FOUND")
+    void accessLink_WithNonExistentCode_ShouldReturnNotFound() {
+        when(linkCache.get("nonexistent")).thenReturn(Optional.empty());
+
+        LinkAccessResult result = linkService.accessLink("nonexistent");
+
+        assertEquals(LinkAccessResult.Status.NOT_FOUND, result.getStatus());
         verify(notificationService, never()).notifyLinkUnavailable(any(), any());
+        verify(notificationService, never()).notifyLinkUnavailable(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Код, которого нет в фильтре Блума, должен отклоняться без обращения к кэшу и базе")
+    void accessLink_WithCodeRejectedByBloomFilter_ShouldReturnNotFound() {
+        when(shortCodeBloomFilter.mightContain("random42")).thenReturn(false);
+
+        LinkAccessResult result = linkService.accessLink("random42");
+
+        assertEquals(LinkAccessResult.Status.NOT_FOUND, result.getStatus());
+        verifyNoInteractions(linkCache, linkRepository);
+    }
+
+    @Test
+    @DisplayName("Неблокирующий доступ к ссылке без лимита из кэша должен сразу возвращать OK")
+    void accessLinkIfCached_WithCachedUnlimitedLink_ShouldReturnOk() {
+        when(linkCache.getIfPresent("unlimited123")).thenReturn(Optional.of(LinkSnapshot.from(unlimitedLink)));
+
+        Optional<LinkAccessResult> result = linkService.accessLinkIfCached("unlimited123");
+
+        assertTrue(result.isPresent());
+        assertEquals(LinkAccessResult.Status.OK, result.get().getStatus());
+        verify(clickCounterBuffer).increment("unlimited123");
+        verifyNoInteractions(linkRepository);
+    }
+
+    @Test
+    @DisplayName("Неблокирующий доступ должен возвращать empty при промахе кэша и пустом арендованном блоке")
+    void accessLinkIfCached_WithoutCachedSnapshotOrLocalLease_ShouldReturnEmpty() {
+        when(linkCache.getIfPresent("nonexistent")).thenReturn(Optional.empty());
+        when(linkCache.getIfPresent("active123")).thenReturn(Optional.of(LinkSnapshot.from(activeLink)));
+        when(clickLeaseManager.tryAcquireLocal("active123")).thenReturn(false);
+
+        assertTrue(linkService.accessLinkIfCached("nonexistent").isEmpty());
+        assertTrue(linkService.accessLinkIfCached("active123").isEmpty());
+        verify(clickLeaseManager, never()).tryAcquire(any());
+        verifyNoInteractions(linkRepository);
+    }
+
+    @Test
+    @DisplayName("Пачка ссылок должна сохраняться одним saveAll, а некорректные элементы - получать ошибку")
+    void createShortLinks_ShouldSaveValidItemsInOneBatch() {
+        when(shortCodeGenerator.nextCodes(2)).thenReturn(List.of("code1", "code2"));
+        when(appConfig.getBaseUrl()).thenReturn("http://localhost:8080");
+
+        List<BatchShortenResult> results = linkService.createShortLinks(List.of(
+                new BatchShortenItem("https://one.com", null),
+                new BatchShortenItem(" ", null),
+                new BatchShortenItem("https://two.com", 5)), testUser);
+
+        assertEquals(3, results.size());
+        assertEquals("code1", results.get(0).getShortCode());
+        assertEquals("http://localhost:8080/code1", results.get(0).getShortUrl());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("code2", results.get(2).getShortCode());
+        assertEquals(Integer.valueOf(5), results.get(2).getClickLimit());
+        verify(linkRepository).saveAll(argThat(links -> ((List<?>) links).size() == 2));
+        verify(linkRepository, never()).save(any());
+        verify(shortCodeBloomFilter).put("code1");
+        verify(shortCodeBloomFilter).put("code2");
+        verifyNoInteractions(linkCache);
+    }
+
+    @Test
+    @DisplayName("При ошибке пакетной вставки ссылки должны сохраняться по одной с изоляцией ошибок")
+    void createShortLinks_WhenBatchFails_ShouldFallBackToSingleInserts() {
+        when(shortCodeGenerator.nextCodes(2)).thenReturn(List.of("code1", "code2"));
+        when(shortCodeGenerator.nextCode()).thenReturn("retry1", "retry2");
+        when(linkRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(linkRepository.save(any(LinkEntity.class)))
+                .thenAnswer(inv -> inv.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("too long"));
+
+        List<BatchShortenResult> results = linkService.createShortLinks(List.of(
+                new BatchShortenItem("https://one.com", null),
+                new BatchShortenItem("https://two.com", null)), testUser);
+
+        assertEquals("retry1", results.get(0).getShortCode());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("https://two.com", results.get(1).getUrl());
+    }
+
+    @Test
+    @DisplayName("Если отложенного пользователя не удалось записать, порция должна отклоняться без вставки ссылок")
+    void createShortLinks_WhenUserNotPersisted_ShouldFailWithoutInserts() {
+        doThrow(new DataIntegrityViolationException("user")).when(userService).ensurePersisted(testUser);
+
+        assertThrows(DataIntegrityViolationException.class, () -> linkService.createShortLinks(List.of(
+                new BatchShortenItem("https://one.com", null)), testUser));
+
+        verifyNoInteractions(shortCodeGenerator);
+        verify(linkRepository, never()).saveAll(anyList());
+        verify(linkRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Страница ссылок должна запрашивать на одну запись больше и возвращать курсор по последней")
+    void getUserLinks_WithMoreLinks_ShouldReturnNextCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        when(linkRepository.findUserLinksAfter(eq("user1"), isNull(), isNull(), eq(true), any(), isNull(), any()))
+                .thenReturn(List.of(view("a", createdAt), view("b", createdAt), view("c", createdAt)));
+
+        LinkPage page = linkService.getUserLinks("user1", null, 2, true, null);
+
+        assertEquals(2, page.getItems().size());
+        LinkCursor next = LinkCursor.decode(page.getNextCursor());
+        assertEquals(createdAt, next.getCreatedAt());
+        assertEquals("b", next.getShortCode());
+        verify(linkRepository).findUserLinksAfter(eq("user1"), isNull(), isNull(), eq(true), any(), isNull(),
+                argThat(pageable -> pageable.getPageSize() == 3));
+    }
+
+    @Test
+    @DisplayName("Выгрузка ссылок должна читать страницы с курсором от последней ссылки до неполной страницы")
+    void forEachUserLink_ShouldPageUntilShortPage() throws Exception {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        when(appConfig.getExportPageSize()).thenReturn(2);
+        when(linkRepository.findUserLinksAfter(eq("user1"), isNull(), isNull(), eq(false), any(), isNull(), any()))
+                .thenReturn(List.of(view("a", createdAt), view("b", createdAt)));
+        when(linkRepository.findUserLinksAfter(eq("user1"), eq(createdAt), eq("b"), eq(false), any(), isNull(), any()))
+                .thenReturn(List.of(view("c", createdAt)));
+        List<String> exported = new ArrayList<>();
+
+        linkService.forEachUserLink("user1", false, null, link -> exported.add(link.getShortCode()));
+
+        assertEquals(List.of("a", "b", "c"), exported);
+    }
+
+    private LinkView view(String shortCode, LocalDateTime createdAt) {
+        return new LinkView(shortCode, "https://" + shortCode + ".com", null, 0, createdAt, createdAt.plusHours(24));
     }
 
     @Test
@@ -131,5 +418,62 @@ class LinkServiceTest {
 
         assertTrue(result);
         verify(linkRepository).delete(activeLink);
+        verify(linkCache).invalidate("active123");
+    }
+
+    @Test
+    @DisplayName("Удаление в транзакции должно сбрасывать кэш только после коммита")
+    void deleteLink_InTransaction_ShouldInvalidateCacheAfterCommit() {
+        String userId = testUser.getId();
+        when(linkRepository.findByShortCode("active123")).thenReturn(Optional.of(activeLink));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            linkService.deleteLink("active123", userId);
+
+            verify(linkCache, never()).invalidate(anyString());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(linkCache).invalidate("active123");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Очистка должна удалять истекшие ссылки порциями, записывать их в журнал изменений и уведомлять владельцев")
+    void scheduledDeleteExpiredLinks_ShouldDeleteInChunks() {
+        LocalDateTime expiredAt = LocalDateTime.now().minusHours(1);
+        String userId = testUser.getId();
+        when(appConfig.getCleanupChunkSize()).thenReturn(2);
+        when(linkRepository.findExpiredLinks(any(), isNull(), eq(""), any())).thenReturn(List.of(
+                new ExpiredLinkView("a1", userId, expiredAt), new ExpiredLinkView("b2", userId, expiredAt)));
+        when(linkRepository.findExpiredLinks(any(), eq(expiredAt), eq("b2"), any())).thenReturn(List.of(
+                new ExpiredLinkView("c3", userId, expiredAt)));
+        when(linkRepository.deleteExpiredLinks(any(), any())).thenReturn(2, 1);
+        when(shardRouter.partition(anyList(), any())).thenAnswer(inv -> Map.of(0, inv.getArgument(0)));
+        when(shardRouter.call(anyInt(), any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(1).get());
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        linkService.scheduledDeleteExpiredLinks();
+
+        verify(linkRepository).deleteExpiredLinks(any(), eq(List.of("a1", "b2")));
+        verify(linkRepository).deleteExpiredLinks(any(), eq(List.of("c3")));
+        verify(linkCache).invalidateAll(List.of("a1", "b2"));
+        verify(linkCache).invalidateAll(List.of("c3"));
+        verify(linkChangeFeed).recordExpired(List.of("a1", "b2"));
+        verify(linkChangeFeed).recordExpired(List.of("c3"));
+        verify(notificationService, times(3)).notifyLinkUnavailable(anyString(), eq(userId), eq("Link expired automatically"));
+        verify(linkRepository, never()).findExpiredLinks(any(), any(), eq("c3"), any());
+        verify(linkMetrics).recordCleanup(anyLong(), eq(3L));
+    }
+
+    @Test
+    @DisplayName("Владельцем ссылки должен считаться только ее создатель")
+    void isLinkOwner_ShouldCompareWithLinkOwner() {
+        when(linkCache.get("active123")).thenReturn(Optional.of(LinkSnapshot.from(activeLink)));
+        when(linkCache.get("nonexistent")).thenReturn(Optional.empty());
+
+        assertTrue(linkService.isLinkOwner("active123", testUser.getId()));
+        assertFalse(linkService.isLinkOwner("active123", "other-user"));
+        assertFalse(linkService.isLinkOwner("nonexistent", testUser.getId()));
     }
-}
\ No newline at end of file
+}
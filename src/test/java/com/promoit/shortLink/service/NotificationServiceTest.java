@@ -1,26 +1,111 @@
 package com.promoit.shortLink.service;
 
+import com.promoit.shortLink.config.AppConfig;
 import com.promoit.shortLink.domain.entity.LinkEntity;
 import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.notification.BackpressurePolicy;
+import com.promoit.shortLink.notification.LinkUnavailableEvent;
+import com.promoit.shortLink.notification.NotificationSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class NotificationServiceTest {
+    @Mock
+    private AppConfig appConfig;
+    @Mock
+    private NotificationSink notificationSink;
+    @InjectMocks
+    private NotificationService notificationService;
 
-    private final NotificationService notificationService = new NotificationService();
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.getNotificationQueueCapacity()).thenReturn(2);
+        lenient().when(appConfig.getNotificationBatchSize()).thenReturn(100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        notificationService.shutdown();
+    }
 
     @Test
-    @DisplayName("Уведомление о недоступности ссылки должно выполняться без ошибок")
-    void notifyLinkUnavailable_ShouldLogMessage() {
+    @DisplayName("Уведомление о недоступности ссылки должно доставляться через канал асинхронно")
+    @SuppressWarnings("unchecked")
+    void notifyLinkUnavailable_ShouldDeliverThroughSink() {
+        when(appConfig.getNotificationBackpressure()).thenReturn(BackpressurePolicy.DROP);
+        notificationService.init();
         UserEntity user = new UserEntity();
         LinkEntity expiredLink = new LinkEntity(
                 "test123", "https://example.com", user, 10, LocalDateTime.now().minusHours(1)
         );
+
         assertDoesNotThrow(() -> notificationService.notifyLinkUnavailable(expiredLink, "test reason"));
+
+        ArgumentCaptor<List<LinkUnavailableEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationSink, timeout(2000)).deliver(captor.capture());
+        LinkUnavailableEvent event = captor.getValue().get(0);
+        assertEquals("test123", event.getShortCode());
+        assertEquals(user.getId(), event.getUserId());
+        assertEquals("test reason", event.getReason());
+    }
+
+    @Test
+    @DisplayName("При политике DROP события сверх емкости очереди должны отбрасываться без блокировки")
+    void notifyLinkUnavailable_WithDropPolicy_ShouldDropWhenFull() throws Exception {
+        when(appConfig.getNotificationBackpressure()).thenReturn(BackpressurePolicy.DROP);
+        CountDownLatch release = blockSink();
+        notificationService.init();
+        notificationService.notifyLinkUnavailable("first", "user", "reason");
+        verify(notificationSink, timeout(2000)).deliver(anyList());
+
+        for (int i = 0; i < 5; i++) {
+            notificationService.notifyLinkUnavailable("code" + i, "user", "reason");
+        }
+
+        assertEquals(2, notificationService.getQueueDepth());
+        assertEquals(3, notificationService.getDroppedCount());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("При политике COALESCE повторные события по одной ссылке должны сливаться")
+    void notifyLinkUnavailable_WithCoalescePolicy_ShouldMergeDuplicates() throws Exception {
+        when(appConfig.getNotificationBackpressure()).thenReturn(BackpressurePolicy.COALESCE);
+        CountDownLatch release = blockSink();
+        notificationService.init();
+        notificationService.notifyLinkUnavailable("first", "user", "reason");
+        verify(notificationSink, timeout(2000)).deliver(anyList());
+
+        for (int i = 0; i < 5; i++) {
+            notificationService.notifyLinkUnavailable("hot123", "user", "reason");
+        }
+
+        assertEquals(1, notificationService.getQueueDepth());
+        assertEquals(4, notificationService.getCoalescedCount());
+        release.countDown();
+    }
+
+    private CountDownLatch blockSink() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(notificationSink).deliver(anyList());
+        return release;
     }
-}
\ No newline at end of file
+}
@@ -1,26 +1,40 @@
 package com.promoit.shortLink.service;
 
+import com.promoit.shortLink.config.AppConfig;
 import com.promoit.shortLink.domain.entity.UserEntity;
 import com.promoit.shortLink.domain.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private AppConfig appConfig;
     @InjectMocks
     private UserService userService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.isUserCacheEnabled()).thenReturn(true);
+        lenient().when(appConfig.getUserCacheMaxSize()).thenReturn(100L);
+        userService.init();
+    }
+
     @Test
     @DisplayName("Получение существующего пользователя по ID должно возвращать пользователя без создания нового")
     void getOrCreateUser_WithExistingUserId_ShouldReturnExistingUser() {
@@ -35,27 +49,77 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("Получение нового пользователя по ID должно создавать и сохранять пользователя")
+    @DisplayName("Повторные запросы известного пользователя должны обслуживаться из кэша")
+    void getUserById_KnownUser_ShouldReadDatabaseOnce() {
+        String userId = UUID.randomUUID().toString();
+        UserEntity user = new UserEntity();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+
+        userService.getUserById(userId);
+        userService.getOrCreateUser(userId);
+
+        assertEquals(user, userService.getUserById(userId).orElseThrow());
+        verify(userRepository, times(1)).findById(userId);
+    }
+
+    @Test
+    @DisplayName("Получение нового пользователя по ID должно создавать пользователя без записи в базу")
     void getOrCreateUser_WithNewUserId_ShouldCreateNewUser() {
         String newUserId = UUID.randomUUID().toString();
         when(userRepository.findById(newUserId)).thenReturn(Optional.empty());
-        when(userRepository.save(any(UserEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
         UserEntity result = userService.getOrCreateUser(newUserId);
 
         assertNotNull(result);
         assertNotNull(result.getId());
-        verify(userRepository).save(any(UserEntity.class));
+        verify(userRepository, never()).save(any(UserEntity.class));
     }
 
     @Test
     @DisplayName("Получение пользователя с null ID должно создавать нового пользователя с автоматическим ID")
     void getOrCreateUser_WithNullUserId_ShouldCreateNewUser() {
+        UserEntity result = userService.getOrCreateUser(null);
+
+        assertNotNull(result);
+        assertNotNull(result.getId());
+        assertEquals(result, userService.getUserById(result.getId()).orElseThrow());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Отложенный пользователь должен записываться один раз перед первой ссылкой")
+    void ensurePersisted_PendingUser_ShouldSaveOnce() {
+        UserEntity user = userService.getOrCreateUser(null);
+
+        userService.ensurePersisted(user);
+        userService.ensurePersisted(user);
+        userService.flushPending();
+
+        verify(userRepository, times(1)).save(user);
+        verify(userRepository, never()).saveAll(anyIterable());
+    }
+
+    @Test
+    @DisplayName("Пользователи без ссылок должны записываться пачкой")
+    void flushPending_ShouldSaveUsersInOneBatch() {
+        UserEntity first = userService.getOrCreateUser(null);
+        UserEntity second = userService.getOrCreateUser(null);
+
+        userService.flushPending();
+        userService.ensurePersisted(first);
+
+        verify(userRepository).saveAll(argThat(users -> ((List<?>) users).containsAll(List.of(first, second))));
+        verify(userRepository, never()).save(any(UserEntity.class));
+    }
+
+    @Test
+    @DisplayName("Без кэша новый пользователь должен сохраняться сразу")
+    void getOrCreateUser_CacheDisabled_ShouldSaveImmediately() {
+        when(appConfig.isUserCacheEnabled()).thenReturn(false);
         when(userRepository.save(any(UserEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
         UserEntity result = userService.getOrCreateUser(null);
 
-        assertNotNull(result);
         assertNotNull(result.getId());
         verify(userRepository).save(any(UserEntity.class));
     }
@@ -83,4 +147,4 @@ class UserServiceTest {
 
         assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package com.promoit.shortLink.sharding;
+
+import com.promoit.shortLink.config.AppConfig;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardRouterTest {
+    @Mock
+    private AppConfig appConfig;
+    @Mock
+    private ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private SchemaManager schemaManager;
+    @InjectMocks
+    private ShardRouter shardRouter;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.getShardCount()).thenReturn(4);
+        lenient().when(appConfig.getShardPoolSize()).thenReturn(2);
+        lenient().when(entityManagerFactory.getObject()).thenReturn(sessionFactory);
+        lenient().when(sessionFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        lenient().when(sessionFactory.getSchemaManager()).thenReturn(schemaManager);
+        shardRouter.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardRouter.shutdown();
+    }
+
+    @Test
+    @DisplayName("Схема должна создаваться в каждом шарде, кроме шарда по умолчанию")
+    void init_ShouldExportSchemaToOtherShards() {
+        verify(schemaManager, times(3)).exportMappedObjects(true);
+    }
+
+    @Test
+    @DisplayName("Шард кода должен быть постоянным, а коды - распределяться по шардам равномерно")
+    void shardOf_ShouldBeStableAndBalanced() {
+        int[] counts = new int[4];
+        for (int i = 0; i < 40_000; i++) {
+            String code = "c" + Integer.toString(i * 7919, 36);
+            int shard = shardRouter.shardOf(code);
+            assertEquals(shard, shardRouter.shardOf(code));
+            counts[shard]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 9000 && count < 11000, "shard size " + count);
+        }
+    }
+
+    @Test
+    @DisplayName("Действие должно выполняться в контексте шарда, а прежний контекст - восстанавливаться")
+    void call_ShouldSwitchAndRestoreShard() {
+        Integer inner = shardRouter.call(1, () -> shardRouter.call(3, ShardRoutingDataSource::current));
+
+        assertEquals(3, inner);
+        assertEquals(1, shardRouter.call(1, ShardRoutingDataSource::current));
+        assertNull(ShardRoutingDataSource.current());
+    }
+
+    @Test
+    @DisplayName("Рассылка должна выполниться в каждом шарде и вернуть результаты по порядку шардов")
+    void fanOut_ShouldRunInEveryShard() {
+        List<String> results = shardRouter.fanOut(shard -> shard + ":" + ShardRoutingDataSource.current());
+
+        assertEquals(List.of("0:0", "1:1", "2:2", "3:3"), results);
+    }
+
+    @Test
+    @DisplayName("Ошибка одного шарда должна пробрасываться вызывающему")
+    void fanOut_WhenShardFails_ShouldRethrow() {
+        assertThrows(IllegalArgumentException.class, () -> shardRouter.fanOut(shard -> {
+            if (shard == 2) {
+                throw new IllegalArgumentException("shard down");
+            }
+            return shard;
+        }));
+    }
+
+    @Test
+    @DisplayName("Коды должны группироваться по своим шардам")
+    void partition_ShouldGroupCodesByShard() {
+        List<String> codes = List.of("abc", "def", "ghi", "jkl", "mno", "pqr");
+
+        Map<Integer, List<String>> shards = shardRouter.partition(codes, code -> code);
+
+        assertEquals(codes.size(), shards.values().stream().mapToInt(List::size).sum());
+        shards.forEach((shard, group) -> group.forEach(code -> assertEquals(shard, shardRouter.shardOf(code))));
+    }
+
+    @Test
+    @DisplayName("При одном шарде действия должны выполняться в вызывающем потоке без контекста шарда")
+    void singleShard_ShouldRunInline() {
+        ShardRouter single = new ShardRouter();
+        Thread caller = Thread.currentThread();
+
+        assertEquals(List.of(true), single.fanOut(shard -> Thread.currentThread() == caller));
+        assertEquals(0, single.shardOf("abc"));
+        assertNull(single.call(2, ShardRoutingDataSource::current));
+    }
+}
@@ -0,0 +1,104 @@
+package com.promoit.shortLink.sharding;
+
+import com.promoit.shortLink.cache.LinkCache;
+import com.promoit.shortLink.domain.dto.LinkCursor;
+import com.promoit.shortLink.domain.dto.LinkPage;
+import com.promoit.shortLink.domain.dto.LinkView;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import com.promoit.shortLink.domain.repository.LinkRepository;
+import com.promoit.shortLink.service.LinkService;
+import com.promoit.shortLink.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "app.sharding.shards=3",
+        "spring.datasource.url=jdbc:h2:mem:sharded0",
+        "app.sharding.url-template=jdbc:h2:mem:sharded%d"})
+class ShardedLinkStorageTest {
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM link_entity WHERE short_code = ?";
+
+    @Autowired
+    private LinkService linkService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private LinkRepository linkRepository;
+    @Autowired
+    private LinkCache linkCache;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Ссылка должна храниться только в шарде своего кода и открываться после вытеснения из кэша")
+    void createShortLink_ShouldStoreLinkOnlyInItsShard() {
+        UserEntity user = userService.getOrCreateUser(null);
+        List<LinkEntity> links = createLinks(user, 30);
+
+        for (LinkEntity link : links) {
+            String code = link.getShortCode();
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                Long stored = shardRouter.call(shard, () -> jdbcTemplate.queryForObject(COUNT_SQL, Long.class, code));
+                assertEquals(shard == shardRouter.shardOf(code) ? 1L : 0L, stored);
+            }
+            linkCache.invalidate(code);
+            assertTrue(linkService.accessLink(code).isAvailable());
+        }
+        assertTrue(links.stream().map(link -> shardRouter.shardOf(link.getShortCode())).distinct().count() > 1);
+    }
+
+    @Test
+    @DisplayName("Ссылки пользователя из всех шардов должны сливаться постранично в порядке (createdAt, shortCode)")
+    void getUserLinks_ShouldMergeShardsInOrder() {
+        UserEntity user = userService.getOrCreateUser(null);
+        List<LinkEntity> links = createLinks(user, 25);
+        List<LinkView> collected = new ArrayList<>();
+
+        LinkCursor cursor = null;
+        do {
+            LinkPage page = linkService.getUserLinks(user.getId(), cursor, 7, false, null);
+            collected.addAll(page.getItems());
+            cursor = page.getNextCursor() == null ? null : LinkCursor.decode(page.getNextCursor());
+        } while (cursor != null);
+
+        assertEquals(links.size(), collected.size());
+        List<LinkView> sorted = new ArrayList<>(collected);
+        sorted.sort(Comparator.comparing(LinkView::getCreatedAt).thenComparing(LinkView::getShortCode));
+        assertEquals(sorted, collected);
+        assertTrue(linkRepository.countActive(LocalDateTime.now()) >= links.size());
+    }
+
+    @Test
+    @DisplayName("Удаление ссылки должно выполняться в ее шарде")
+    void deleteLink_ShouldRemoveLinkFromItsShard() {
+        UserEntity user = userService.getOrCreateUser(null);
+        String code = createLinks(user, 1).get(0).getShortCode();
+
+        assertTrue(linkService.deleteLink(code, user.getId()));
+
+        assertTrue(linkRepository.findByShortCode(code).isEmpty());
+        assertEquals(0L, shardRouter.call(shardRouter.shardOf(code),
+                () -> jdbcTemplate.queryForObject(COUNT_SQL, Long.class, code)));
+    }
+
+    private List<LinkEntity> createLinks(UserEntity user, int count) {
+        List<LinkEntity> links = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            links.add(linkService.createShortLink("https://example.com/sharded/" + i, user, null));
+        }
+        return links;
+    }
+}
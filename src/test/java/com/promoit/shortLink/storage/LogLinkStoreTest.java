@@ -0,0 +1,143 @@
+package com.promoit.shortLink.storage;
+
+import com.promoit.shortLink.config.AppConfig;
+import com.promoit.shortLink.domain.dto.LinkSnapshot;
+import com.promoit.shortLink.domain.entity.LinkEntity;
+import com.promoit.shortLink.domain.entity.UserEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogLinkStoreTest {
+    @Mock
+    private AppConfig appConfig;
+    @TempDir
+    private Path dir;
+    private final UserEntity user = new UserEntity();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(appConfig.getStorageSegmentBytes()).thenReturn(4096L);
+        lenient().when(appConfig.getStorageIndexCapacity()).thenReturn(16);
+    }
+
+    @Test
+    @DisplayName("Ссылки, переходы и номер последовательности должны сохраняться после штатного рестарта")
+    void reopen_AfterShutdown_ShouldRestoreState() throws Exception {
+        LogLinkStore store = openStore();
+        for (int i = 0; i < 100; i++) {
+            store.save(link("code" + i, 10));
+        }
+        store.addClicks("code7", 3);
+        store.delete(List.of("code8"));
+        store.recordCodeSequence(5000);
+        store.shutdown();
+
+        LogLinkStore reopened = openStore();
+
+        assertEquals(99, reopened.size());
+        assertEquals("https://example.com/code7", reopened.find("code7").orElseThrow().getOriginalUrl());
+        assertTrue(reopened.find("code8").isEmpty());
+        assertEquals(5000, reopened.codeSequenceStart());
+        assertTrue(Files.list(dir).filter(f -> f.toString().endsWith(".seg")).count() > 1);
+        reopened.shutdown();
+    }
+
+    @Test
+    @DisplayName("После аварийной остановки хвост журнала должен примениться, а недописанная запись - отрезаться")
+    void reopen_AfterCrashWithTornTail_ShouldReplayLog() throws Exception {
+        LogLinkStore store = openStore();
+        store.save(link("first", null));
+        store.sync();
+        store.save(link("second", null));
+        store.addClicks("second", 2);
+        Files.write(dir.resolve("00000001.seg"), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        LogLinkStore recovered = openStore();
+
+        assertTrue(recovered.find("first").isPresent());
+        Optional<LinkSnapshot> second = recovered.find("second");
+        assertTrue(second.isPresent());
+        recovered.save(link("third", null));
+        assertTrue(recovered.find("third").isPresent());
+        recovered.shutdown();
+    }
+
+    @Test
+    @DisplayName("Удаление внутри транзакции должно попадать в журнал только после ее фиксации")
+    void delete_InTransaction_ShouldApplyAfterCommit() throws Exception {
+        LogLinkStore store = openStore();
+        store.save(link("code1", 10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.delete(List.of("code1"));
+            assertTrue(store.find("code1").isPresent());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(store.find("code1").isEmpty());
+        store.shutdown();
+    }
+
+    @Test
+    @DisplayName("Компакция должна удалять удаленные и истекшие записи и сохранять живые ссылки")
+    void compact_ShouldDropDeletedAndExpiredRecords() throws Exception {
+        LogLinkStore store = openStore();
+        for (int i = 0; i < 50; i++) {
+            store.save(link("code" + i, null));
+            store.addClicks("code" + i, 1);
+        }
+        store.delete(List.of("code0", "code1"));
+        LinkEntity expired = link("expired", null);
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        store.save(expired);
+        long before = store.diskBytes();
+
+        store.compact();
+
+        assertTrue(store.diskBytes() < before);
+        assertEquals(48, store.size());
+        assertTrue(store.find("expired").isEmpty());
+        assertTrue(store.find("code0").isEmpty());
+        assertTrue(store.find("code49").isPresent());
+        store.save(link("after", null));
+        store.shutdown();
+
+        LogLinkStore reopened = openStore();
+        assertEquals(49, reopened.size());
+        assertTrue(reopened.find("code25").isPresent());
+        assertTrue(reopened.find("after").isPresent());
+        reopened.shutdown();
+    }
+
+    private LogLinkStore openStore() throws Exception {
+        LogLinkStore store = new LogLinkStore();
+        ReflectionTestUtils.setField(store, "appConfig", appConfig);
+        store.open(dir);
+        return store;
+    }
+
+    private LinkEntity link(String shortCode, Integer clickLimit) {
+        return new LinkEntity(shortCode, "https://example.com/" + shortCode, user, clickLimit, LocalDateTime.now().plusHours(1));
+    }
+}